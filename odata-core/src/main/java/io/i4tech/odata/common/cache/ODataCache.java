@@ -0,0 +1,195 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.i4tech.odata.common.cache;
+
+import lombok.Getter;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Bounded in-memory cache evicting the least recently used entries, with an optional time to live.
+ * Besides the number of entries, the total weight of the values, e.g. their size in bytes, can be bounded.
+ * Hits, misses and evictions are counted for {@link #getStats()}. The cache is thread-safe.
+ */
+public class ODataCache<K, V> {
+
+    @Getter
+    private final int maxSize;
+
+    @Getter
+    private final long ttlMillis;
+
+    @Getter
+    private final long maxWeight;
+
+    private final ToLongFunction<V> weigher;
+
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private long weight;
+
+    private long hits;
+
+    private long misses;
+
+    private long evictions;
+
+    private static final class Entry<V> {
+
+        private final V value;
+
+        private final long expires;
+
+        private final long weight;
+
+        private Entry(V value, long expires, long weight) {
+            this.value = value;
+            this.expires = expires;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * @param maxSize   maximum number of entries
+     * @param ttlMillis time to live of the entries, 0 if they do not expire
+     */
+    public ODataCache(int maxSize, long ttlMillis) {
+        this(maxSize, ttlMillis, 0, null);
+    }
+
+    /**
+     * @param maxSize   maximum number of entries
+     * @param ttlMillis time to live of the entries, 0 if they do not expire
+     * @param maxWeight maximum total weight of the values, 0 if only the number of entries is bounded
+     * @param weigher   weight of a value
+     */
+    public ODataCache(int maxSize, long ttlMillis, long maxWeight, ToLongFunction<V> weigher) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive.");
+        }
+        if (ttlMillis < 0) {
+            throw new IllegalArgumentException("Cache time to live must not be negative.");
+        }
+        if (maxWeight < 0 || maxWeight > 0 && weigher == null) {
+            throw new IllegalArgumentException("Cache weight must not be negative and requires a weigher.");
+        }
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public ODataCache(int maxSize) {
+        this(maxSize, 0);
+    }
+
+    protected long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Returns the cached value, or null if the key is not cached or its entry has expired.
+     */
+    public synchronized V get(K key) {
+        final Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expires != 0 && entry.expires <= currentTimeMillis()) {
+            entries.remove(key);
+            weight -= entry.weight;
+            evictions++;
+            misses++;
+            return null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    public void put(K key, V value) {
+        put(key, value, ttlMillis);
+    }
+
+    /**
+     * Caches the value with its own time to live, 0 if it does not expire.
+     */
+    public synchronized void put(K key, V value, long ttlMillis) {
+        final Entry<V> entry = new Entry<>(value, ttlMillis > 0 ? currentTimeMillis() + ttlMillis : 0,
+                weigher != null ? weigher.applyAsLong(value) : 0);
+        final Entry<V> previous = entries.put(key, entry);
+        weight += entry.weight - (previous != null ? previous.weight : 0);
+        final Iterator<Entry<V>> eldest = entries.values().iterator();
+        while (entries.size() > maxSize || maxWeight > 0 && weight > maxWeight) {
+            weight -= eldest.next().weight;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized void remove(K key) {
+        final Entry<V> entry = entries.remove(key);
+        if (entry != null) {
+            weight -= entry.weight;
+        }
+    }
+
+    public synchronized void removeIf(Predicate<K> predicate) {
+        final Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<K, Entry<V>> entry = iterator.next();
+            if (predicate.test(entry.getKey())) {
+                weight -= entry.getValue().weight;
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Returns the total weight of the cached values.
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized ODataCacheStats getStats() {
+        return new ODataCacheStats(hits, misses, evictions, entries.size(), maxSize);
+    }
+}
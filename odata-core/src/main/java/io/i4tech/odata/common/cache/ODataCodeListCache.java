@@ -0,0 +1,217 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.i4tech.odata.common.cache;
+
+import io.i4tech.odata.common.client.ODataClient;
+import io.i4tech.odata.common.client.ODataException;
+import io.i4tech.odata.common.model.ODataEnum;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Shared cache of codelist entity sets. Every codelist is read completely once per language, on first use or
+ * by {@link #preload(Collection, Collection)}, and kept as an immutable map of descriptions keyed by code,
+ * i.e. by {@link ODataEnum#value()}. Codelists are reloaded in the background at the refresh interval; readers
+ * are served from the previous map until the new one replaces it.
+ */
+@Slf4j
+public class ODataCodeListCache implements AutoCloseable {
+
+    protected static final String ENTITY_SET_SUFFIX = "Collection";
+
+    protected final ODataClient client;
+
+    @Getter
+    protected final long refreshIntervalMillis;
+
+    protected final ConcurrentMap<Key, CompletableFuture<Map<String, String>>> codeLists = new ConcurrentHashMap<>();
+
+    protected final ScheduledExecutorService scheduler;
+
+    @Getter
+    @EqualsAndHashCode
+    protected static final class Key {
+
+        private final String entitySet;
+
+        private final String language;
+
+        private Key(String entitySet, String language) {
+            this.entitySet = entitySet;
+            this.language = language;
+        }
+    }
+
+    public ODataCodeListCache(ODataClient client) {
+        this(client, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param client          client reading the codelists
+     * @param refreshInterval interval of the background reload, 0 if the codelists are not reloaded
+     * @param unit            unit of the refresh interval
+     */
+    public ODataCodeListCache(ODataClient client, long refreshInterval, TimeUnit unit) {
+        if (client == null) {
+            throw new IllegalArgumentException("Client must be set.");
+        }
+        if (refreshInterval < 0) {
+            throw new IllegalArgumentException("Refresh interval must not be negative.");
+        }
+        this.client = client;
+        this.refreshIntervalMillis = unit.toMillis(refreshInterval);
+        if (refreshIntervalMillis > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread thread = new Thread(r, "odata-codelist-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::refresh, refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Returns the name of the entity set the codelist enum was generated for.
+     */
+    public static String getEntitySetName(Class<? extends ODataEnum> enumClass) {
+        return enumClass.getSimpleName() + ENTITY_SET_SUFFIX;
+    }
+
+    /**
+     * Loads the codelists in the given languages at startup.
+     */
+    public void preload(Collection<String> entitySets, Collection<Locale> locales) {
+        entitySets.forEach(entitySet -> locales.forEach(locale -> getCodeList(entitySet, locale)));
+    }
+
+    /**
+     * Returns the descriptions of the codelist in the language of the current request.
+     */
+    public Map<String, String> getCodeList(String entitySet) {
+        return getCodeList(entitySet, null);
+    }
+
+    public Map<String, String> getCodeList(String entitySet, Locale locale) {
+        final Locale requestLocale = (locale != null ? locale : client.getRequestLocale());
+        final Key key = new Key(entitySet, requestLocale.getLanguage());
+        CompletableFuture<Map<String, String>> codeList = codeLists.get(key);
+        if (codeList == null) {
+            // concurrent readers of the same codelist wait for the first one to load it
+            final CompletableFuture<Map<String, String>> loading = new CompletableFuture<>();
+            codeList = codeLists.putIfAbsent(key, loading);
+            if (codeList == null) {
+                codeList = loading;
+                try {
+                    loading.complete(load(entitySet, requestLocale));
+                } catch (RuntimeException e) {
+                    codeLists.remove(key, loading);
+                    loading.completeExceptionally(e);
+                }
+            }
+        }
+        try {
+            return codeList.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof ODataException ? (ODataException) e.getCause() : new ODataException(e);
+        }
+    }
+
+    public Map<String, String> getCodeList(Class<? extends ODataEnum> enumClass, Locale locale) {
+        return getCodeList(getEntitySetName(enumClass), locale);
+    }
+
+    public String getDescription(ODataEnum code) {
+        return getDescription(code, null);
+    }
+
+    public String getDescription(ODataEnum code, Locale locale) {
+        return code != null ? getCodeList(getEntitySetName(code.getClass().asSubclass(ODataEnum.class)), locale).get(code.value()) : null;
+    }
+
+    /**
+     * Returns true if the code is contained in the codelist of the service.
+     */
+    public boolean isValid(ODataEnum code) {
+        return code != null && getCodeList(getEntitySetName(code.getClass().asSubclass(ODataEnum.class)), null).containsKey(code.value());
+    }
+
+    /**
+     * Reloads every loaded codelist. The previous values are kept if a codelist cannot be loaded.
+     */
+    public void refresh() {
+        codeLists.forEach((key, codeList) -> {
+            if (!codeList.isDone()) {
+                return;
+            }
+            try {
+                final Map<String, String> values = load(key.getEntitySet(), new Locale(key.getLanguage()));
+                codeLists.replace(key, codeList, CompletableFuture.completedFuture(values));
+            } catch (RuntimeException e) {
+                log.warn("Codelist {} ({}) could not be refreshed: {}", key.getEntitySet(), key.getLanguage(), e.getMessage());
+            }
+        });
+    }
+
+    public void clear() {
+        codeLists.clear();
+    }
+
+    protected Map<String, String> load(String entitySet, Locale locale) {
+        final Locale currentLocale = client.getRequestLocale();
+        client.setRequestLocale(locale);
+        try (Stream<ODataCodeListEntry> entries = client.stream(entitySet, ODataCodeListEntry.class, entitySet)) {
+            final Map<String, String> values = new HashMap<>();
+            entries.forEach(entry -> values.put(entry.getCode(), entry.getDescription()));
+            return Collections.unmodifiableMap(new HashMap<>(values));
+        } finally {
+            client.setRequestLocale(currentLocale);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
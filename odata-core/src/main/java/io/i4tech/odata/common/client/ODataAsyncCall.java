@@ -0,0 +1,71 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.i4tech.odata.common.client;
+
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+/**
+ * State shared by the requests of one asynchronous client call: the locale captured on the calling thread
+ * and the requests in flight, which are aborted when the call is cancelled.
+ */
+class ODataAsyncCall {
+
+    private final Locale locale;
+    private final Set<Future<?>> requests = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+
+    ODataAsyncCall(Locale locale) {
+        this.locale = locale;
+    }
+
+    Locale getLocale() {
+        return locale;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    void started(Future<?> request) {
+        requests.add(request);
+        if (cancelled) {
+            request.cancel(true);
+        }
+    }
+
+    void finished(Future<?> request) {
+        requests.remove(request);
+    }
+
+    void cancel() {
+        cancelled = true;
+        requests.forEach(r -> r.cancel(true));
+        requests.clear();
+    }
+}
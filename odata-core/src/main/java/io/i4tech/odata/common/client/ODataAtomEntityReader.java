@@ -0,0 +1,328 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.i4tech.odata.common.client;
+
+import io.i4tech.odata.common.mapper.ODataCompiledEntityMapper;
+import io.i4tech.odata.common.mapper.ODataEntityBinder;
+import io.i4tech.odata.common.model.ODataEntity;
+import org.apache.olingo.odata2.api.edm.*;
+import org.apache.olingo.odata2.api.ep.EntityProviderException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static io.i4tech.odata.common.client.ODataAtomFeedReader.ATOM_NS;
+import static io.i4tech.odata.common.client.ODataAtomFeedReader.METADATA_NS;
+
+/**
+ * Reads an Atom feed or entry with a StAX cursor directly into entities, without the property maps of Olingo.
+ * Properties are converted with the EDM simple types as by Olingo and set through the binder of the entity class.
+ */
+public class ODataAtomEntityReader<E extends ODataEntity> implements ODataEntityReader<E> {
+
+    private static final String RELATED_PREFIX = "http://schemas.microsoft.com/ado/2007/08/dataservices/related/";
+
+    private static final XMLInputFactory INPUT_FACTORY = ODataAtomFeedReader.createInputFactory();
+
+    private final InputStream content;
+    private final XMLStreamReader reader;
+    private final EntityPlan plan;
+
+    private boolean rootEntry;
+    private E nextEntity;
+    private boolean finished;
+    private String nextLink;
+    private Long inlineCount;
+
+    /**
+     * Properties and navigations of an entity set bound to an entity class, resolved once per Edm.
+     */
+    public static final class EntityPlan {
+
+        private final ODataEntityBinder<ODataEntity> binder;
+
+        private final Map<String, PropertyPlan> properties = new HashMap<>();
+
+        private final Map<String, NavigationPlan> navigations = new HashMap<>();
+
+        @SuppressWarnings("unchecked")
+        public EntityPlan(EdmEntitySet entitySet, Class<? extends ODataEntity> entityClass, ODataCompiledEntityMapper mapper) throws EdmException {
+            this.binder = (ODataEntityBinder<ODataEntity>) mapper.getBinder(entityClass);
+            final EdmEntityType entityType = entitySet.getEntityType();
+            for (String name : entityType.getPropertyNames()) {
+                final Class<?> javaType = binder.getPropertyType(name);
+                if (javaType != null) {
+                    properties.put(name, new PropertyPlan((EdmProperty) entityType.getProperty(name), javaType));
+                }
+            }
+            for (String name : entityType.getNavigationPropertyNames()) {
+                final Class<? extends ODataEntity> navigationClass = binder.getNavigationClass(name);
+                final EdmEntitySet relatedSet = navigationClass != null
+                        ? entitySet.getRelatedEntitySet((EdmNavigationProperty) entityType.getProperty(name))
+                        : null;
+                if (relatedSet != null) {
+                    navigations.put(name, new NavigationPlan(relatedSet, navigationClass, mapper));
+                }
+            }
+        }
+    }
+
+    private static final class PropertyPlan {
+
+        private final EdmSimpleType simpleType;
+
+        private final Class<?> javaType;
+
+        private final Map<String, PropertyPlan> complexProperties = new HashMap<>();
+
+        private PropertyPlan(EdmProperty property, Class<?> fieldType) throws EdmException {
+            final EdmType type = property.getType();
+            if (type instanceof EdmSimpleType) {
+                simpleType = (EdmSimpleType) type;
+                javaType = Timestamp.class.equals(fieldType) ? Timestamp.class : simpleType.getDefaultType();
+            } else {
+                simpleType = null;
+                javaType = null;
+                final EdmStructuralType complexType = (EdmStructuralType) type;
+                for (String name : complexType.getPropertyNames()) {
+                    complexProperties.put(name, new PropertyPlan((EdmProperty) complexType.getProperty(name), null));
+                }
+            }
+        }
+    }
+
+    private static final class NavigationPlan {
+
+        private final EdmEntitySet entitySet;
+
+        private final Class<? extends ODataEntity> entityClass;
+
+        private final ODataCompiledEntityMapper mapper;
+
+        private volatile EntityPlan plan;
+
+        private NavigationPlan(EdmEntitySet entitySet, Class<? extends ODataEntity> entityClass, ODataCompiledEntityMapper mapper) {
+            this.entitySet = entitySet;
+            this.entityClass = entityClass;
+            this.mapper = mapper;
+        }
+
+        // resolved on first use, navigations may lead back to the entity
+        private EntityPlan getPlan() throws EdmException {
+            EntityPlan entityPlan = plan;
+            if (entityPlan == null) {
+                entityPlan = new EntityPlan(entitySet, entityClass, mapper);
+                plan = entityPlan;
+            }
+            return entityPlan;
+        }
+    }
+
+    public ODataAtomEntityReader(InputStream content, EntityPlan plan) throws EntityProviderException {
+        this.content = content;
+        this.plan = plan;
+        try {
+            this.reader = INPUT_FACTORY.createXMLStreamReader(content);
+            reader.nextTag();
+            if (isElement(ATOM_NS, "entry")) {
+                rootEntry = true;
+            } else if (!isElement(ATOM_NS, "feed")) {
+                throw new EntityProviderException(EntityProviderException.INVALID_CONTENT.addContent(reader.getLocalName()));
+            }
+        } catch (XMLStreamException e) {
+            throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+        }
+    }
+
+    private boolean isElement(String namespace, String localName) {
+        return localName.equals(reader.getLocalName()) && namespace.equals(reader.getNamespaceURI());
+    }
+
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private E readNextEntity() throws XMLStreamException, EdmException {
+        if (rootEntry) {
+            rootEntry = false;
+            return (E) readEntry(plan);
+        }
+        while (reader.hasNext()) {
+            if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            if (isElement(ATOM_NS, "entry")) {
+                return (E) readEntry(plan);
+            } else if (isElement(METADATA_NS, "count")) {
+                inlineCount = Long.valueOf(reader.getElementText().trim());
+            } else {
+                if (isElement(ATOM_NS, "link") && "next".equals(reader.getAttributeValue(null, "rel"))) {
+                    nextLink = reader.getAttributeValue(null, "href");
+                }
+                skipElement();
+            }
+        }
+        return null;
+    }
+
+    private ODataEntity readEntry(EntityPlan entityPlan) throws XMLStreamException, EdmException {
+        final ODataEntity entity = entityPlan.binder.newEntity();
+        int depth = 1;
+        while (depth > 0) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if (isElement(METADATA_NS, "properties")) {
+                    readProperties(entityPlan, entity);
+                } else if (isElement(ATOM_NS, "link")) {
+                    readLink(entityPlan, entity);
+                } else {
+                    depth++;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+        return entity;
+    }
+
+    private void readProperties(EntityPlan entityPlan, ODataEntity entity) throws XMLStreamException, EdmException {
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            final String name = reader.getLocalName();
+            final PropertyPlan property = entityPlan.properties.get(name);
+            if (property != null) {
+                entityPlan.binder.setProperty(entity, name, readValue(property));
+            } else {
+                skipElement();
+            }
+        }
+    }
+
+    private Object readValue(PropertyPlan property) throws XMLStreamException, EdmException {
+        final boolean isNull = "true".equals(reader.getAttributeValue(METADATA_NS, "null"));
+        if (property.simpleType != null) {
+            final String text = reader.getElementText();
+            return isNull ? null : property.simpleType.valueOfString(text, EdmLiteralKind.DEFAULT, null, property.javaType);
+        } else if (isNull) {
+            skipElement();
+            return null;
+        }
+        final Map<String, Object> value = new HashMap<>();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            final String name = reader.getLocalName();
+            final PropertyPlan complexProperty = property.complexProperties.get(name);
+            if (complexProperty != null) {
+                value.put(name, readValue(complexProperty));
+            } else {
+                skipElement();
+            }
+        }
+        return value;
+    }
+
+    // Entries of an inline feed or the inline entry are added to the navigation
+    private void readLink(EntityPlan entityPlan, ODataEntity entity) throws XMLStreamException, EdmException {
+        final String rel = reader.getAttributeValue(null, "rel");
+        final String name = rel != null && rel.startsWith(RELATED_PREFIX) ? rel.substring(RELATED_PREFIX.length()) : null;
+        final NavigationPlan navigation = name != null ? entityPlan.navigations.get(name) : null;
+        if (navigation == null) {
+            skipElement();
+            return;
+        }
+        int depth = 1;
+        while (depth > 0) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT && isElement(ATOM_NS, "entry")) {
+                entityPlan.binder.addNavigation(entity, name, readEntry(navigation.getPlan()));
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextEntity == null && !finished) {
+            try {
+                nextEntity = readNextEntity();
+            } catch (ODataException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new ODataException(e);
+            }
+            finished = (nextEntity == null);
+        }
+        return nextEntity != null;
+    }
+
+    @Override
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final E entity = nextEntity;
+        nextEntity = null;
+        return entity;
+    }
+
+    @Override
+    public String getNextLink() {
+        return nextLink;
+    }
+
+    @Override
+    public Long getInlineCount() {
+        return inlineCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            // nothing to do, content stream is closed anyway
+        } finally {
+            content.close();
+        }
+    }
+}
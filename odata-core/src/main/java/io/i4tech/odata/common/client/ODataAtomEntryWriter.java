@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.i4tech.odata.common.client;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.apache.olingo.odata2.api.edm.*;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.ByteArrayOutputStream;
+import java.util.Map;
+
+import static io.i4tech.odata.common.client.ODataAtomFeedReader.ATOM_NS;
+import static io.i4tech.odata.common.client.ODataAtomFeedReader.METADATA_NS;
+
+/**
+ * Writes the request body of create and update requests as an Atom entry, with the content Olingo writes for
+ * the entry without its metadata.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ODataAtomEntryWriter {
+
+    static final String DATA_NS = "http://schemas.microsoft.com/ado/2007/08/dataservices";
+
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    public static byte[] writeEntry(EdmEntitySet entitySet, Map<String, Object> data) throws EdmException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            final XMLStreamWriter writer = OUTPUT_FACTORY.createXMLStreamWriter(output, "utf-8");
+            writer.writeStartDocument("utf-8", "1.0");
+            writer.setDefaultNamespace(ATOM_NS);
+            writer.setPrefix("m", METADATA_NS);
+            writer.setPrefix("d", DATA_NS);
+            writer.writeStartElement(ATOM_NS, "entry");
+            writer.writeDefaultNamespace(ATOM_NS);
+            writer.writeNamespace("m", METADATA_NS);
+            writer.writeNamespace("d", DATA_NS);
+            writer.writeAttribute(XMLConstants.XML_NS_PREFIX, XMLConstants.XML_NS_URI, "base", entitySet.getName());
+            writer.writeStartElement(ATOM_NS, "content");
+            writer.writeAttribute("type", "application/xml");
+            writer.writeStartElement(METADATA_NS, "properties");
+            writeProperties(writer, entitySet.getEntityType(), data);
+            writer.writeEndElement();
+            writer.writeEndElement();
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.close();
+        } catch (XMLStreamException e) {
+            throw new ODataException(e);
+        }
+        return output.toByteArray();
+    }
+
+    private static void writeProperties(XMLStreamWriter writer, EdmStructuralType type, Map<String, Object> data) throws XMLStreamException, EdmException {
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            final EdmTyped property = type.getProperty(entry.getKey());
+            if (property instanceof EdmProperty) {
+                writeValue(writer, (EdmProperty) property, entry.getValue());
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeValue(XMLStreamWriter writer, EdmProperty property, Object value) throws XMLStreamException, EdmException {
+        final EdmType type = property.getType();
+        if (value == null) {
+            writer.writeEmptyElement(DATA_NS, property.getName());
+            writer.writeAttribute(METADATA_NS, "null", "true");
+        } else if (type instanceof EdmSimpleType) {
+            writer.writeStartElement(DATA_NS, property.getName());
+            writer.writeCharacters(((EdmSimpleType) type).valueToString(value, EdmLiteralKind.DEFAULT, property.getFacets()));
+            writer.writeEndElement();
+        } else {
+            writer.writeStartElement(DATA_NS, property.getName());
+            writer.writeAttribute(METADATA_NS, "type", type.getNamespace() + "." + type.getName());
+            writeProperties(writer, (EdmStructuralType) type, (Map<String, Object>) value);
+            writer.writeEndElement();
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.i4tech.odata.common.client;
+
+import org.apache.olingo.odata2.api.ep.EntityProviderException;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.stream.*;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Namespace;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Splits an Atom feed into its entries with a StAX cursor, so that only a single entry is held in memory
+ * while it is being parsed.
+ */
+public class ODataAtomFeedReader implements ODataFeedReader {
+
+    @FunctionalInterface
+    public interface EntryParser {
+        Map<String, Object> parse(InputStream entry) throws EntityProviderException;
+    }
+
+    static final String ATOM_NS = "http://www.w3.org/2005/Atom";
+    static final String METADATA_NS = "http://schemas.microsoft.com/ado/2007/08/dataservices/metadata";
+
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+    private static final XMLEventFactory EVENT_FACTORY = XMLEventFactory.newInstance();
+    private static final QName XML_BASE = new QName(XMLConstants.XML_NS_URI, "base", XMLConstants.XML_NS_PREFIX);
+
+    private final InputStream content;
+    private final XMLEventReader reader;
+    private final EntryParser entryParser;
+
+    private StartElement root;
+    private Map<String, Object> nextEntry;
+    private boolean finished;
+    private String nextLink;
+    private Long inlineCount;
+
+    public ODataAtomFeedReader(InputStream content, EntryParser entryParser) {
+        this.content = content;
+        this.entryParser = entryParser;
+        try {
+            this.reader = INPUT_FACTORY.createXMLEventReader(content);
+        } catch (XMLStreamException e) {
+            throw new ODataException(e);
+        }
+    }
+
+    static XMLInputFactory createInputFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    private static boolean isElement(StartElement element, String namespace, String localName) {
+        return namespace.equals(element.getName().getNamespaceURI()) && localName.equals(element.getName().getLocalPart());
+    }
+
+    private static String getAttribute(StartElement element, String name) {
+        final Attribute attribute = element.getAttributeByName(new QName(name));
+        return attribute != null ? attribute.getValue() : null;
+    }
+
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            final XMLEvent event = reader.nextEvent();
+            if (event.isStartElement()) {
+                depth++;
+            } else if (event.isEndElement()) {
+                depth--;
+            }
+        }
+    }
+
+    // Entries are parsed standalone, so they inherit namespaces and xml:base of the enclosing feed
+    private StartElement inheritFeedContext(StartElement entry) {
+        if (entry == root) {
+            return entry;
+        }
+        final Map<String, Namespace> namespaces = new LinkedHashMap<>();
+        root.getNamespaces().forEachRemaining(n -> namespaces.put(((Namespace) n).getPrefix(), (Namespace) n));
+        entry.getNamespaces().forEachRemaining(n -> namespaces.put(((Namespace) n).getPrefix(), (Namespace) n));
+
+        final List<Attribute> attributes = new ArrayList<>();
+        entry.getAttributes().forEachRemaining(a -> attributes.add((Attribute) a));
+        final Attribute base = root.getAttributeByName(XML_BASE);
+        if (base != null && entry.getAttributeByName(XML_BASE) == null) {
+            attributes.add(base);
+        }
+        return EVENT_FACTORY.createStartElement(entry.getName(), attributes.iterator(), namespaces.values().iterator());
+    }
+
+    private Map<String, Object> parseEntry(StartElement entry) throws XMLStreamException, EntityProviderException {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final XMLEventWriter writer = OUTPUT_FACTORY.createXMLEventWriter(buffer, StandardCharsets.UTF_8.name());
+        writer.add(EVENT_FACTORY.createStartDocument(StandardCharsets.UTF_8.name()));
+        writer.add(inheritFeedContext(entry));
+        if (entry != root) {
+            int depth = 1;
+            while (depth > 0) {
+                final XMLEvent event = reader.nextEvent();
+                if (event.isStartElement()) {
+                    depth++;
+                } else if (event.isEndElement()) {
+                    depth--;
+                }
+                writer.add(event);
+            }
+        } else {
+            while (reader.hasNext()) {
+                writer.add(reader.nextEvent());
+            }
+        }
+        writer.close();
+        return entryParser.parse(new ByteArrayInputStream(buffer.toByteArray()));
+    }
+
+    private Map<String, Object> readNextEntry() throws XMLStreamException, EntityProviderException {
+        while (reader.hasNext()) {
+            final XMLEvent event = reader.nextEvent();
+            if (!event.isStartElement()) {
+                continue;
+            }
+            final StartElement element = event.asStartElement();
+            if (root == null) {
+                root = element;
+                if (isElement(element, ATOM_NS, "entry")) {
+                    return parseEntry(element);
+                } else if (!isElement(element, ATOM_NS, "feed")) {
+                    throw new ODataException("Unexpected root element '" + element.getName() + "' in feed.");
+                }
+            } else if (isElement(element, ATOM_NS, "entry")) {
+                return parseEntry(element);
+            } else if (isElement(element, METADATA_NS, "count")) {
+                inlineCount = Long.valueOf(reader.getElementText().trim());
+            } else {
+                if (isElement(element, ATOM_NS, "link") && "next".equals(getAttribute(element, "rel"))) {
+                    nextLink = getAttribute(element, "href");
+                }
+                skipElement();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextEntry == null && !finished) {
+            try {
+                nextEntry = readNextEntry();
+            } catch (ODataException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new ODataException(e);
+            }
+            finished = (nextEntry == null);
+        }
+        return nextEntry != null;
+    }
+
+    @Override
+    public Map<String, Object> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final Map<String, Object> entry = nextEntry;
+        nextEntry = null;
+        return entry;
+    }
+
+    @Override
+    public String getNextLink() {
+        return nextLink;
+    }
+
+    @Override
+    public Long getInlineCount() {
+        return inlineCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            // nothing to do, content stream is closed anyway
+        } finally {
+            content.close();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.i4tech.odata.common.client;
+
+import io.i4tech.odata.common.model.ODataEntity;
+import lombok.Getter;
+import org.apache.olingo.odata2.api.commons.ODataHttpMethod;
+
+/**
+ * A single request of a $batch call, created from an operation.
+ */
+@Getter
+public class ODataBatchRequest<E extends ODataEntity> {
+
+    private final ODataHttpMethod method;
+
+    private final String requestPath;
+
+    private final String entitySetName;
+
+    private final Class<E> entityClass;
+
+    private final E data;
+
+    private final String changeSetId;
+
+    private final String contentId;
+
+    public ODataBatchRequest(ODataHttpMethod method, String requestPath, String entitySetName, Class<E> entityClass, E data) {
+        this(method, requestPath, entitySetName, entityClass, data, null, null);
+    }
+
+    @SuppressWarnings("squid:S00107")
+    public ODataBatchRequest(ODataHttpMethod method, String requestPath, String entitySetName, Class<E> entityClass, E data,
+                             String changeSetId, String contentId) {
+        this.method = method;
+        this.requestPath = requestPath;
+        this.entitySetName = entitySetName;
+        this.entityClass = entityClass;
+        this.data = data;
+        this.changeSetId = changeSetId;
+        this.contentId = contentId;
+    }
+
+    public ODataBatchRequest<E> inChangeSet(String changeSetId, String contentId) {
+        return new ODataBatchRequest<>(method, requestPath, entitySetName, entityClass, data, changeSetId, contentId);
+    }
+
+    public boolean isChange() {
+        return method != ODataHttpMethod.GET;
+    }
+}
@@ -24,10 +24,19 @@
 
 package io.i4tech.odata.common.client;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import io.i4tech.odata.common.authorization.ODataAuthorization;
+import io.i4tech.odata.common.client.transport.ODataApacheTransport;
+import io.i4tech.odata.common.client.transport.ODataPoolStats;
+import io.i4tech.odata.common.client.transport.ODataTransport;
+import io.i4tech.odata.common.client.transport.ODataTransportRequest;
+import io.i4tech.odata.common.client.transport.ODataTransportResponse;
+import io.i4tech.odata.common.mapper.ODataCompiledEntityMapper;
 import io.i4tech.odata.common.mapper.ODataEntityMapper;
 import io.i4tech.odata.common.model.ODataEntity;
+import io.i4tech.odata.common.model.ODataEntitySet;
 import io.i4tech.odata.common.util.ODataEntityUtils;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -35,15 +44,20 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.NotImplementedException;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpHeaders;
-import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.*;
-import org.apache.http.entity.InputStreamEntity;
+import org.apache.olingo.odata2.api.batch.BatchException;
+import org.apache.olingo.odata2.api.client.batch.*;
 import org.apache.olingo.odata2.api.commons.HttpContentType;
 import org.apache.olingo.odata2.api.commons.HttpStatusCodes;
+import org.apache.olingo.odata2.api.commons.ODataHttpMethod;
 import org.apache.olingo.odata2.api.edm.Edm;
 import org.apache.olingo.odata2.api.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.edm.EdmEntityType;
 import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.edm.EdmLiteralKind;
+import org.apache.olingo.odata2.api.edm.EdmProperty;
+import org.apache.olingo.odata2.api.edm.EdmSimpleType;
+import org.apache.olingo.odata2.api.edm.EdmTyped;
 import org.apache.olingo.odata2.api.ep.EntityProvider;
 import org.apache.olingo.odata2.api.ep.EntityProviderException;
 import org.apache.olingo.odata2.api.ep.EntityProviderReadProperties;
@@ -52,21 +66,35 @@ import org.apache.olingo.odata2.api.ep.entry.ODataEntry;
 import org.apache.olingo.odata2.api.ep.feed.ODataFeed;
 import org.apache.olingo.odata2.api.uri.ExpandSelectTreeNode;
 
-import javax.xml.bind.annotation.XmlElement;
 import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringWriter;
-import java.lang.reflect.Field;
+import java.io.UnsupportedEncodingException;
 import java.net.Proxy;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.sql.Timestamp;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Slf4j
-public class ODataClient {
+public class ODataClient implements Closeable {
 
     protected static final String DEFAULT_CONTENT_TYPE = HttpContentType.APPLICATION_XML;
     protected static final String X_CSRF_TOKEN = "x-csrf-token";
@@ -87,11 +115,13 @@ public class ODataClient {
 
     protected final Map<String, String> headers;
 
-    protected Edm edm;
+    protected volatile Edm edm;
 
-    protected HttpClient httpClient;
+    protected final ODataTransport transport;
 
-    protected String csrfToken;
+    protected final boolean closeTransport;
+
+    protected final ODataCsrfTokenManager csrfTokenManager;
 
     protected final ODataEntityMapper mapper;
 
@@ -105,6 +135,48 @@ public class ODataClient {
 
     protected final ThreadLocal<Locale> requestLocale;
 
+    @Getter
+    protected final int prefetchDepth;
+
+    protected final Executor prefetchExecutor;
+
+    protected final ExecutorService createdPrefetchExecutor;
+
+    @Getter
+    protected final ODataFormat format;
+
+    @Getter
+    protected final ODataWriteResponseMode writeResponseMode;
+
+    protected final Executor callbackExecutor;
+
+    protected CompletableFuture<Edm> edmLoading;
+
+    protected final ODataMetadataCache metadataCache;
+
+    protected final ODataResponseCache responseCache;
+
+    protected final ODataQueryCache queryCache;
+
+    protected final ODataRequestCoalescer requestCoalescer;
+
+    protected final AtomicBoolean edmRevalidating = new AtomicBoolean();
+
+    protected final ODataMetadataSnapshot metadataSnapshot;
+
+    protected final ODataEdmxPruner edmxPruner;
+
+    protected final ODataPlanCache planCache = new ODataPlanCache();
+
+    protected final boolean directAtomReader;
+
+    protected final boolean directAtomWriter;
+
+    @FunctionalInterface
+    protected interface ResponseHandler<T> {
+        T handle(ODataTransportResponse response) throws Exception;
+    }
+
     @SuppressWarnings("squid:S00107") // Only invoked by builder
     protected ODataClient(String serviceUrl, ODataAuthorization authorization, Map<String, String> headers,
                           Map<String, String> metatataArgs, Proxy proxy, Locale locale, HttpClient httpClient, ODataEntityMapper mapper) {
@@ -112,12 +184,56 @@ public class ODataClient {
         this.headers = headers;
         this.proxy = proxy;
         this.metadataArguments = metatataArgs;
-        this.httpClient = httpClient;
+        this.transport = new ODataApacheTransport(httpClient, null);
+        this.closeTransport = true;
+        this.csrfTokenManager = new ODataCsrfTokenManager(ODataCsrfTokenManager.DEFAULT_MAX_RETRIES);
         this.mapper = mapper;
         this.defaultLocale = (locale == null ? Locale.getDefault() : locale);
-        this.requestLocale = new ThreadLocal<>();
-        this.requestLocale.set(this.defaultLocale);
+        this.requestLocale = ThreadLocal.withInitial(() -> this.defaultLocale);
         this.authorization = authorization;
+        this.prefetchDepth = 0;
+        this.prefetchExecutor = null;
+        this.createdPrefetchExecutor = null;
+        this.format = ODataFormat.ATOM;
+        this.writeResponseMode = ODataWriteResponseMode.FULL;
+        this.callbackExecutor = ForkJoinPool.commonPool();
+        this.metadataCache = null;
+        this.responseCache = null;
+        this.queryCache = null;
+        this.requestCoalescer = null;
+        this.metadataSnapshot = null;
+        this.edmxPruner = null;
+        this.directAtomReader = false;
+        this.directAtomWriter = false;
+    }
+
+    protected ODataClient(ODataClientBuilder builder) {
+        this.serviceUrl = builder.serviceUrl;
+        this.headers = builder.headers;
+        this.proxy = builder.proxy;
+        this.metadataArguments = builder.metadataArguments;
+        this.transport = builder.createTransport();
+        this.closeTransport = builder.transport == null;
+        this.csrfTokenManager = new ODataCsrfTokenManager(builder.csrfMaxRetries);
+        this.mapper = builder.mapper;
+        this.defaultLocale = (builder.locale == null ? Locale.getDefault() : builder.locale);
+        this.requestLocale = ThreadLocal.withInitial(() -> this.defaultLocale);
+        this.authorization = builder.authorization;
+        this.prefetchDepth = builder.prefetchDepth;
+        this.createdPrefetchExecutor = builder.prefetchDepth > 0 && builder.prefetchExecutor == null
+                ? builder.createPrefetchExecutor() : null;
+        this.prefetchExecutor = createdPrefetchExecutor != null ? createdPrefetchExecutor : builder.prefetchExecutor;
+        this.format = builder.format;
+        this.writeResponseMode = builder.writeResponseMode;
+        this.callbackExecutor = builder.callbackExecutor;
+        this.metadataCache = builder.metadataCache;
+        this.responseCache = builder.responseCache;
+        this.queryCache = builder.queryCache;
+        this.requestCoalescer = builder.requestCoalescer;
+        this.metadataSnapshot = builder.metadataSnapshot;
+        this.edmxPruner = builder.edmxPruner;
+        this.directAtomReader = builder.directAtomReader;
+        this.directAtomWriter = builder.directAtomWriter;
     }
 
     protected String getRequestUri(String requestPath) {
@@ -133,110 +249,177 @@ public class ODataClient {
                 .replace("'", "%27");
     }
 
-    protected void setReadRequestHeaders(HttpUriRequest request, Map<String, String> extraHeaders) {
+    protected void setReadRequestHeaders(ODataTransportRequest request, Map<String, String> extraHeaders) {
         headers.forEach(request::setHeader);
         getAuthorization().getHeaders().forEach(request::setHeader);
+        if (csrfTokenManager.getToken() == null) {
+            // let any read bring a token, so writes need no fetch round trip
+            request.setHeader(X_CSRF_TOKEN, X_CSRF_TOKEN_FETCH);
+        }
         if (extraHeaders != null) {
             extraHeaders.forEach(request::setHeader);
         }
         request.setHeader(HttpHeaders.ACCEPT_LANGUAGE, requestLocale.get().getLanguage());
-        request.setHeader(HttpHeaders.CONTENT_TYPE, DEFAULT_CONTENT_TYPE);
-        request.setHeader(HttpHeaders.ACCEPT, DEFAULT_CONTENT_TYPE);
+        request.setHeader(HttpHeaders.CONTENT_TYPE, format.getContentType());
+        request.setHeader(HttpHeaders.ACCEPT, format.getContentType());
     }
 
-    protected void setWriteRequestHeaders(HttpUriRequest request, Map<String, String> extraHeaders) {
+    protected void setWriteRequestHeaders(ODataTransportRequest request, Map<String, String> extraHeaders) {
         setReadRequestHeaders(request, extraHeaders);
-        if (csrfToken == null) {
-            fetchCsrfToken();
+        final String token = fetchCsrfToken();
+        if (token != null) {
+            request.setHeader(X_CSRF_TOKEN, token);
+        } else {
+            request.removeHeader(X_CSRF_TOKEN);
         }
-        request.setHeader(X_CSRF_TOKEN, csrfToken);
     }
 
-    protected HttpGet getRequest(String requestPath) {
+    protected ODataTransportRequest getRequest(String requestPath) {
         return getRequest(requestPath, null);
     }
 
-    protected HttpGet getRequest(String requestPath, Map<String, String> extraHeaders) {
-        final HttpGet request = new HttpGet(getRequestUri(requestPath));
+    protected ODataTransportRequest getRequest(String requestPath, Map<String, String> extraHeaders) {
+        final ODataTransportRequest request = new ODataTransportRequest(ODataHttpMethod.GET.name(), getRequestUri(requestPath));
         setReadRequestHeaders(request, extraHeaders);
         return request;
     }
 
-    protected HttpPost postRequest(String requestPath) {
+    protected ODataTransportRequest postRequest(String requestPath) {
         return postRequest(requestPath, null);
     }
 
-    protected HttpPost postRequest(String requestPath, Map<String, String> extraHeaders) {
-        final HttpPost request = new HttpPost(getRequestUri(requestPath));
+    protected ODataTransportRequest postRequest(String requestPath, Map<String, String> extraHeaders) {
+        final ODataTransportRequest request = new ODataTransportRequest(ODataHttpMethod.POST.name(), getRequestUri(requestPath));
         setWriteRequestHeaders(request, extraHeaders);
         return request;
     }
 
-    protected HttpPatch patchRequest(String requestPath) {
+    protected ODataTransportRequest patchRequest(String requestPath) {
         return patchRequest(requestPath, null);
     }
 
-    protected HttpPatch patchRequest(String requestPath, Map<String, String> extraHeaders) {
-        final HttpPatch request = new HttpPatch(getRequestUri(requestPath));
+    protected ODataTransportRequest patchRequest(String requestPath, Map<String, String> extraHeaders) {
+        final ODataTransportRequest request = new ODataTransportRequest(ODataHttpMethod.PATCH.name(), getRequestUri(requestPath));
         setWriteRequestHeaders(request, extraHeaders);
         return request;
     }
 
-    protected HttpDelete deleteRequest(String requestPath) {
+    protected ODataTransportRequest deleteRequest(String requestPath) {
         return deleteRequest(requestPath, null);
     }
 
-    protected HttpDelete deleteRequest(String requestPath, Map<String, String> extraHeaders) {
-        final HttpDelete request = new HttpDelete(getRequestUri(requestPath));
+    protected ODataTransportRequest deleteRequest(String requestPath, Map<String, String> extraHeaders) {
+        final ODataTransportRequest request = new ODataTransportRequest(ODataHttpMethod.DELETE.name(), getRequestUri(requestPath));
         setWriteRequestHeaders(request, extraHeaders);
         return request;
     }
 
-    protected ODataErrorResponse getErrorResponse(HttpResponse response) {
+    protected ODataErrorResponse getErrorResponse(ODataTransportResponse response) {
+        try {
+            return getErrorResponse(IOUtils.toByteArray(response.getContent()));
+        } catch (Exception e) {
+            // Error cannot be mapped
+            return null;
+        }
+    }
+
+    protected ODataErrorResponse getErrorResponse(byte[] content) {
         ODataErrorResponse error = null;
         try {
-            error = new XmlMapper().readValue(response.getEntity().getContent(), ODataErrorResponse.class);
+            if (new String(content, StandardCharsets.UTF_8).trim().startsWith("{")) {
+                error = getJsonErrorResponse(content);
+            } else {
+                error = new XmlMapper().readValue(content, ODataErrorResponse.class);
+            }
         } catch (Exception e) {
             // Error cannot be mapped
         }
         return error;
     }
 
-    protected HttpResponse executeRequest(HttpUriRequest request) throws IOException {
-        HttpResponse response = httpClient.execute(request);
-        HttpStatusCodes httpStatusCode = HttpStatusCodes.fromStatusCode(response.getStatusLine().getStatusCode());
+    protected ODataErrorResponse getJsonErrorResponse(byte[] content) throws IOException {
+        final JsonNode error = new ObjectMapper().readTree(content).path("error");
+        if (error.isMissingNode()) {
+            return null;
+        }
+        final JsonNode message = error.path("message");
+        final ODataErrorResponse response = new ODataErrorResponse();
+        response.setCode(error.path("code").asText(null));
+        response.setMessage(message.isObject() ? message.path("value").asText(null) : message.asText(null));
+        return response;
+    }
+
+    /**
+     * Executes the request and checks the status of the response. The returned response has to be closed by the caller,
+     * it is closed already if the status is an error.
+     */
+    protected ODataTransportResponse executeRequest(ODataTransportRequest request) throws IOException {
+        final ODataTransportResponse response = transport.execute(request);
+        try {
+            return checkResponse(request, response);
+        } catch (RuntimeException e) {
+            response.close();
+            throw e;
+        }
+    }
+
+    protected ODataTransportResponse checkResponse(ODataTransportRequest request, ODataTransportResponse response) {
+        HttpStatusCodes httpStatusCode = HttpStatusCodes.fromStatusCode(response.getStatusCode());
         log.debug("Executed request '{}' -> Status {}", request, httpStatusCode);
-        if (httpStatusCode.getStatusCode() == 403 && Arrays.stream(response.getHeaders(X_CSRF_TOKEN)).anyMatch(h -> X_CSRF_TOKEN_REQUIRED.equals(h.getValue()))) {
-            csrfToken = null;
+        if (httpStatusCode.getStatusCode() == 403 && response.getHeaders(X_CSRF_TOKEN).stream().anyMatch(X_CSRF_TOKEN_REQUIRED::equals)) {
+            csrfTokenManager.invalidate(request.getHeader(X_CSRF_TOKEN));
             throw new CsrfTokenValidationFailedException();
         }
         if (400 <= httpStatusCode.getStatusCode() && httpStatusCode.getStatusCode() <= 599) {
             ODataErrorResponse error = getErrorResponse(response);
             if (error != null) {
-                throw new ODataException(String.format("[%s]: %s", StringUtils.defaultString(error.getCode()), StringUtils.defaultString(error.getMessage())));
+                throw new ODataException(String.format("[%s]: %s", StringUtils.defaultString(error.getCode()), StringUtils.defaultString(error.getMessage())),
+                        httpStatusCode.getStatusCode());
             } else {
-                throw new ODataException("Http Connection to '" + request.getURI() + "' failed with status " + httpStatusCode.getStatusCode() + " " + httpStatusCode.toString());
+                throw new ODataException("Http Connection to '" + request.getUri() + "' failed with status " + httpStatusCode.getStatusCode() + " " + httpStatusCode.toString(),
+                        httpStatusCode.getStatusCode());
             }
         }
+        if (X_CSRF_TOKEN_FETCH.equals(request.getHeader(X_CSRF_TOKEN))) {
+            csrfTokenManager.capture(readCsrfToken(response));
+        }
         return response;
     }
 
-    @SuppressWarnings("squid:S1612") // Method reference for Header::getValue does not work with old httpclient versions
-    private void fetchCsrfToken() {
-        final HttpGet request = getRequest("", Collections.singletonMap(X_CSRF_TOKEN, X_CSRF_TOKEN_FETCH));
-        HttpResponse response = null;
-        try {
-            response = executeRequest(request);
-            csrfToken = Arrays.stream(response.getHeaders(X_CSRF_TOKEN))
-                    .findFirst()
-                    .map(h -> h.getValue())
-                    .orElse(null);
-        } catch (ODataException  e) {
-            throw e;
-        } catch (Exception e) {
-            throw new ODataException(e);
-        } finally {
-            request.releaseConnection();
+    private String readCsrfToken(ODataTransportResponse response) {
+        return response.getHeaders(X_CSRF_TOKEN).stream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    protected ODataTransportRequest csrfTokenRequest() {
+        return getRequest("", Collections.singletonMap(X_CSRF_TOKEN, X_CSRF_TOKEN_FETCH));
+    }
+
+    private String fetchCsrfToken() {
+        return csrfTokenManager.fetchToken(() -> {
+            // token is captured from the response
+            executeRequest(csrfTokenRequest()).close();
+            return csrfTokenManager.getToken();
+        });
+    }
+
+    /**
+     * Runs a write operation, repeating it with a new token at most the configured times if the server rejects the token.
+     */
+    protected <T> T executeWithCsrfRetry(Callable<T> operation) {
+        for (int retry = 0; ; retry++) {
+            try {
+                return operation.call();
+            } catch (CsrfTokenValidationFailedException e) {
+                if (retry >= csrfTokenManager.getMaxRetries()) {
+                    throw new ODataException("CSRF token validation failed after " + retry + " retries.");
+                }
+            } catch (ODataException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new ODataException(e);
+            }
         }
     }
 
@@ -251,51 +434,150 @@ public class ODataClient {
         return queryString.toString();
     }
 
-    public Edm loadEdm() {
+    protected ODataTransportRequest metadataRequest() {
         final String metadataUri = "$metadata" + toQueryString(metadataArguments);
-        final HttpGet request = getRequest(metadataUri);
-        HttpResponse response = null;
-        try {
-            response = executeRequest(request);
-            edm = olingoReadMetaData(response.getEntity().getContent(), false);
+        final ODataTransportRequest request = getRequest(metadataUri);
+        // metadata is available in XML only
+        request.setHeader(HttpHeaders.ACCEPT, HttpContentType.APPLICATION_XML);
+        return request;
+    }
+
+    public Edm loadEdm() {
+        if (loadLocalEdm() != null) {
+            return edm;
+        }
+        try (ODataTransportResponse response = executeRequest(metadataRequest())) {
+            edm = readMetadata(response);
         } catch (ODataException  e) {
             throw e;
         } catch (Exception  e) {
             throw new ODataException(e);
-        } finally {
-            request.releaseConnection();
         }
         return edm;
     }
 
-    protected Edm getEdm() {
-        if (edm == null) {
-            loadEdm();
+    protected String getMetadataCacheKey() {
+        return ODataMetadataCache.getKey(serviceUrl, metadataArguments);
+    }
+
+    /**
+     * Parses the metadata of the response and stores it in the metadata cache, if there is one.
+     */
+    protected Edm readMetadata(ODataTransportResponse response) throws IOException, EntityProviderException {
+        if (metadataCache == null) {
+            return olingoReadMetaData(response.getContent(), false);
+        }
+        final byte[] content = IOUtils.toByteArray(response.getContent());
+        final Edm metadata = olingoReadMetaData(new ByteArrayInputStream(content), false);
+        try {
+            metadataCache.put(getMetadataCacheKey(), content, response.getHeader(HttpHeaders.ETAG),
+                    response.getHeader(HttpHeaders.LAST_MODIFIED));
+        } catch (ODataException e) {
+            log.warn("Metadata cannot be cached.", e);
+        }
+        return metadata;
+    }
+
+    /**
+     * Sets the metadata from the snapshot or the metadata cache, returns null if the service has to be called.
+     */
+    protected Edm loadLocalEdm() {
+        if (metadataSnapshot != null) {
+            final Edm snapshot;
+            try (InputStream content = metadataSnapshot.open()) {
+                snapshot = olingoReadMetaData(content, false);
+            } catch (IOException | EntityProviderException e) {
+                throw new ODataException(e);
+            }
+            edm = snapshot;
+            if (metadataSnapshot.isVerify()) {
+                verifyEdmSnapshot(snapshot);
+            }
+            return snapshot;
+        }
+        return metadataCache != null ? loadCachedEdm() : null;
+    }
+
+    /**
+     * Compares the snapshot with the metadata of the service in the background, the metadata
+     * of the service is used from then on if they differ.
+     */
+    protected void verifyEdmSnapshot(Edm snapshot) {
+        CompletableFuture.runAsync(() -> {
+            try (ODataTransportResponse response = executeRequest(metadataRequest())) {
+                final Edm serviceEdm = readMetadata(response);
+                final List<String> differences = ODataMetadataSnapshot.compare(snapshot, serviceEdm);
+                if (!differences.isEmpty()) {
+                    log.warn("Metadata snapshot '{}' differs from the service metadata: {}", metadataSnapshot.getResource(), differences);
+                    edm = serviceEdm;
+                }
+            } catch (Exception e) {
+                log.warn("Metadata snapshot cannot be verified.", e);
+            }
+        }, callbackExecutor);
+    }
+
+    /**
+     * Sets the metadata from the cache and starts its revalidation if it is expired, returns null if nothing is cached.
+     */
+    protected Edm loadCachedEdm() {
+        final String key = getMetadataCacheKey();
+        final ODataMetadataCache.Entry entry = metadataCache.get(key);
+        if (entry == null) {
+            return null;
+        }
+        try {
+            edm = olingoReadMetaData(new ByteArrayInputStream(entry.getContent()), false);
+        } catch (EntityProviderException e) {
+            log.warn("Cached metadata cannot be read, it is loaded from the service.", e);
+            metadataCache.remove(key);
+            return null;
+        }
+        if (metadataCache.isExpired(entry)) {
+            revalidateEdm(entry);
         }
         return edm;
     }
 
-    protected EdmEntitySet getEntitySet(String entitySetName) throws EdmException {
-        return getEdm().getDefaultEntityContainer().getEntitySet(entitySetName);
+    protected void revalidateEdm(ODataMetadataCache.Entry entry) {
+        if (!edmRevalidating.compareAndSet(false, true)) {
+            return;
+        }
+        CompletableFuture.runAsync(() -> {
+            final ODataTransportRequest request = metadataRequest();
+            if (entry.getEtag() != null) {
+                request.setHeader(HttpHeaders.IF_NONE_MATCH, entry.getEtag());
+            }
+            if (entry.getLastModified() != null) {
+                request.setHeader(HttpHeaders.IF_MODIFIED_SINCE, entry.getLastModified());
+            }
+            try (ODataTransportResponse response = executeRequest(request)) {
+                if (response.getStatusCode() == HttpStatusCodes.NOT_MODIFIED.getStatusCode()) {
+                    metadataCache.touch(getMetadataCacheKey());
+                } else {
+                    edm = readMetadata(response);
+                }
+            } catch (Exception e) {
+                log.warn("Cached metadata cannot be revalidated.", e);
+            } finally {
+                edmRevalidating.set(false);
+            }
+        }, callbackExecutor);
     }
 
-    private Map<String, Object> getTimestampFields(Class<?> entityClass) {
-        return Arrays.stream(entityClass.getDeclaredFields())
-                .filter(f -> f.getType().isAssignableFrom(Timestamp.class))
-                .collect(Collectors.toMap(f -> f.getAnnotation(XmlElement.class).name(), Field::getType));
+    protected Edm getEdm() {
+        if (edm == null) {
+            loadEdm();
+        }
+        return edm;
     }
 
-    private Map<String, Object> getTypeMap(Class<?> entityClass) {
-        final Map<String, Object> typeMap = getTimestampFields(entityClass);
-        Arrays.stream(entityClass.getDeclaredFields())
-                .filter(f -> ODataEntity.class.isAssignableFrom(ODataEntityUtils.getGenericType(f)))
-                .map(f -> getTimestampFields(ODataEntityUtils.getGenericType(f)))
-                .forEach(typeMap::putAll);
-        return typeMap;
+    protected EdmEntitySet getEntitySet(String entitySetName) throws EdmException {
+        return planCache.getEntitySet(getEdm(), entitySetName);
     }
 
     protected Edm olingoReadMetaData(final InputStream metadataXml, final boolean validate) throws EntityProviderException {
-        return EntityProvider.readMetadata(metadataXml, validate);
+        return EntityProvider.readMetadata(edmxPruner == null ? metadataXml : edmxPruner.prune(metadataXml), validate);
     }
 
     protected ODataEntry olingoReadEntry(final String contentType, final EdmEntitySet entitySet, final InputStream content,
@@ -312,38 +594,116 @@ public class ODataClient {
         return (InputStream) EntityProvider.writeEntry(contentType, entitySet, data, properties).getEntity();
     }
 
+    protected InputStream olingoWriteBatchRequest(final List<BatchPart> batchParts, final String boundary) {
+        return EntityProvider.writeBatchRequest(batchParts, boundary);
+    }
+
+    protected List<BatchSingleResponse> olingoParseBatchResponse(final InputStream content, final String contentType) throws BatchException {
+        return EntityProvider.parseBatchResponse(content, contentType);
+    }
+
     protected <E extends ODataEntity> E readContentEntry(InputStream content, Class<E> entityClass) throws EdmException, EntityProviderException {
+        if (directAtomReader) {
+            final ODataEntityReader<E> reader = createEntityReader(content, ODataEntityUtils.getEntitySetName(entityClass), entityClass);
+            if (!reader.hasNext()) {
+                throw new EntityProviderException(EntityProviderException.INVALID_CONTENT.addContent("entry"));
+            }
+            return reader.next();
+        }
+        if (format == ODataFormat.JSON) {
+            final ODataJsonFeedReader reader = new ODataJsonFeedReader(content,
+                    getEntitySet(ODataEntityUtils.getEntitySetName(entityClass)), planCache.getTypeMappings(entityClass));
+            if (!reader.hasNext()) {
+                throw new EntityProviderException(EntityProviderException.INVALID_CONTENT.addContent("entry"));
+            }
+            return mapper.mapPropertiesToEntity(reader.next(), entityClass);
+        }
         ODataEntry entry = olingoReadEntry(DEFAULT_CONTENT_TYPE,
                 getEntitySet(ODataEntityUtils.getEntitySetName(entityClass)),
                 content,
-                EntityProviderReadProperties.init()
-                        .addTypeMappings(getTypeMap(entityClass))
-                        .build());
+                getReadProperties(entityClass));
         return mapper.mapPropertiesToEntity(entry.getProperties(), entityClass);
     }
 
     protected EntityProviderReadProperties getReadProperties(Class<?> entityClass) {
-        return EntityProviderReadProperties.init()
-                .addTypeMappings(getTypeMap(entityClass))
-                .build();
+        return planCache.getReadProperties(entityClass);
     }
 
 
     protected <E extends ODataEntity> ODataResponse<E> readContentStream(InputStream content, String entitySetName, Class<E> entityClass) throws EdmException, EntityProviderException, IOException {
-        final ODataFeed feed = olingoReadFeed(DEFAULT_CONTENT_TYPE, getEntitySet(entitySetName), content, getReadProperties(entityClass));
-        final ODataResponse<E> response = new ODataResponse<>(feed.getEntries().stream()
-                .map(e -> mapper.mapPropertiesToEntity(e.getProperties(), entityClass))
-                .collect(Collectors.toList()),
-                feed.getFeedMetadata().getInlineCount() != null ? feed.getFeedMetadata().getInlineCount() : 0);
+        final ODataResponse<E> response;
+        final String nextLink;
+        if (format == ODataFormat.JSON || directAtomReader) {
+            final ODataPage<E> page = readPageContent(content, entitySetName, entityClass, null, 0);
+            response = new ODataResponse<>(page.getEntities(), page.getInlineCount() != null ? page.getInlineCount() : 0);
+            nextLink = page.getNextLink();
+        } else {
+            final ODataFeed feed = olingoReadFeed(DEFAULT_CONTENT_TYPE, getEntitySet(entitySetName), content, getReadProperties(entityClass));
+            response = new ODataResponse<>(feed.getEntries().stream()
+                    .map(e -> mapper.mapPropertiesToEntity(e.getProperties(), entityClass))
+                    .collect(Collectors.toList()),
+                    feed.getFeedMetadata().getInlineCount() != null ? feed.getFeedMetadata().getInlineCount() : 0);
+            nextLink = feed.getFeedMetadata().getNextLink();
+        }
 
-        // if server-side paging is present, fetch next page
-        if (StringUtils.isNotBlank(feed.getFeedMetadata().getNextLink())) {
-            final String linkPath = feed.getFeedMetadata().getNextLink().replace(getServiceUrl(), StringUtils.EMPTY);
-            response.merge(read(entitySetName, entityClass, linkPath));
+        // if server-side paging is present, fetch remaining pages
+        final String linkPath = getNextLinkPath(nextLink);
+        if (linkPath != null) {
+            try (ODataPageCursor<E> pages = pages(entitySetName, entityClass, linkPath)) {
+                pages.forEachRemaining(page -> response.merge(new ODataResponse<>(page.getEntities())));
+            }
         }
         return response;
     }
 
+    protected <E extends ODataEntity> ODataPage<E> readPage(String entitySetName, Class<E> entityClass, String requestPath, int index) {
+        return readPage(entitySetName, entityClass, getRequest(requestPath), requestPath, index);
+    }
+
+    protected <E extends ODataEntity> ODataPage<E> readPage(String entitySetName, Class<E> entityClass, ODataTransportRequest request, String requestPath, int index) {
+        try (ODataTransportResponse response = executeRequest(request)) {
+            return readPageContent(response.getContent(), entitySetName, entityClass, requestPath, index);
+        } catch (ODataException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ODataException(e);
+        }
+    }
+
+    protected <E extends ODataEntity> ODataPage<E> readPageContent(InputStream content, String entitySetName, Class<E> entityClass,
+                                                                  String requestPath, int index) throws EdmException, EntityProviderException, IOException {
+        try (ODataEntityReader<E> reader = createEntityReader(content, entitySetName, entityClass)) {
+            final List<E> entities = new ArrayList<>();
+            reader.forEachRemaining(entities::add);
+            return new ODataPage<>(index, requestPath, entities, reader.getNextLink(), reader.getInlineCount());
+        }
+    }
+
+    protected String getNextLinkPath(String nextLink) {
+        return StringUtils.isNotBlank(nextLink) ? nextLink.replace(getServiceUrl(), StringUtils.EMPTY) : null;
+    }
+
+    protected ODataFeedReader createFeedReader(InputStream content, String entitySetName, Class<?> entityClass) throws EdmException, EntityProviderException {
+        final EdmEntitySet entitySet = getEntitySet(entitySetName);
+        if (format == ODataFormat.JSON) {
+            return new ODataJsonFeedReader(content, entitySet, planCache.getTypeMappings(entityClass));
+        }
+        final EntityProviderReadProperties properties = getReadProperties(entityClass);
+        return new ODataAtomFeedReader(content,
+                entry -> olingoReadEntry(DEFAULT_CONTENT_TYPE, entitySet, entry, properties).getProperties());
+    }
+
+    protected <E extends ODataEntity> ODataEntityReader<E> createEntityReader(InputStream content, String entitySetName, Class<E> entityClass) throws EdmException, EntityProviderException {
+        if (directAtomReader) {
+            final Edm currentEdm = getEdm();
+            final ODataAtomEntityReader.EntityPlan plan = planCache.getAtomEntityPlan(currentEdm,
+                    planCache.getEntitySet(currentEdm, entitySetName), entityClass, (ODataCompiledEntityMapper) mapper);
+            return new ODataAtomEntityReader<>(content, plan);
+        }
+        return ODataEntityReader.mapping(createFeedReader(content, entitySetName, entityClass),
+                entry -> mapper.mapPropertiesToEntity(entry, entityClass));
+    }
+
     protected <E extends ODataEntity> ODataResponse<E> createContentResponse(byte[] content, String entitySetName, Class<E> entityClass) throws EdmException, IOException {
         try {
             return readContentStream(new ByteArrayInputStream(content), entitySetName, entityClass);
@@ -359,10 +719,21 @@ public class ODataClient {
 
     protected EntityProviderWriteProperties getWriteProperties(EdmEntitySet entitySet, Map<String, Object> dataMap) throws EdmException, URISyntaxException {
         // identify only properties for which the data were provided
+        final Set<String> selectedProperties = dataMap.keySet().stream()
+                .filter(k -> !"etag".equals(k))
+                .collect(Collectors.toSet());
+        final Edm currentEdm = getEdm();
+        EntityProviderWriteProperties properties = planCache.getWriteProperties(currentEdm, entitySet.getName(), selectedProperties);
+        if (properties == null) {
+            properties = createWriteProperties(entitySet, selectedProperties);
+            planCache.putWriteProperties(currentEdm, entitySet.getName(), selectedProperties, properties);
+        }
+        return properties;
+    }
+
+    protected EntityProviderWriteProperties createWriteProperties(EdmEntitySet entitySet, Set<String> selectedProperties) throws EdmException, URISyntaxException {
         final ExpandSelectTreeNode expandSelectTree = ExpandSelectTreeNode.entitySet(entitySet)
-                .selectedProperties(dataMap.keySet().stream()
-                        .filter(k -> !"etag".equals(k))
-                        .collect(Collectors.toList()))
+                .selectedProperties(new ArrayList<>(selectedProperties))
                 .build();
 
         return EntityProviderWriteProperties
@@ -374,159 +745,803 @@ public class ODataClient {
     }
 
 
-    protected InputStream writeContentStream(String entitySetName, Map<String, Object> dataMap) throws EdmException, URISyntaxException, EntityProviderException {
+    protected byte[] writeContent(String entitySetName, Map<String, Object> dataMap) throws EdmException, URISyntaxException, EntityProviderException, IOException {
         final EdmEntitySet entitySet = getEntitySet(entitySetName);
+        if (format == ODataFormat.JSON) {
+            return ODataJsonEntryWriter.writeEntry(entitySet, dataMap);
+        }
+        if (directAtomWriter) {
+            return ODataAtomEntryWriter.writeEntry(entitySet, dataMap);
+        }
         final EntityProviderWriteProperties properties = getWriteProperties(entitySet, dataMap);
 
         // serialize data into ODataResponse object
-        return olingoWriteEntry(DEFAULT_CONTENT_TYPE, entitySet, dataMap, properties);
+        try (InputStream content = olingoWriteEntry(DEFAULT_CONTENT_TYPE, entitySet, dataMap, properties)) {
+            return IOUtils.toByteArray(content);
+        }
     }
 
-    protected <E extends ODataEntity> InputStream writeContentStream(E data, Class<E> entityClass) throws EdmException, URISyntaxException, EntityProviderException {
+    protected <E extends ODataEntity> byte[] writeContent(E data, Class<E> entityClass) throws EdmException, URISyntaxException, EntityProviderException, IOException {
         final Map<String, Object> dataMap = mapper.mapEntityToProperties(data, entityClass);
 
-        return writeContentStream(ODataEntityUtils.getEntitySetName(entityClass), dataMap);
+        return writeContent(ODataEntityUtils.getEntitySetName(entityClass), dataMap);
+    }
+
+    /**
+     * Returns the content of a create or update request, serialized at the first call only. Requests sent again
+     * with a new CSRF token send the same bytes, with the content length known in advance.
+     */
+    protected <E extends ODataEntity> Callable<byte[]> contentWriter(E data, Class<E> entityClass) {
+        final AtomicReference<byte[]> content = new AtomicReference<>();
+        return () -> {
+            byte[] bytes = content.get();
+            if (bytes == null) {
+                bytes = writeContent(data, entityClass);
+                content.set(bytes);
+            }
+            return bytes;
+        };
     }
 
 
     public <E extends ODataEntity> ODataResponse<E> get(Class<E> entityClass, String requestPath) {
-        final HttpGet request = getRequest(requestPath);
-        HttpResponse response = null;
-        try {
-            response = executeRequest(request);
-            final InputStream content = response.getEntity().getContent();
-            final E entry = readContentEntry(content, entityClass);
+        final ODataTransportRequest request = getRequest(requestPath);
+        return coalesce(request, entityClass.getName(), () -> {
+            final ODataResponseCache.CachedRead cachedRead = prepareCachedRead(request);
+            try (ODataTransportResponse response = executeRequest(request)) {
+                final InputStream content = readContent(cachedRead, response);
+                final E entry = readContentEntry(content, entityClass);
+
+                return new ODataResponse<>(entry);
+            } catch (Exception e) {
+                throw new ODataException(e);
+            }
+        });
+    }
 
-            return new ODataResponse<>(entry);
-        } catch (Exception e) {
-            throw new ODataException(e);
-        } finally {
-            request.releaseConnection();
+    public <E extends ODataEntity> ODataResponse<E> read(String entitySet, Class<E> entityClass, String requestPath) {
+        final ODataTransportRequest request = getRequest(requestPath);
+        return coalesce(request, entitySet + "\n" + entityClass.getName(), () -> {
+            try {
+                final byte[] content = readContent(request);
+
+                return createContentResponse(content, entitySet, entityClass);
+
+            } catch (Exception e) {
+                throw new ODataException(e);
+            }
+        });
+    }
+
+    /**
+     * Executes the read, or waits for the result of the identical read in flight if the client coalesces reads.
+     */
+    protected <T> T coalesce(ODataTransportRequest request, String resultScope, Supplier<T> read) {
+        if (requestCoalescer == null) {
+            return read.get();
         }
+        return requestCoalescer.execute(getResponseCacheKey(request) + "\n" + format + "\n" + resultScope, read);
     }
 
-    public <E extends ODataEntity> ODataResponse<E> read(String entitySet, Class<E> entityClass, String requestPath) {
-        final HttpGet request = getRequest(requestPath);
-        HttpResponse response = null;
+    /**
+     * Reads the result of a cached query: the service is requested only if the result is not in the query cache.
+     * Without a query cache the result is read as by {@link #read(String, Class, String)}.
+     */
+    public <E extends ODataEntity> ODataResponse<E> readCached(String entitySet, Class<E> entityClass, String requestPath) {
+        if (queryCache == null) {
+            return read(entitySet, entityClass, requestPath);
+        }
+        final String key = getQueryCacheKey(entitySet, requestPath);
         try {
-            response = executeRequest(request);
-            final byte[] content = IOUtils.toByteArray(response.getEntity().getContent());
-            request.releaseConnection();
+            byte[] content = queryCache.get(key);
+            if (content == null) {
+                // concurrent misses of the same result share one request
+                final ODataTransportRequest request = getRequest(requestPath);
+                content = coalesce(request, "query\n" + entitySet, () -> {
+                    final long generation = queryCache.getGeneration(entitySet);
+                    try {
+                        final byte[] read = readContent(request);
+                        queryCache.put(entitySet, key, generation, read);
+                        return read;
+                    } catch (IOException e) {
+                        throw new ODataException(e);
+                    }
+                });
+            }
 
             return createContentResponse(content, entitySet, entityClass);
 
         } catch (Exception e) {
             throw new ODataException(e);
-        } finally {
-            request.releaseConnection();
         }
     }
 
+    protected byte[] readContent(ODataTransportRequest request) throws IOException {
+        final ODataResponseCache.CachedRead cachedRead = prepareCachedRead(request);
+        try (ODataTransportResponse response = executeRequest(request)) {
+            return IOUtils.toByteArray(readContent(cachedRead, response));
+        }
+    }
 
-    public <E extends ODataEntity> ODataResponse<E> create(Class<E> entityClass, String requestPath, E data) {
-        final HttpPost request = postRequest(requestPath);
-        HttpResponse response = null;
+    protected String getQueryCacheKey(String entitySet, String requestPath) {
+        return ODataQueryCache.getKey(entitySet, requestPath
+                + "\n" + format
+                + "\n" + getRequestLocale().getLanguage()
+                + "\n" + ODataMetadataCache.hash(getAuthorizationScope()));
+    }
+
+    /**
+     * Drops the cached query results of the entity set written by a request, and of the entity set of the request path
+     * if it differs, e.g. when writing through a navigation property.
+     */
+    protected void invalidateQueries(String entitySetName, String requestPath) {
+        if (queryCache == null) {
+            return;
+        }
+        if (entitySetName != null) {
+            queryCache.invalidate(entitySetName);
+        }
+        final String pathEntitySet = StringUtils.removeStart(requestPath, "/").split("[(/?]", 2)[0];
+        if (!pathEntitySet.isEmpty() && !pathEntitySet.equals(entitySetName)) {
+            queryCache.invalidate(pathEntitySet);
+        }
+    }
+
+    protected static String getAnnotatedEntitySetName(Class<?> entityClass) {
+        final ODataEntitySet entitySet = entityClass.getAnnotation(ODataEntitySet.class);
+        return entitySet != null ? entitySet.name() : null;
+    }
+
+    /**
+     * Makes the read conditional if its response is cached. Returns null if the client has no response cache.
+     */
+    protected ODataResponseCache.CachedRead prepareCachedRead(ODataTransportRequest request) {
+        if (responseCache == null) {
+            return null;
+        }
+        final String key = getResponseCacheKey(request);
+        final ODataResponseCache.Entry entry = responseCache.get(key);
+        if (entry != null) {
+            if (entry.getEtag() != null) {
+                request.setHeader(HttpHeaders.IF_NONE_MATCH, entry.getEtag());
+            }
+            if (entry.getLastModified() != null) {
+                request.setHeader(HttpHeaders.IF_MODIFIED_SINCE, entry.getLastModified());
+            }
+        }
+        return new ODataResponseCache.CachedRead(key, entry);
+    }
+
+    protected String getResponseCacheKey(ODataTransportRequest request) {
+        return request.getUri()
+                + "\n" + request.getHeader(HttpHeaders.ACCEPT)
+                + "\n" + request.getHeader(HttpHeaders.ACCEPT_LANGUAGE)
+                + "\n" + ODataMetadataCache.hash(getAuthorizationScope());
+    }
+
+    protected String getAuthorizationScope() {
+        final StringBuilder authorizationScope = new StringBuilder();
+        new TreeMap<>(getAuthorization().getHeaders()).forEach((name, value) ->
+                authorizationScope.append(name).append(':').append(value).append('\n'));
+        return authorizationScope.toString();
+    }
+
+    /**
+     * Returns the content of a read response, the cached content if the service answered 304 Not Modified.
+     */
+    protected InputStream readContent(ODataResponseCache.CachedRead cachedRead, ODataTransportResponse response) throws IOException {
+        if (cachedRead == null) {
+            return response.getContent();
+        }
+        if (cachedRead.getEntry() != null && response.getStatusCode() == HttpStatusCodes.NOT_MODIFIED.getStatusCode()) {
+            responseCache.notModified();
+            return new ByteArrayInputStream(cachedRead.getEntry().getContent());
+        }
+        final byte[] content = IOUtils.toByteArray(response.getContent());
+        responseCache.put(cachedRead.getKey(), content, response.getHeader(HttpHeaders.ETAG), response.getHeader(HttpHeaders.LAST_MODIFIED));
+        return new ByteArrayInputStream(content);
+    }
+
+    /**
+     * Reads the feed lazily: entries are mapped while iterating and next pages are requested
+     * only when the previous one is exhausted. The stream has to be closed if not consumed fully.
+     */
+    public <E extends ODataEntity> Stream<E> stream(String entitySet, Class<E> entityClass, String requestPath) {
+        final ODataEntityIterator<E> iterator = new ODataEntityIterator<>(this, entitySet, entityClass, requestPath);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    public <E extends ODataEntity> ODataPageCursor<E> pages(String entitySet, Class<E> entityClass, String requestPath) {
+        if (prefetchDepth > 0) {
+            return new ODataPrefetchPageCursor<>(this, entitySet, entityClass, requestPath, prefetchDepth, prefetchExecutor);
+        }
+        return new ODataPageCursor<>(this, entitySet, entityClass, requestPath);
+    }
+
+    // Requests of the same changeset form one group, every other request is a group of its own
+    protected List<List<ODataBatchRequest<?>>> getBatchGroups(List<ODataBatchRequest<?>> requests) {
+        final List<List<ODataBatchRequest<?>>> groups = new ArrayList<>();
+        List<ODataBatchRequest<?>> group = null;
+        for (ODataBatchRequest<?> request : requests) {
+            if (group == null || request.getChangeSetId() == null
+                    || !request.getChangeSetId().equals(group.get(0).getChangeSetId())) {
+                group = new ArrayList<>();
+                groups.add(group);
+            }
+            group.add(request);
+        }
+        return groups;
+    }
+
+    public ODataBatchResponse batch(List<ODataBatchRequest<?>> requests, int maxPartsPerBatch) {
+        final List<ODataBatchResponsePart<?>> parts = new ArrayList<>();
+        final List<List<ODataBatchRequest<?>>> batchGroups = new ArrayList<>();
+        int partCount = 0;
+        // changesets are never split, a changeset larger than the limit is sent alone
+        for (List<ODataBatchRequest<?>> group : getBatchGroups(requests)) {
+            if (!batchGroups.isEmpty() && partCount + group.size() > maxPartsPerBatch) {
+                parts.addAll(executeBatch(batchGroups));
+                batchGroups.clear();
+                partCount = 0;
+            }
+            batchGroups.add(group);
+            partCount += group.size();
+        }
+        if (!batchGroups.isEmpty()) {
+            parts.addAll(executeBatch(batchGroups));
+        }
+        return new ODataBatchResponse(parts);
+    }
+
+    protected List<ODataBatchResponsePart<?>> executeBatch(List<List<ODataBatchRequest<?>>> groups) {
         try {
-            final InputStream contentStream = writeContentStream(data, entityClass);
-            request.setEntity(new InputStreamEntity(contentStream));
+            return executeBatchRequest(groups);
+        } finally {
+            groups.stream()
+                    .flatMap(List::stream)
+                    .filter(ODataBatchRequest::isChange)
+                    .forEach(request -> invalidateQueries(request.getEntitySetName(), request.getRequestPath()));
+        }
+    }
 
-            response = executeRequest(request);
+    protected List<ODataBatchResponsePart<?>> executeBatchRequest(List<List<ODataBatchRequest<?>>> groups) {
+        return executeWithCsrfRetry(() -> {
+            final String boundary = "batch_" + UUID.randomUUID();
+            final ODataTransportRequest request = postRequest("$batch");
+            final List<BatchPart> batchParts = new ArrayList<>();
+            for (List<ODataBatchRequest<?>> group : groups) {
+                batchParts.add(createBatchPart(group));
+            }
+            request.setHeader(HttpHeaders.CONTENT_TYPE, HttpContentType.MULTIPART_MIXED + ";boundary=" + boundary);
+            request.setHeader(HttpHeaders.ACCEPT, HttpContentType.MULTIPART_MIXED);
+            request.setBody(olingoWriteBatchRequest(batchParts, boundary));
+
+            try (ODataTransportResponse response = executeRequest(request)) {
+                final List<BatchSingleResponse> responses = olingoParseBatchResponse(response.getContent(),
+                        response.getHeader(HttpHeaders.CONTENT_TYPE));
+                return createBatchResponseParts(groups, responses);
+            }
+        });
+    }
 
-            final E result = readContentEntry(response.getEntity().getContent(), entityClass);
-            return new ODataResponse<>(result);
-        } catch (CsrfTokenValidationFailedException e) {
-            // retry with new token
-            return create(entityClass, requestPath, data);
-        } catch (ODataException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new ODataException(e);
+    protected Map<String, String> getBatchPartHeaders() {
+        final Map<String, String> partHeaders = new HashMap<>();
+        partHeaders.put(HttpHeaders.ACCEPT_LANGUAGE, requestLocale.get().getLanguage());
+        partHeaders.put(HttpHeaders.CONTENT_TYPE, format.getContentType());
+        partHeaders.put(HttpHeaders.ACCEPT, format.getContentType());
+        return partHeaders;
+    }
+
+    protected String getBatchPartUri(String requestPath) {
+        return StringUtils.removeStart(requestPath, "/")
+                .replace(" ", "%20")
+                .replace("'", "%27");
+    }
+
+    protected BatchPart createBatchPart(List<ODataBatchRequest<?>> group) throws EdmException, URISyntaxException, EntityProviderException, IOException {
+        final ODataBatchRequest<?> first = group.get(0);
+        if (!first.isChange()) {
+            return BatchQueryPart.method(first.getMethod().name())
+                    .uri(getBatchPartUri(first.getRequestPath()))
+                    .headers(getBatchPartHeaders())
+                    .build();
+        }
+        final BatchChangeSet changeSet = BatchChangeSet.newBuilder().build();
+        for (ODataBatchRequest<?> batchRequest : group) {
+            changeSet.add(createChangeSetPart(batchRequest));
+        }
+        return changeSet;
+    }
+
+    protected <E extends ODataEntity> BatchChangeSetPart createChangeSetPart(ODataBatchRequest<E> batchRequest) throws EdmException, URISyntaxException, EntityProviderException, IOException {
+        final BatchChangeSetPart.BatchChangeSetPartBuilder part = BatchChangeSetPart.method(batchRequest.getMethod().name())
+                .uri(getBatchPartUri(batchRequest.getRequestPath()))
+                .headers(getBatchPartHeaders());
+        if (batchRequest.getContentId() != null) {
+            part.contentId(batchRequest.getContentId());
+        }
+        if (batchRequest.getData() != null) {
+            part.body(writeContent(batchRequest.getData(), batchRequest.getEntityClass()));
+        }
+        return part.build();
+    }
+
+    // A failed changeset is answered with a single error response, which is reported for all of its requests
+    protected List<ODataBatchResponsePart<?>> createBatchResponseParts(List<List<ODataBatchRequest<?>>> groups,
+                                                                       List<BatchSingleResponse> responses) throws EdmException, IOException, EntityProviderException {
+        final List<ODataBatchResponsePart<?>> parts = new ArrayList<>();
+        int index = 0;
+        for (List<ODataBatchRequest<?>> group : groups) {
+            if (index >= responses.size()) {
+                throw new ODataException("Batch response contains " + responses.size() + " parts, more expected.");
+            }
+            final BatchSingleResponse first = responses.get(index);
+            if (group.size() > 1 && Integer.parseInt(first.getStatusCode()) >= 400) {
+                for (ODataBatchRequest<?> batchRequest : group) {
+                    parts.add(createBatchResponsePart(batchRequest, first));
+                }
+                index++;
+            } else {
+                for (ODataBatchRequest<?> batchRequest : group) {
+                    if (index >= responses.size()) {
+                        throw new ODataException("Batch response contains " + responses.size() + " parts, more expected.");
+                    }
+                    parts.add(createBatchResponsePart(batchRequest, responses.get(index++)));
+                }
+            }
+        }
+        if (index < responses.size()) {
+            throw new ODataException("Batch response contains " + responses.size() + " parts, " + index + " expected.");
+        }
+        return parts;
+    }
+
+    protected <E extends ODataEntity> ODataBatchResponsePart<E> createBatchResponsePart(ODataBatchRequest<E> batchRequest, BatchSingleResponse batchResponse) throws EdmException, IOException, EntityProviderException {
+        final int statusCode = Integer.parseInt(batchResponse.getStatusCode());
+        final byte[] body = batchResponse.getBody() != null ? batchResponse.getBody().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        if (statusCode >= 400) {
+            return new ODataBatchResponsePart<>(batchRequest, statusCode, null, getErrorResponse(body));
+        }
+        final ODataResponse<E> response;
+        switch (batchRequest.getMethod()) {
+            case GET:
+                response = createContentResponse(body, batchRequest.getEntitySetName(), batchRequest.getEntityClass());
+                break;
+            case POST:
+                response = body.length > 0
+                        ? new ODataResponse<>(readContentEntry(new ByteArrayInputStream(body), batchRequest.getEntityClass()))
+                        : new ODataResponse<>(batchRequest.getData());
+                break;
+            case DELETE:
+                response = new ODataResponse<>();
+                break;
+            default:
+                response = new ODataResponse<>(batchRequest.getData());
+        }
+        return new ODataBatchResponsePart<>(batchRequest, statusCode, response, null);
+    }
+
+    public <E extends ODataEntity> ODataResponse<E> create(Class<E> entityClass, String requestPath, E data) {
+        return create(entityClass, requestPath, data, writeResponseMode);
+    }
+
+    public <E extends ODataEntity> ODataResponse<E> create(Class<E> entityClass, String requestPath, E data, ODataWriteResponseMode responseMode) {
+        final Callable<byte[]> content = contentWriter(data, entityClass);
+        try {
+            return executeWithCsrfRetry(() -> {
+                final ODataTransportRequest request = postRequest(requestPath);
+                request.setBody(content.call());
+
+                try (ODataTransportResponse response = executeRequest(request)) {
+                    return readCreateResponse(response, entityClass, responseMode);
+                }
+            });
         } finally {
-            request.releaseConnection();
+            invalidateQueries(getAnnotatedEntitySetName(entityClass), requestPath);
         }
     }
 
     public <E extends ODataEntity> ODataResponse<E> update(Class<E> entityClass, String requestPath, E data) {
-        final HttpPatch request = patchRequest(requestPath);
+        return update(entityClass, requestPath, data, writeResponseMode);
+    }
+
+    public <E extends ODataEntity> ODataResponse<E> update(Class<E> entityClass, String requestPath, E data, ODataWriteResponseMode responseMode) {
+        final Callable<byte[]> content = contentWriter(data, entityClass);
         try {
-            final InputStream contentStream = writeContentStream(data, entityClass);
-            request.setEntity(new InputStreamEntity(contentStream));
+            executeWithCsrfRetry(() -> {
+                final ODataTransportRequest request = patchRequest(requestPath);
+                request.setBody(content.call());
 
-            executeRequest(request);
+                executeRequest(request).close();
+                return null;
+            });
+        } finally {
+            invalidateQueries(getAnnotatedEntitySetName(entityClass), requestPath);
+        }
 
-            ODataResponse<E> result = null;
-            if (ODataEntityUtils.allKeyFieldsSet(data)) {
-                result = new ODataResponse<>(data);
-            } else {
-                result = this.get(entityClass, requestPath);
+        ODataResponse<E> result = null;
+        if (responseMode == ODataWriteResponseMode.NONE) {
+            result = new ODataResponse<>();
+        } else if (responseMode == ODataWriteResponseMode.KEY || ODataEntityUtils.allKeyFieldsSet(data)) {
+            result = new ODataResponse<>(withRequestPathKey(data, entityClass, requestPath));
+        } else {
+            result = this.get(entityClass, requestPath);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the written entity, a copy with the key of the request path if it was written without its key.
+     */
+    protected <E extends ODataEntity> E withRequestPathKey(E data, Class<E> entityClass, String requestPath) {
+        if (ODataEntityUtils.allKeyFieldsSet(data)) {
+            return data;
+        }
+        try {
+            final Map<String, Object> key = readLocationKey(requestPath, getEntitySet(ODataEntityUtils.getEntitySetName(entityClass)));
+            if (key == null) {
+                return data;
             }
-            return result;
-        } catch (CsrfTokenValidationFailedException e) {
-            // retry with new token
-            return update(entityClass, requestPath, data);
-        } catch (ODataException e) {
-            throw e;
-        } catch (Exception e) {
+            final Map<String, Object> properties = new HashMap<>(mapper.mapEntityToProperties(data, entityClass));
+            properties.putAll(key);
+            return mapper.mapPropertiesToEntity(properties, entityClass);
+        } catch (EdmException e) {
             throw new ODataException(e);
-        } finally {
-            request.releaseConnection();
         }
     }
 
+    protected <E extends ODataEntity> ODataResponse<E> readCreateResponse(ODataTransportResponse response, Class<E> entityClass,
+                                                                          ODataWriteResponseMode responseMode) throws EdmException, EntityProviderException, IOException {
+        if (responseMode == ODataWriteResponseMode.NONE) {
+            // read to the end, so that the connection can be reused
+            IOUtils.skip(response.getContent(), Long.MAX_VALUE);
+            return new ODataResponse<>();
+        }
+        final Map<String, Object> key = responseMode == ODataWriteResponseMode.KEY
+                ? readLocationKey(response.getHeader(HttpHeaders.LOCATION), getEntitySet(ODataEntityUtils.getEntitySetName(entityClass)))
+                : null;
+        if (key != null) {
+            IOUtils.skip(response.getContent(), Long.MAX_VALUE);
+            return new ODataResponse<>(mapper.mapPropertiesToEntity(key, entityClass));
+        }
+        return new ODataResponse<>(readContentEntry(response.getContent(), entityClass));
+    }
+
+    /**
+     * Parses the key predicate of the entity URI, e.g. <code>EmployeeCollection('id1')</code>, returns null if the
+     * location is not an URI of the entity set.
+     */
+    protected Map<String, Object> readLocationKey(String location, EdmEntitySet entitySet) throws EdmException {
+        final int start = location == null ? -1 : location.lastIndexOf(entitySet.getName() + "(");
+        final int end = location == null ? -1 : location.lastIndexOf(')');
+        if (start < 0 || end < start) {
+            return null;
+        }
+        final EdmEntityType entityType = entitySet.getEntityType();
+        final List<String> keyValues = splitKeyPredicate(location.substring(start + entitySet.getName().length() + 1, end));
+        final Map<String, Object> key = new HashMap<>();
+        for (String keyValue : keyValues) {
+            final int separator = keyValue.startsWith("'") ? -1 : keyValue.indexOf('=');
+            final String name = separator < 0 ? entityType.getKeyPropertyNames().get(0) : keyValue.substring(0, separator);
+            final EdmTyped property = entityType.getProperty(name);
+            if (keyValues.size() > 1 && separator < 0 || !(property instanceof EdmProperty)) {
+                return null;
+            }
+            final EdmSimpleType type = (EdmSimpleType) property.getType();
+            try {
+                final String literal = URLDecoder.decode(keyValue.substring(separator + 1).replace("+", "%2B"), StandardCharsets.UTF_8.name());
+                key.put(name, type.valueOfString(literal, EdmLiteralKind.URI, ((EdmProperty) property).getFacets(), type.getDefaultType()));
+            } catch (UnsupportedEncodingException e) {
+                throw new ODataException(e);
+            }
+        }
+        return key;
+    }
+
+    private static List<String> splitKeyPredicate(String predicate) {
+        final List<String> keyValues = new ArrayList<>();
+        boolean quoted = false;
+        int start = 0;
+        for (int i = 0; i < predicate.length(); i++) {
+            if (predicate.charAt(i) == '\'') {
+                quoted = !quoted;
+            } else if (predicate.charAt(i) == ',' && !quoted) {
+                keyValues.add(predicate.substring(start, i));
+                start = i + 1;
+            }
+        }
+        keyValues.add(predicate.substring(start));
+        return keyValues;
+    }
+
     public <E extends ODataEntity> ODataResponse<E> delete(Class<E> entityClass, String requestPath) {
-        final HttpDelete request = deleteRequest(requestPath);
         try {
-            executeRequest(request);
-            return new ODataResponse<>();
-        } catch (CsrfTokenValidationFailedException e) {
-            // retry with new token
-            return delete(entityClass, requestPath);
-        } catch (ODataException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new ODataException(e);
+            return executeWithCsrfRetry(() -> {
+                executeRequest(deleteRequest(requestPath)).close();
+                return new ODataResponse<>();
+            });
         } finally {
-            request.releaseConnection();
+            invalidateQueries(getAnnotatedEntitySetName(entityClass), requestPath);
         }
     }
 
 
     public <E extends ODataEntity> ODataResponse<E> function(Class<E> entityClass, String requestPath, Map<String, String> postParameters) {
-        HttpRequestBase request = null;
+        ODataTransportRequest request = null;
         if (postParameters.keySet().isEmpty()) {
             request = getRequest(requestPath);
         } else {
             throw new NotImplementedException("OData POST function calls are not implemented.");
         }
         try {
-            HttpResponse response = executeRequest(request);
-            final byte[] content = IOUtils.toByteArray(response.getEntity().getContent());
-            request.releaseConnection();
+            final byte[] content;
+            try (ODataTransportResponse response = executeRequest(request)) {
+                content = IOUtils.toByteArray(response.getContent());
+            }
 
             final String entitySetName = ODataEntityUtils.getEntitySetName(entityClass);
             return createContentResponse(content, entitySetName, entityClass);
 
         } catch (Exception e) {
             throw new ODataException(e);
+        }
+    }
+
+
+    protected <T> T withRequestLocale(Locale locale, Callable<T> action) throws Exception {
+        final Locale currentLocale = getRequestLocale();
+        setRequestLocale(locale);
+        try {
+            return action.call();
         } finally {
-            request.releaseConnection();
+            setRequestLocale(currentLocale);
         }
     }
 
+    protected static Throwable unwrapAsyncException(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
 
-    public boolean testConnection() {
-        HttpRequestBase request = getRequest(StringUtils.EMPTY);
+    protected static <T> CompletableFuture<T> failedFuture(Throwable e) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    protected <T> CompletableFuture<T> executeAsync(ODataAsyncCall call, Callable<ODataTransportRequest> requestFactory,
+                                                    ResponseHandler<T> handler) {
+        if (call.isCancelled()) {
+            return failedFuture(new CancellationException());
+        }
+        final ODataTransportRequest request;
         try {
-            executeRequest(request);
+            request = withRequestLocale(call.getLocale(), requestFactory);
+        } catch (Exception e) {
+            return failedFuture(e);
+        }
+        final CompletableFuture<ODataTransportResponse> execution = transport.executeAsync(request);
+        call.started(execution);
+        execution.whenComplete((r, e) -> call.finished(execution));
+
+        // parsing and mapping must not run on the I/O dispatcher thread
+        return execution.thenApplyAsync(r -> {
+            try (ODataTransportResponse response = r) {
+                return withRequestLocale(call.getLocale(), () -> handler.handle(checkResponse(request, response)));
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new ODataException(e);
+            }
+        }, callbackExecutor);
+    }
+
+    protected <T> CompletableFuture<T> trackAsync(ODataAsyncCall call, CompletableFuture<T> execution) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        execution.whenComplete((r, e) -> {
+            if (e == null) {
+                result.complete(r);
+            } else {
+                final Throwable cause = unwrapAsyncException(e);
+                result.completeExceptionally(cause instanceof Exception && !(cause instanceof ODataException)
+                        && !(cause instanceof CancellationException) ? new ODataException((Exception) cause) : cause);
+            }
+        });
+        // cancelling the returned future aborts the requests in flight
+        result.whenComplete((r, e) -> {
+            if (result.isCancelled()) {
+                call.cancel();
+            }
+        });
+        return result;
+    }
+
+    protected CompletableFuture<Edm> loadEdmAsync(ODataAsyncCall call) {
+        synchronized (this) {
+            if (edm != null || loadLocalEdm() != null) {
+                return CompletableFuture.completedFuture(edm);
+            }
+            CompletableFuture<Edm> loading = edmLoading;
+            if (loading == null) {
+                // metadata load is shared by concurrent calls, so it is not cancelled with any of them
+                loading = executeAsync(new ODataAsyncCall(call.getLocale()), this::metadataRequest, response -> {
+                    edm = readMetadata(response);
+                    return edm;
+                });
+                edmLoading = loading;
+                loading.whenComplete((e, ex) -> {
+                    synchronized (this) {
+                        edmLoading = null;
+                    }
+                });
+            }
+            return loading;
+        }
+    }
+
+    protected CompletableFuture<String> fetchCsrfTokenAsync(ODataAsyncCall call) {
+        // token is captured from the response
+        return csrfTokenManager.fetchTokenAsync(() -> executeAsync(call, this::csrfTokenRequest, response -> csrfTokenManager.getToken()));
+    }
+
+    protected <T> CompletableFuture<T> writeAsync(ODataAsyncCall call, Callable<ODataTransportRequest> requestFactory,
+                                                  ResponseHandler<T> handler, int retriesLeft) {
+        final CompletableFuture<T> result = loadEdmAsync(call)
+                .thenCompose(e -> fetchCsrfTokenAsync(call))
+                .thenCompose(t -> executeAsync(call, requestFactory, handler));
+        if (retriesLeft <= 0) {
+            return result;
+        }
+        // retry with new token
+        return result.handle((r, e) -> unwrapAsyncException(e) instanceof CsrfTokenValidationFailedException
+                ? writeAsync(call, requestFactory, handler, retriesLeft - 1) : result)
+                .thenCompose(Function.identity());
+    }
+
+    protected <E extends ODataEntity> CompletableFuture<ODataResponse<E>> getAsync(ODataAsyncCall call, Class<E> entityClass, String requestPath) {
+        final AtomicReference<ODataResponseCache.CachedRead> cachedRead = new AtomicReference<>();
+        return loadEdmAsync(call).thenCompose(e -> executeAsync(call, () -> cachedReadRequest(requestPath, cachedRead),
+                response -> new ODataResponse<>(readContentEntry(readContent(cachedRead.get(), response), entityClass))));
+    }
+
+    protected <E extends ODataEntity> CompletableFuture<ODataResponse<E>> readAsync(ODataAsyncCall call, String entitySet, Class<E> entityClass, String requestPath) {
+        final AtomicReference<ODataResponseCache.CachedRead> cachedRead = new AtomicReference<>();
+        return loadEdmAsync(call).thenCompose(e -> executeAsync(call, () -> cachedReadRequest(requestPath, cachedRead),
+                response -> createContentResponse(IOUtils.toByteArray(readContent(cachedRead.get(), response)), entitySet, entityClass)));
+    }
+
+    public <E extends ODataEntity> CompletableFuture<ODataResponse<E>> readCachedAsync(String entitySet, Class<E> entityClass, String requestPath) {
+        final ODataAsyncCall call = new ODataAsyncCall(getRequestLocale());
+        if (queryCache == null) {
+            return trackAsync(call, readAsync(call, entitySet, entityClass, requestPath));
+        }
+        final String key = getQueryCacheKey(entitySet, requestPath);
+        final byte[] cached = queryCache.get(key);
+        if (cached != null) {
+            return trackAsync(call, CompletableFuture.supplyAsync(() -> {
+                try {
+                    return createContentResponse(cached, entitySet, entityClass);
+                } catch (Exception e) {
+                    throw new ODataException(e);
+                }
+            }, callbackExecutor));
+        }
+        final long generation = queryCache.getGeneration(entitySet);
+        final AtomicReference<ODataResponseCache.CachedRead> cachedRead = new AtomicReference<>();
+        return trackAsync(call, loadEdmAsync(call).thenCompose(e -> executeAsync(call, () -> cachedReadRequest(requestPath, cachedRead),
+                response -> {
+                    final byte[] content = IOUtils.toByteArray(readContent(cachedRead.get(), response));
+                    queryCache.put(entitySet, key, generation, content);
+                    return createContentResponse(content, entitySet, entityClass);
+                })));
+    }
+
+    private ODataTransportRequest cachedReadRequest(String requestPath, AtomicReference<ODataResponseCache.CachedRead> cachedRead) {
+        final ODataTransportRequest request = getRequest(requestPath);
+        cachedRead.set(prepareCachedRead(request));
+        return request;
+    }
+
+    /**
+     * Asynchronous variants of the client operations. Requests are sent with the asynchronous execution of the transport,
+     * responses are parsed and mapped on the callback executor. Remaining server-side pages of a feed
+     * are read on the callback executor as well.
+     */
+    public <E extends ODataEntity> CompletableFuture<ODataResponse<E>> getAsync(Class<E> entityClass, String requestPath) {
+        final ODataAsyncCall call = new ODataAsyncCall(getRequestLocale());
+        return trackAsync(call, getAsync(call, entityClass, requestPath));
+    }
+
+    public <E extends ODataEntity> CompletableFuture<ODataResponse<E>> readAsync(String entitySet, Class<E> entityClass, String requestPath) {
+        final ODataAsyncCall call = new ODataAsyncCall(getRequestLocale());
+        return trackAsync(call, readAsync(call, entitySet, entityClass, requestPath));
+    }
+
+    public <E extends ODataEntity> CompletableFuture<ODataResponse<E>> createAsync(Class<E> entityClass, String requestPath, E data) {
+        return createAsync(entityClass, requestPath, data, writeResponseMode);
+    }
+
+    public <E extends ODataEntity> CompletableFuture<ODataResponse<E>> createAsync(Class<E> entityClass, String requestPath, E data,
+                                                                                ODataWriteResponseMode responseMode) {
+        final ODataAsyncCall call = new ODataAsyncCall(getRequestLocale());
+        final Callable<byte[]> content = contentWriter(data, entityClass);
+        return trackAsync(call, writeAsync(call, () -> {
+            final ODataTransportRequest request = postRequest(requestPath);
+            request.setBody(content.call());
+            return request;
+        }, response -> readCreateResponse(response, entityClass, responseMode), csrfTokenManager.getMaxRetries())
+                .whenComplete((response, e) -> invalidateQueries(getAnnotatedEntitySetName(entityClass), requestPath)));
+    }
+
+    public <E extends ODataEntity> CompletableFuture<ODataResponse<E>> updateAsync(Class<E> entityClass, String requestPath, E data) {
+        return updateAsync(entityClass, requestPath, data, writeResponseMode);
+    }
+
+    public <E extends ODataEntity> CompletableFuture<ODataResponse<E>> updateAsync(Class<E> entityClass, String requestPath, E data,
+                                                                                ODataWriteResponseMode responseMode) {
+        final ODataAsyncCall call = new ODataAsyncCall(getRequestLocale());
+        final Callable<byte[]> content = contentWriter(data, entityClass);
+        return trackAsync(call, writeAsync(call, () -> {
+            final ODataTransportRequest request = patchRequest(requestPath);
+            request.setBody(content.call());
+            return request;
+        }, response -> responseMode != ODataWriteResponseMode.FULL || ODataEntityUtils.allKeyFieldsSet(data), csrfTokenManager.getMaxRetries())
+                .whenComplete((readNotNeeded, e) -> invalidateQueries(getAnnotatedEntitySetName(entityClass), requestPath))
+                .thenCompose(readNotNeeded -> Boolean.TRUE.equals(readNotNeeded)
+                        ? CompletableFuture.completedFuture(responseMode == ODataWriteResponseMode.NONE
+                                ? new ODataResponse<>() : new ODataResponse<>(withRequestPathKey(data, entityClass, requestPath)))
+                        : getAsync(call, entityClass, requestPath)));
+    }
+
+    public <E extends ODataEntity> CompletableFuture<ODataResponse<E>> deleteAsync(Class<E> entityClass, String requestPath) {
+        final ODataAsyncCall call = new ODataAsyncCall(getRequestLocale());
+        return trackAsync(call, writeAsync(call, () -> deleteRequest(requestPath), response -> new ODataResponse<E>(), csrfTokenManager.getMaxRetries())
+                .whenComplete((response, e) -> invalidateQueries(getAnnotatedEntitySetName(entityClass), requestPath)));
+    }
+
+    public <E extends ODataEntity> CompletableFuture<ODataResponse<E>> functionAsync(Class<E> entityClass, String requestPath, Map<String, String> postParameters) {
+        if (!postParameters.keySet().isEmpty()) {
+            throw new NotImplementedException("OData POST function calls are not implemented.");
+        }
+        final ODataAsyncCall call = new ODataAsyncCall(getRequestLocale());
+        return trackAsync(call, readAsync(call, ODataEntityUtils.getEntitySetName(entityClass), entityClass, requestPath));
+    }
+
+    public boolean testConnection() {
+        final ODataTransportRequest request = getRequest(StringUtils.EMPTY);
+        try (ODataTransportResponse response = executeRequest(request)) {
             return true;
         } catch (Exception e) {
             return false;
-        } finally {
-            request.releaseConnection();
         }
     }
 
 
+    /**
+     * Live statistics of the connection pool, null if the transport does not expose its pool.
+     */
+    public ODataPoolStats getPoolStats() {
+        return transport.getPoolStats();
+    }
+
+    /**
+     * Closes the http clients and the prefetch executor created by the builder, the ones passed to it are left open.
+     */
+    @Override
+    public void close() {
+        try {
+            if (closeTransport) {
+                transport.close();
+            }
+        } catch (IOException e) {
+            throw new ODataException(e);
+        } finally {
+            if (createdPrefetchExecutor != null) {
+                createdPrefetchExecutor.shutdownNow();
+            }
+        }
+    }
+
     public static ODataClientBuilder builder() {
         return new ODataClientBuilder();
     }
@@ -25,18 +25,40 @@
 package io.i4tech.odata.common.client;
 
 
+import io.i4tech.odata.common.mapper.ODataCompiledEntityMapper;
 import io.i4tech.odata.common.mapper.ODataEntityMapper;
 import io.i4tech.odata.common.authorization.ODataAuthorization;
+import io.i4tech.odata.common.client.transport.ODataApacheTransport;
+import io.i4tech.odata.common.client.transport.ODataTransport;
+import io.i4tech.odata.common.model.ODataEntity;
+import org.apache.http.HttpHost;
 import org.apache.http.client.HttpClient;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.nio.client.HttpAsyncClient;
 
 import java.net.InetSocketAddress;
 import java.net.Proxy;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 public class ODataClientBuilder {
 
+    public static final int DEFAULT_MAX_CONNECTIONS = 20;
+
     protected Map<String, String> headers = new HashMap<>();
     protected Map<String, String> metadataArguments = new HashMap<>();
     protected Proxy proxy;
@@ -45,12 +67,130 @@ public class ODataClientBuilder {
     protected ODataAuthorization authorization;
     protected HttpClient httpClient;
     protected ODataEntityMapper mapper;
+    protected int prefetchDepth;
+    protected Executor prefetchExecutor;
+    protected ODataFormat format = ODataFormat.ATOM;
+    protected ODataWriteResponseMode writeResponseMode = ODataWriteResponseMode.FULL;
+    protected HttpAsyncClient httpAsyncClient;
+    protected Executor callbackExecutor;
+    protected ODataTransport transport;
+    protected int maxConnections = DEFAULT_MAX_CONNECTIONS;
+    protected int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS;
+    protected long keepAliveMillis;
+    protected long validateAfterInactivityMillis = -1;
+    protected long maxIdleMillis;
+    protected boolean evictExpiredConnections;
+    protected boolean poolConfigured;
+    protected int csrfMaxRetries = ODataCsrfTokenManager.DEFAULT_MAX_RETRIES;
+    protected ODataMetadataCache metadataCache;
+    protected ODataResponseCache responseCache;
+
+    protected ODataQueryCache queryCache;
+
+    protected ODataRequestCoalescer requestCoalescer;
+    protected ODataMetadataSnapshot metadataSnapshot;
+    protected ODataEdmxPruner edmxPruner;
+    protected boolean directAtomReader;
+    protected boolean directAtomWriter;
+
     protected ODataClientBuilder() {
         // protected access only
     }
 
     public ODataClient build() {
-        return new ODataClient(serviceUrl, authorization, headers, metadataArguments, proxy, locale, httpClient, mapper);
+        if (writeResponseMode == null) {
+            throw new ODataClientBuilderException("Write response mode must be set.");
+        }
+        if (prefetchDepth < 0) {
+            throw new ODataClientBuilderException("Prefetch depth must not be negative.");
+        }
+        if (callbackExecutor == null) {
+            callbackExecutor = ForkJoinPool.commonPool();
+        }
+        if (transport != null && (httpClient != null || httpAsyncClient != null)) {
+            throw new ODataClientBuilderException("Http clients cannot be set together with a transport.");
+        }
+        if (poolConfigured && (transport != null || httpClient != null)) {
+            throw new ODataClientBuilderException("Connection pool settings apply only to the http client created by the builder.");
+        }
+        if (csrfMaxRetries < 0) {
+            throw new ODataClientBuilderException("CSRF retries must not be negative.");
+        }
+        if (maxConnections < 1 || maxConnectionsPerRoute < 1) {
+            throw new ODataClientBuilderException("Connection pool must allow at least one connection.");
+        }
+        if (metadataSnapshot != null && !metadataSnapshot.exists()) {
+            throw new ODataClientBuilderException("Metadata snapshot '" + metadataSnapshot.getResource() + "' not found.");
+        }
+        if (directAtomReader && (format != ODataFormat.ATOM || !(mapper instanceof ODataCompiledEntityMapper))) {
+            throw new ODataClientBuilderException("Direct Atom reader requires the Atom format and an ODataCompiledEntityMapper.");
+        }
+        if (directAtomWriter && format != ODataFormat.ATOM) {
+            throw new ODataClientBuilderException("Direct Atom writer requires the Atom format.");
+        }
+        return new ODataClient(this);
+    }
+
+    protected ODataTransport createTransport() {
+        if (transport != null) {
+            return transport;
+        }
+        if (httpClient != null) {
+            return new ODataApacheTransport(httpClient, httpAsyncClient);
+        }
+        final PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        if (validateAfterInactivityMillis >= 0) {
+            connectionManager.setValidateAfterInactivity((int) validateAfterInactivityMillis);
+        }
+        final HttpHost proxyHost = ODataApacheTransport.getProxyHost(proxy);
+        final ConnectionKeepAliveStrategy keepAliveStrategy = createKeepAliveStrategy();
+        final HttpClientBuilder clientBuilder = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setProxy(proxyHost)
+                .setKeepAliveStrategy(keepAliveStrategy);
+        if (maxIdleMillis > 0) {
+            clientBuilder.evictIdleConnections(maxIdleMillis, TimeUnit.MILLISECONDS);
+        }
+        if (evictExpiredConnections) {
+            clientBuilder.evictExpiredConnections();
+        }
+        // the asynchronous client is started on first use only, with the settings of the blocking one
+        final HttpAsyncClientBuilder asyncClientBuilder = HttpAsyncClients.custom()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setProxy(proxyHost)
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .setThreadFactory(daemonThreadFactory("odata-async-io"));
+        return new ODataApacheTransport(clientBuilder.build(), connectionManager, httpAsyncClient, asyncClientBuilder::build);
+    }
+
+    protected ConnectionKeepAliveStrategy createKeepAliveStrategy() {
+        if (keepAliveMillis <= 0) {
+            return DefaultConnectionKeepAliveStrategy.INSTANCE;
+        }
+        final long defaultKeepAliveMillis = keepAliveMillis;
+        // the timeout sent by the server in the Keep-Alive header takes precedence
+        return (response, context) -> {
+            final long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return duration > 0 ? duration : defaultKeepAliveMillis;
+        };
+    }
+
+    /**
+     * Executor of the prefetch reads when none is set, shut down when the client is closed.
+     */
+    protected ExecutorService createPrefetchExecutor() {
+        return Executors.newCachedThreadPool(daemonThreadFactory("odata-prefetch"));
+    }
+
+    protected static ThreadFactory daemonThreadFactory(String name) {
+        return r -> {
+            final Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        };
     }
 
     public final ODataClientBuilder serviceUrl(String serviceUrl) {
@@ -92,4 +232,212 @@ public class ODataClientBuilder {
         this.httpClient = httpClient;
         return this;
     }
+
+    /**
+     * Number of server-side pages requested ahead while the current page is being consumed, 0 disables prefetch.
+     */
+    public final ODataClientBuilder prefetchDepth(int prefetchDepth) {
+        this.prefetchDepth = prefetchDepth;
+        return this;
+    }
+
+    public final ODataClientBuilder prefetchExecutor(Executor prefetchExecutor) {
+        this.prefetchExecutor = prefetchExecutor;
+        return this;
+    }
+
+    public final ODataClientBuilder format(ODataFormat format) {
+        this.format = format;
+        return this;
+    }
+
+    /**
+     * What create and update operations return when the operation does not set it, defaults to
+     * {@link ODataWriteResponseMode#FULL}.
+     */
+    public final ODataClientBuilder writeResponseMode(ODataWriteResponseMode writeResponseMode) {
+        this.writeResponseMode = writeResponseMode;
+        return this;
+    }
+
+    /**
+     * Non-blocking client used by the asynchronous operations, it is not closed with the client. If not set, the
+     * builder creates one with the settings of its http client, started on first use. Together with an http client
+     * set on the builder but without this one, the asynchronous operations run blocking calls on the common pool.
+     */
+    public final ODataClientBuilder httpAsyncClient(HttpAsyncClient httpAsyncClient) {
+        this.httpAsyncClient = httpAsyncClient;
+        return this;
+    }
+
+    /**
+     * Executor parsing and mapping the responses of asynchronous operations, defaults to the common pool.
+     */
+    public final ODataClientBuilder callbackExecutor(Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+        return this;
+    }
+
+    /**
+     * Transport sending the requests instead of the Apache http clients, cannot be combined with them.
+     */
+    public final ODataClientBuilder transport(ODataTransport transport) {
+        this.transport = transport;
+        return this;
+    }
+
+    /**
+     * Maximum number of pooled connections of the http client created by the builder, defaults to {@value #DEFAULT_MAX_CONNECTIONS}.
+     */
+    public final ODataClientBuilder maxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+        this.poolConfigured = true;
+        return this;
+    }
+
+    /**
+     * Maximum number of pooled connections per route, defaults to {@value #DEFAULT_MAX_CONNECTIONS}
+     * as the client usually talks to a single host.
+     */
+    public final ODataClientBuilder maxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.poolConfigured = true;
+        return this;
+    }
+
+    /**
+     * Time to keep idle connections alive when the server does not send a Keep-Alive timeout.
+     */
+    public final ODataClientBuilder keepAlive(long duration, TimeUnit unit) {
+        this.keepAliveMillis = unit.toMillis(duration);
+        this.poolConfigured = true;
+        return this;
+    }
+
+    /**
+     * Period of inactivity after which pooled connections are validated before being leased.
+     */
+    public final ODataClientBuilder validateAfterInactivity(long duration, TimeUnit unit) {
+        this.validateAfterInactivityMillis = unit.toMillis(duration);
+        this.poolConfigured = true;
+        return this;
+    }
+
+    /**
+     * Evicts connections idle longer than the given time with a background thread.
+     */
+    public final ODataClientBuilder evictIdleConnections(long maxIdleTime, TimeUnit unit) {
+        this.maxIdleMillis = unit.toMillis(maxIdleTime);
+        this.poolConfigured = true;
+        return this;
+    }
+
+    /**
+     * Evicts connections whose keep-alive time has expired with a background thread.
+     */
+    public final ODataClientBuilder evictExpiredConnections() {
+        this.evictExpiredConnections = true;
+        this.poolConfigured = true;
+        return this;
+    }
+
+    /**
+     * Number of times a write is repeated with a new CSRF token after the server rejected the token,
+     * defaults to {@value ODataCsrfTokenManager#DEFAULT_MAX_RETRIES}.
+     */
+    public final ODataClientBuilder csrfMaxRetries(int csrfMaxRetries) {
+        this.csrfMaxRetries = csrfMaxRetries;
+        return this;
+    }
+
+    /**
+     * Cache the metadata is read from on start, instead of waiting for the service.
+     */
+    public final ODataClientBuilder metadataCache(ODataMetadataCache metadataCache) {
+        this.metadataCache = metadataCache;
+        return this;
+    }
+
+    /**
+     * Cache of read responses, revalidated with conditional requests instead of downloading the payload again.
+     */
+    public final ODataClientBuilder responseCache(ODataResponseCache responseCache) {
+        this.responseCache = responseCache;
+        return this;
+    }
+
+    /**
+     * Cache of read responses holding at most the given number of responses and total payload bytes.
+     */
+    public final ODataClientBuilder responseCache(int maxEntries, long maxBytes) {
+        this.responseCache = new ODataResponseCache(maxEntries, maxBytes);
+        return this;
+    }
+
+    /**
+     * Cache of the results of cached queries, served without any request until they expire or the client writes
+     * to their entity set.
+     */
+    public final ODataClientBuilder queryCache(ODataQueryCache queryCache) {
+        this.queryCache = queryCache;
+        return this;
+    }
+
+    /**
+     * Coalesces identical concurrent reads into one request, the callers share the response.
+     */
+    public final ODataClientBuilder requestCoalescer(ODataRequestCoalescer requestCoalescer) {
+        this.requestCoalescer = requestCoalescer;
+        return this;
+    }
+
+    /**
+     * Classpath resource of the metadata snapshot emitted by the generator, read instead of the service metadata.
+     * Takes precedence over the metadata cache.
+     */
+    public final ODataClientBuilder metadataSnapshot(String resource) {
+        return metadataSnapshot(resource, false);
+    }
+
+    /**
+     * Classpath resource of the metadata snapshot, optionally verified against the service metadata in the background.
+     */
+    public final ODataClientBuilder metadataSnapshot(String resource, boolean verify) {
+        this.metadataSnapshot = new ODataMetadataSnapshot(resource, verify);
+        return this;
+    }
+
+    /**
+     * Builds the Edm only for the entity sets of the classes and the entity classes reachable through their navigations.
+     */
+    @SafeVarargs
+    public final ODataClientBuilder pruneMetadata(Class<? extends ODataEntity>... entityClasses) {
+        this.edmxPruner = ODataEdmxPruner.forEntityClasses(Arrays.asList(entityClasses));
+        return this;
+    }
+
+    /**
+     * Builds the Edm only for the entity sets and function imports of the pruner.
+     */
+    public final ODataClientBuilder pruneMetadata(ODataEdmxPruner edmxPruner) {
+        this.edmxPruner = edmxPruner;
+        return this;
+    }
+
+    /**
+     * Reads Atom feeds with a StAX cursor directly into the entities, instead of the property maps of Olingo.
+     * Requires an {@link ODataCompiledEntityMapper}.
+     */
+    public final ODataClientBuilder directAtomReader() {
+        this.directAtomReader = true;
+        return this;
+    }
+
+    /**
+     * Writes the Atom entries of create and update requests with a StAX writer, instead of the entity provider of Olingo.
+     */
+    public final ODataClientBuilder directAtomWriter() {
+        this.directAtomWriter = true;
+        return this;
+    }
 }
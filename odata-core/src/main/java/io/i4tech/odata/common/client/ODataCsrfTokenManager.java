@@ -0,0 +1,130 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.i4tech.odata.common.client;
+
+import lombok.Getter;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Holds the CSRF token shared by the writers of a client. At most one token fetch is in flight,
+ * concurrent writers wait for its result instead of fetching a token of their own.
+ */
+public class ODataCsrfTokenManager {
+
+    public static final int DEFAULT_MAX_RETRIES = 1;
+
+    /**
+     * Number of times a write is repeated with a new token after the server rejected the token.
+     */
+    @Getter
+    private final int maxRetries;
+
+    private volatile String token;
+
+    private CompletableFuture<String> refresh;
+
+    public ODataCsrfTokenManager(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Stores a token returned by the server in any response.
+     */
+    public void capture(String capturedToken) {
+        if (capturedToken != null && !ODataClient.X_CSRF_TOKEN_REQUIRED.equalsIgnoreCase(capturedToken)) {
+            token = capturedToken;
+        }
+    }
+
+    /**
+     * Drops the token rejected by the server, unless it has been replaced meanwhile.
+     */
+    public synchronized void invalidate(String rejectedToken) {
+        if (rejectedToken == null || rejectedToken.equals(token)) {
+            token = null;
+        }
+    }
+
+    public String fetchToken(Callable<String> fetcher) {
+        final String current = token;
+        if (current != null) {
+            return current;
+        }
+        try {
+            return fetchTokenAsync(() -> {
+                try {
+                    return CompletableFuture.completedFuture(fetcher.call());
+                } catch (Exception e) {
+                    final CompletableFuture<String> failed = new CompletableFuture<>();
+                    failed.completeExceptionally(e);
+                    return failed;
+                }
+            }).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ODataException(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+        }
+    }
+
+    public CompletableFuture<String> fetchTokenAsync(Supplier<CompletableFuture<String>> fetcher) {
+        final CompletableFuture<String> flight;
+        synchronized (this) {
+            if (token != null) {
+                return CompletableFuture.completedFuture(token);
+            }
+            if (refresh != null) {
+                return refresh;
+            }
+            flight = new CompletableFuture<>();
+            refresh = flight;
+        }
+        fetcher.get().whenComplete((fetched, e) -> {
+            synchronized (this) {
+                refresh = null;
+                if (e == null) {
+                    capture(fetched);
+                }
+            }
+            // services without CSRF protection return no token
+            if (e != null) {
+                flight.completeExceptionally(e);
+            } else {
+                flight.complete(fetched);
+            }
+        });
+        return flight;
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.i4tech.odata.common.client;
+
+import io.i4tech.odata.common.model.ODataEntity;
+import io.i4tech.odata.common.model.ODataEntitySet;
+import io.i4tech.odata.common.util.ODataEntityUtils;
+import org.apache.commons.io.IOUtils;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * Reduces an EDMX to the given entity sets and function imports before it is parsed, keeping the entity types,
+ * complex types, associations and association sets they need. The Edm built from the result is a fraction
+ * of the Edm of the whole service for large services.
+ */
+public class ODataEdmxPruner {
+
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    private final Set<String> entitySets;
+
+    private final Set<String> functionImports;
+
+    public ODataEdmxPruner(Collection<String> entitySets, Collection<String> functionImports) {
+        this.entitySets = new HashSet<>(entitySets);
+        this.functionImports = new HashSet<>(functionImports);
+    }
+
+    /**
+     * Keeps the entity sets of the classes and of the entity classes reachable through their navigations.
+     */
+    @SuppressWarnings("unchecked")
+    public static ODataEdmxPruner forEntityClasses(Collection<Class<? extends ODataEntity>> entityClasses) {
+        final Set<String> entitySets = new LinkedHashSet<>();
+        final Set<Class<?>> visited = new HashSet<>();
+        final Deque<Class<? extends ODataEntity>> pending = new ArrayDeque<>(entityClasses);
+        while (!pending.isEmpty()) {
+            final Class<? extends ODataEntity> entityClass = pending.pop();
+            if (!visited.add(entityClass)) {
+                continue;
+            }
+            final ODataEntitySet entitySet = entityClass.getAnnotation(ODataEntitySet.class);
+            if (entitySet != null) {
+                entitySets.add(entitySet.name());
+            }
+            ODataEntityUtils.getNavigationFields(entityClass)
+                    .forEach(f -> pending.push((Class<? extends ODataEntity>) ODataEntityUtils.getGenericType(f)));
+        }
+        return new ODataEdmxPruner(entitySets, Collections.emptySet());
+    }
+
+    public Set<String> getEntitySets() {
+        return Collections.unmodifiableSet(entitySets);
+    }
+
+    public Set<String> getFunctionImports() {
+        return Collections.unmodifiableSet(functionImports);
+    }
+
+    public InputStream prune(InputStream edmx) {
+        try {
+            final byte[] content = IOUtils.toByteArray(edmx);
+            final Index index = new Index();
+            index.read(content);
+            return new ByteArrayInputStream(copy(content, index.retain(entitySets, functionImports)));
+        } catch (IOException | XMLStreamException e) {
+            throw new ODataException(e);
+        }
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    private static String unwrapCollection(String type) {
+        return type.startsWith("Collection(") && type.endsWith(")") ? type.substring(11, type.length() - 1) : type;
+    }
+
+    private static byte[] copy(byte[] content, Retained retained) throws XMLStreamException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(content.length / 4);
+        final XMLEventReader reader = INPUT_FACTORY.createXMLEventReader(new ByteArrayInputStream(content));
+        final XMLEventWriter writer = OUTPUT_FACTORY.createXMLEventWriter(out, "UTF-8");
+        String namespace = null;
+        int skipped = 0;
+        while (reader.hasNext()) {
+            final XMLEvent event = reader.nextEvent();
+            if (skipped > 0) {
+                skipped += event.isStartElement() ? 1 : event.isEndElement() ? -1 : 0;
+                continue;
+            }
+            if (event.isStartElement()) {
+                final StartElement element = event.asStartElement();
+                final String name = element.getName().getLocalPart();
+                if ("Schema".equals(name)) {
+                    namespace = attribute(element, "Namespace");
+                } else if (!retained.keeps(name, element, namespace)) {
+                    skipped = 1;
+                    continue;
+                }
+            }
+            writer.add(event);
+        }
+        writer.close();
+        reader.close();
+        return out.toByteArray();
+    }
+
+    private static String attribute(StartElement element, String name) {
+        return element.getAttributeByName(new QName(name)) == null ? null : element.getAttributeByName(new QName(name)).getValue();
+    }
+
+    private static class Aliases {
+
+        private final Map<String, String> namespaces = new HashMap<>();
+
+        String qualify(String qualifiedName) {
+            final int dot = qualifiedName == null ? -1 : qualifiedName.lastIndexOf('.');
+            if (dot < 0) {
+                return qualifiedName;
+            }
+            final String namespace = namespaces.get(qualifiedName.substring(0, dot));
+            return namespace == null ? qualifiedName : namespace + qualifiedName.substring(dot);
+        }
+    }
+
+    /**
+     * References between the elements of the EDMX, collected in a first pass.
+     */
+    private static class Index {
+
+        private final Aliases aliases = new Aliases();
+        private final Map<String, String> entitySetTypes = new HashMap<>();
+        private final Map<String, Set<String>> typeReferences = new HashMap<>();
+        private final Map<String, List<String>> associationEnds = new HashMap<>();
+        private final Map<String, String> associationSetAssociations = new HashMap<>();
+        private final Map<String, List<String>> associationSetEnds = new HashMap<>();
+        private final Map<String, String> functionImportSets = new HashMap<>();
+        private final Map<String, Set<String>> functionImportTypes = new HashMap<>();
+
+        void read(byte[] content) throws XMLStreamException {
+            final XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(new ByteArrayInputStream(content));
+            String namespace = null;
+            String current = null;
+            String container = null;
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                final String name = reader.getLocalName();
+                switch (name) {
+                    case "Schema":
+                        namespace = reader.getAttributeValue(null, "Namespace");
+                        if (reader.getAttributeValue(null, "Alias") != null) {
+                            aliases.namespaces.put(reader.getAttributeValue(null, "Alias"), namespace);
+                        }
+                        break;
+                    case "EntityType":
+                    case "ComplexType":
+                        container = name;
+                        current = namespace + "." + reader.getAttributeValue(null, "Name");
+                        typeReferences.computeIfAbsent(current, k -> new HashSet<>()).add(reader.getAttributeValue(null, "BaseType"));
+                        break;
+                    case "Property":
+                        typeReferences.get(current).add(unwrapCollection(reader.getAttributeValue(null, "Type")));
+                        break;
+                    case "Association":
+                        container = name;
+                        current = namespace + "." + reader.getAttributeValue(null, "Name");
+                        associationEnds.put(current, new ArrayList<>());
+                        break;
+                    case "AssociationSet":
+                        container = name;
+                        current = reader.getAttributeValue(null, "Name");
+                        associationSetAssociations.put(current, reader.getAttributeValue(null, "Association"));
+                        associationSetEnds.put(current, new ArrayList<>());
+                        break;
+                    case "End":
+                        if ("Association".equals(container)) {
+                            associationEnds.get(current).add(reader.getAttributeValue(null, "Type"));
+                        } else if ("AssociationSet".equals(container)) {
+                            associationSetEnds.get(current).add(reader.getAttributeValue(null, "EntitySet"));
+                        }
+                        break;
+                    case "EntitySet":
+                        entitySetTypes.put(reader.getAttributeValue(null, "Name"), reader.getAttributeValue(null, "EntityType"));
+                        break;
+                    case "FunctionImport":
+                        container = name;
+                        current = reader.getAttributeValue(null, "Name");
+                        functionImportSets.put(current, reader.getAttributeValue(null, "EntitySet"));
+                        functionImportTypes.computeIfAbsent(current, k -> new HashSet<>())
+                                .add(reader.getAttributeValue(null, "ReturnType") == null ? null
+                                        : unwrapCollection(reader.getAttributeValue(null, "ReturnType")));
+                        break;
+                    case "Parameter":
+                        if ("FunctionImport".equals(container)) {
+                            functionImportTypes.get(current).add(reader.getAttributeValue(null, "Type"));
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+            reader.close();
+        }
+
+        Retained retain(Set<String> entitySets, Set<String> functionImports) {
+            final Retained retained = new Retained(aliases);
+            functionImportSets.forEach((functionImport, entitySet) -> {
+                if (functionImports.contains(functionImport) || entitySets.contains(entitySet)) {
+                    retained.functionImports.add(functionImport);
+                }
+            });
+            entitySets.stream().filter(entitySetTypes::containsKey).forEach(retained.entitySets::add);
+            retained.functionImports.stream()
+                    .map(functionImportSets::get)
+                    .filter(Objects::nonNull)
+                    .forEach(retained.entitySets::add);
+
+            final Deque<String> pending = new ArrayDeque<>();
+            retained.entitySets.forEach(s -> pending.add(aliases.qualify(entitySetTypes.get(s))));
+            retained.functionImports.forEach(f -> functionImportTypes.get(f).forEach(t -> pending.add(aliases.qualify(t))));
+            while (!pending.isEmpty()) {
+                final String type = pending.pop();
+                if (typeReferences.containsKey(type) && retained.types.add(type)) {
+                    typeReferences.get(type).stream().filter(Objects::nonNull).forEach(t -> pending.add(aliases.qualify(t)));
+                }
+            }
+
+            associationEnds.forEach((association, ends) -> {
+                if (ends.stream().map(aliases::qualify).allMatch(retained.types::contains)) {
+                    retained.associations.add(association);
+                }
+            });
+            associationSetEnds.forEach((associationSet, ends) -> {
+                if (retained.associations.contains(aliases.qualify(associationSetAssociations.get(associationSet)))
+                        && retained.entitySets.containsAll(ends)) {
+                    retained.associationSets.add(associationSet);
+                }
+            });
+            return retained;
+        }
+    }
+
+    private static class Retained {
+
+        private final Aliases aliases;
+        private final Set<String> entitySets = new HashSet<>();
+        private final Set<String> types = new HashSet<>();
+        private final Set<String> associations = new HashSet<>();
+        private final Set<String> associationSets = new HashSet<>();
+        private final Set<String> functionImports = new HashSet<>();
+
+        Retained(Aliases aliases) {
+            this.aliases = aliases;
+        }
+
+        boolean keeps(String name, StartElement element, String namespace) {
+            switch (name) {
+                case "EntityType":
+                case "ComplexType":
+                    return types.contains(namespace + "." + attribute(element, "Name"));
+                case "Association":
+                    return associations.contains(namespace + "." + attribute(element, "Name"));
+                case "NavigationProperty":
+                    return associations.contains(aliases.qualify(attribute(element, "Relationship")));
+                case "EntitySet":
+                    return entitySets.contains(attribute(element, "Name"));
+                case "AssociationSet":
+                    return associationSets.contains(attribute(element, "Name"));
+                case "FunctionImport":
+                    return functionImports.contains(attribute(element, "Name"));
+                default:
+                    return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.i4tech.odata.common.client;
+
+import io.i4tech.odata.common.model.ODataEntity;
+import io.i4tech.odata.common.client.transport.ODataTransportResponse;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates the entities of a feed page by page, keeping only the connection of the current page open.
+ */
+class ODataEntityIterator<E extends ODataEntity> implements Iterator<E> {
+
+    private final ODataClient client;
+    private final String entitySetName;
+    private final Class<E> entityClass;
+    private final Locale locale;
+
+    private String nextPath;
+    private ODataTransportResponse response;
+    private ODataEntityReader<E> reader;
+    private boolean closed;
+
+    ODataEntityIterator(ODataClient client, String entitySetName, Class<E> entityClass, String requestPath) {
+        this.client = client;
+        this.entitySetName = entitySetName;
+        this.entityClass = entityClass;
+        this.locale = client.getRequestLocale();
+        this.nextPath = requestPath;
+    }
+
+    private void open(String requestPath) {
+        final Locale currentLocale = client.getRequestLocale();
+        client.setRequestLocale(locale);
+        try {
+            response = client.executeRequest(client.getRequest(requestPath));
+            reader = client.createEntityReader(response.getContent(), entitySetName, entityClass);
+        } catch (ODataException e) {
+            close();
+            throw e;
+        } catch (Exception e) {
+            close();
+            throw new ODataException(e);
+        } finally {
+            client.setRequestLocale(currentLocale);
+        }
+    }
+
+    private void release() {
+        try {
+            if (reader != null) {
+                reader.close();
+            }
+        } catch (IOException e) {
+            // connection is released anyway
+        } finally {
+            if (response != null) {
+                response.close();
+            }
+            reader = null;
+            response = null;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            return advance();
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private boolean advance() {
+        while (!closed) {
+            if (reader != null) {
+                if (reader.hasNext()) {
+                    return true;
+                }
+                nextPath = client.getNextLinkPath(reader.getNextLink());
+                release();
+            }
+            if (nextPath == null) {
+                close();
+            } else {
+                open(nextPath);
+                nextPath = null;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return reader.next();
+    }
+
+    void close() {
+        closed = true;
+        nextPath = null;
+        release();
+    }
+}
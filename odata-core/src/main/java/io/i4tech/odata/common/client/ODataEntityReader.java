@@ -0,0 +1,77 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.i4tech.odata.common.client;
+
+import io.i4tech.odata.common.model.ODataEntity;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Incremental reader of an OData feed, returning one entity at a time.
+ * Feed level metadata (next link, inline count) is complete once all entities have been read.
+ */
+public interface ODataEntityReader<E extends ODataEntity> extends Iterator<E>, Closeable {
+
+    String getNextLink();
+
+    Long getInlineCount();
+
+    /**
+     * Maps the entries of a feed reader to entities.
+     */
+    static <E extends ODataEntity> ODataEntityReader<E> mapping(ODataFeedReader reader, Function<Map<String, Object>, E> mapping) {
+        return new ODataEntityReader<E>() {
+
+            @Override
+            public boolean hasNext() {
+                return reader.hasNext();
+            }
+
+            @Override
+            public E next() {
+                return mapping.apply(reader.next());
+            }
+
+            @Override
+            public String getNextLink() {
+                return reader.getNextLink();
+            }
+
+            @Override
+            public Long getInlineCount() {
+                return reader.getInlineCount();
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
+}
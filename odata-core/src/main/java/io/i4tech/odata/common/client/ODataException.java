@@ -25,15 +25,44 @@
 package io.i4tech.odata.common.client;
 
 public class ODataException extends RuntimeException {
+
+    // http status of the failed request, 0 if the failure has none
+    private final int statusCode;
+
     public ODataException(String message) {
         super(message);
+        this.statusCode = 0;
+    }
+
+    public ODataException(String message, int statusCode) {
+        super(message);
+        this.statusCode = statusCode;
     }
 
     public ODataException(Exception e) {
         super(e);
+        this.statusCode = getStatusCode(e);
     }
 
     public ODataException(String s, Exception e) {
         super(s, e);
+        this.statusCode = getStatusCode(e);
+    }
+
+    /**
+     * Http status the service answered the request with, kept when the exception is wrapped,
+     * or 0 if the request failed without a status.
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    private static int getStatusCode(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ODataException) {
+                return ((ODataException) cause).statusCode;
+            }
+        }
+        return 0;
     }
 }
@@ -0,0 +1,91 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.i4tech.odata.common.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.apache.olingo.odata2.api.edm.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the request body of create and update requests in OData v2 verbose JSON.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ODataJsonEntryWriter {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    // Types written as JSON literals, all others are written as strings
+    private static final List<String> NUMERIC_TYPES = Arrays.asList("Byte", "SByte", "Int16", "Int32");
+    private static final String BOOLEAN_TYPE = "Boolean";
+
+    public static byte[] writeEntry(EdmEntitySet entitySet, Map<String, Object> data) throws EdmException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(output)) {
+            writeStructure(generator, entitySet.getEntityType(), data);
+        } catch (IOException e) {
+            throw new ODataException(e);
+        }
+        return output.toByteArray();
+    }
+
+    private static void writeStructure(JsonGenerator generator, EdmStructuralType type, Map<String, Object> data) throws IOException, EdmException {
+        generator.writeStartObject();
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            final EdmTyped property = type.getProperty(entry.getKey());
+            if (property instanceof EdmProperty) {
+                generator.writeFieldName(entry.getKey());
+                writeValue(generator, (EdmProperty) property, entry.getValue());
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeValue(JsonGenerator generator, EdmProperty property, Object value) throws IOException, EdmException {
+        final EdmType type = property.getType();
+        if (value == null) {
+            generator.writeNull();
+        } else if (type instanceof EdmSimpleType) {
+            final String text = ((EdmSimpleType) type).valueToString(value, EdmLiteralKind.JSON, property.getFacets());
+            if (BOOLEAN_TYPE.equals(type.getName())) {
+                generator.writeBoolean(Boolean.parseBoolean(text));
+            } else if (NUMERIC_TYPES.contains(type.getName())) {
+                generator.writeNumber(text);
+            } else {
+                generator.writeString(text);
+            }
+        } else {
+            writeStructure(generator, (EdmStructuralType) type, (Map<String, Object>) value);
+        }
+    }
+}
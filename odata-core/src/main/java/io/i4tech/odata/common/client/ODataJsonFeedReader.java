@@ -0,0 +1,256 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.i4tech.odata.common.client;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.olingo.odata2.api.edm.*;
+import org.apache.olingo.odata2.api.ep.EntityProviderException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+/**
+ * Reads OData v2 verbose JSON ({@code {"d": {"results": [...], "__count": ..., "__next": ...}}}) with a Jackson
+ * streaming parser. Only the entry being returned is materialized as a tree; values are converted with the EDM
+ * simple types, the same way the Atom reader of Olingo does.
+ */
+public class ODataJsonFeedReader implements ODataFeedReader {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final String RESULTS = "results";
+    private static final String COUNT = "__count";
+    private static final String NEXT = "__next";
+    private static final String DEFERRED = "__deferred";
+
+    private final InputStream content;
+    private final JsonParser parser;
+    private final EdmEntitySet entitySet;
+    private final Map<String, Object> typeMappings;
+
+    private ObjectNode singleEntry;
+    private boolean inResults;
+    private boolean feedObject;
+    private Map<String, Object> nextEntry;
+    private boolean finished;
+    private String nextLink;
+    private Long inlineCount;
+
+    public ODataJsonFeedReader(InputStream content, EdmEntitySet entitySet, Map<String, Object> typeMappings) throws EntityProviderException {
+        this.content = content;
+        this.entitySet = entitySet;
+        this.typeMappings = typeMappings != null ? typeMappings : Collections.emptyMap();
+        try {
+            this.parser = MAPPER.getFactory().createParser(content);
+            readDocumentStart();
+        } catch (IOException e) {
+            throw new EntityProviderException(EntityProviderException.EXCEPTION_OCCURRED.addContent(e.getClass().getSimpleName()), e);
+        }
+    }
+
+    private static EntityProviderException invalidContent(String reason) {
+        return new EntityProviderException(EntityProviderException.INVALID_CONTENT.addContent(reason));
+    }
+
+    private void readDocumentStart() throws IOException, EntityProviderException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw invalidContent("JSON object expected");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            final JsonToken token = parser.nextToken();
+            if ("d".equals(name)) {
+                if (token == JsonToken.START_ARRAY) {
+                    inResults = true;
+                } else if (token == JsonToken.START_OBJECT) {
+                    feedObject = true;
+                    readFeedStart();
+                } else {
+                    throw invalidContent("d");
+                }
+                return;
+            }
+            parser.skipChildren();
+        }
+        throw invalidContent("d");
+    }
+
+    private void readFeedStart() throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = parser.getCurrentName();
+            parser.nextToken();
+            if (RESULTS.equals(name) && parser.currentToken() == JsonToken.START_ARRAY) {
+                inResults = true;
+                return;
+            } else if (COUNT.equals(name) || NEXT.equals(name)) {
+                readFeedField(name);
+            } else {
+                // not a feed, the document holds a single entry
+                feedObject = false;
+                singleEntry = MAPPER.createObjectNode();
+                singleEntry.set(name, parser.readValueAsTree());
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String field = parser.getCurrentName();
+                    parser.nextToken();
+                    singleEntry.set(field, parser.readValueAsTree());
+                }
+                return;
+            }
+        }
+    }
+
+    private void readFeedField(String name) throws IOException {
+        if (COUNT.equals(name)) {
+            inlineCount = Long.valueOf(parser.getText());
+        } else if (NEXT.equals(name)) {
+            nextLink = parser.getText();
+        } else {
+            parser.skipChildren();
+        }
+    }
+
+    private Map<String, Object> readNextEntry() throws IOException, EdmException {
+        if (singleEntry != null) {
+            final ObjectNode entry = singleEntry;
+            singleEntry = null;
+            return readEntry(entitySet, entry);
+        }
+        if (inResults) {
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                return readEntry(entitySet, parser.readValueAsTree());
+            }
+            inResults = false;
+            while (feedObject && parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = parser.getCurrentName();
+                parser.nextToken();
+                readFeedField(name);
+            }
+        }
+        return null;
+    }
+
+    private Map<String, Object> readEntry(EdmEntitySet entrySet, JsonNode entry) throws EdmException {
+        final EdmEntityType entityType = entrySet.getEntityType();
+        final Map<String, Object> properties = new HashMap<>();
+        final Iterator<Map.Entry<String, JsonNode>> fields = entry.fields();
+        while (fields.hasNext()) {
+            final Map.Entry<String, JsonNode> field = fields.next();
+            final EdmTyped property = field.getKey().startsWith("__") ? null : entityType.getProperty(field.getKey());
+            if (property instanceof EdmNavigationProperty) {
+                readNavigation(entrySet, (EdmNavigationProperty) property, field.getValue(), properties);
+            } else if (property != null) {
+                properties.put(field.getKey(), readValue(property, field.getValue()));
+            }
+        }
+        return properties;
+    }
+
+    private void readNavigation(EdmEntitySet entrySet, EdmNavigationProperty property, JsonNode value,
+                                Map<String, Object> properties) throws EdmException {
+        if (value.has(DEFERRED)) {
+            return;
+        }
+        final EdmEntitySet relatedSet = entrySet.getRelatedEntitySet(property);
+        final JsonNode results = value.isArray() ? value : value.get(RESULTS);
+        if (value.isNull()) {
+            properties.put(property.getName(), null);
+        } else if (results != null && results.isArray()) {
+            final List<Map<String, Object>> entries = new ArrayList<>();
+            for (JsonNode related : results) {
+                entries.add(readEntry(relatedSet, related));
+            }
+            properties.put(property.getName(), entries);
+        } else {
+            properties.put(property.getName(), readEntry(relatedSet, value));
+        }
+    }
+
+    private Object readValue(EdmTyped property, JsonNode value) throws EdmException {
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        final EdmType type = property.getType();
+        if (type instanceof EdmSimpleType) {
+            final Object mapping = typeMappings.get(property.getName());
+            final Class<?> javaType = mapping instanceof Class ? (Class<?>) mapping : ((EdmSimpleType) type).getDefaultType();
+            return ((EdmSimpleType) type).valueOfString(value.asText(), EdmLiteralKind.JSON, null, javaType);
+        }
+        final EdmStructuralType complexType = (EdmStructuralType) type;
+        final Map<String, Object> complexValue = new HashMap<>();
+        for (String name : complexType.getPropertyNames()) {
+            if (value.has(name)) {
+                complexValue.put(name, readValue(complexType.getProperty(name), value.get(name)));
+            }
+        }
+        return complexValue;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextEntry == null && !finished) {
+            try {
+                nextEntry = readNextEntry();
+            } catch (Exception e) {
+                throw new ODataException(e);
+            }
+            finished = (nextEntry == null);
+        }
+        return nextEntry != null;
+    }
+
+    @Override
+    public Map<String, Object> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final Map<String, Object> entry = nextEntry;
+        nextEntry = null;
+        return entry;
+    }
+
+    @Override
+    public String getNextLink() {
+        return nextLink;
+    }
+
+    @Override
+    public Long getInlineCount() {
+        return inlineCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            parser.close();
+        } finally {
+            content.close();
+        }
+    }
+}
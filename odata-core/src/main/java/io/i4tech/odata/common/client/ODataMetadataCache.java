@@ -0,0 +1,210 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.i4tech.odata.common.client;
+
+import lombok.Getter;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the raw EDMX of services on disk, keyed by service URL and metadata arguments, so that clients
+ * can start without downloading and waiting for the metadata. Entries older than the max age are still
+ * served, the client revalidates them in the background with the stored ETag and Last-Modified values.
+ * The cache can be shared by any number of clients.
+ */
+public class ODataMetadataCache {
+
+    public static final long DEFAULT_MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private static final String EDMX_SUFFIX = ".edmx";
+    private static final String PROPERTIES_SUFFIX = ".properties";
+    private static final String KEY = "key";
+    private static final String ETAG = "etag";
+    private static final String LAST_MODIFIED = "lastModified";
+    private static final String VALIDATED = "validated";
+
+    @Getter
+    private final File directory;
+
+    @Getter
+    private final long maxAgeMillis;
+
+    @Getter
+    public static class Entry {
+
+        private final byte[] content;
+
+        private final String etag;
+
+        private final String lastModified;
+
+        private final long validated;
+
+        Entry(byte[] content, String etag, String lastModified, long validated) {
+            this.content = content;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.validated = validated;
+        }
+    }
+
+    public ODataMetadataCache(File directory) {
+        this(directory, DEFAULT_MAX_AGE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public ODataMetadataCache(File directory, long maxAge, TimeUnit unit) {
+        if (maxAge < 0) {
+            throw new ODataClientBuilderException("Metadata max age must not be negative.");
+        }
+        this.directory = directory;
+        this.maxAgeMillis = unit.toMillis(maxAge);
+    }
+
+    public static String getKey(String serviceUrl, Map<String, String> metadataArguments) {
+        final StringBuilder key = new StringBuilder(serviceUrl);
+        // arguments are sorted, the key must not depend on the order they were added to the builder
+        new TreeMap<>(metadataArguments).forEach((name, value) -> key.append('|').append(name).append('=').append(value));
+        return key.toString();
+    }
+
+    public boolean isExpired(Entry entry) {
+        return System.currentTimeMillis() - entry.getValidated() >= maxAgeMillis;
+    }
+
+    /**
+     * Returns the cached metadata, or null if there is none or it cannot be read.
+     */
+    public synchronized Entry get(String key) {
+        final File content = getFile(key, EDMX_SUFFIX);
+        final File properties = getFile(key, PROPERTIES_SUFFIX);
+        if (!content.isFile() || !properties.isFile()) {
+            return null;
+        }
+        try (InputStream in = new FileInputStream(properties)) {
+            final Properties values = new Properties();
+            values.load(in);
+            if (!key.equals(values.getProperty(KEY))) {
+                return null;
+            }
+            return new Entry(FileUtils.readFileToByteArray(content), values.getProperty(ETAG),
+                    values.getProperty(LAST_MODIFIED), Long.parseLong(values.getProperty(VALIDATED, "0")));
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public synchronized void put(String key, byte[] content, String etag, String lastModified) {
+        try {
+            write(getFile(key, EDMX_SUFFIX), content);
+            writeProperties(key, etag, lastModified);
+        } catch (IOException e) {
+            throw new ODataException(e);
+        }
+    }
+
+    /**
+     * Marks the cached metadata as validated now, after the service confirmed it is not modified.
+     */
+    public synchronized void touch(String key) {
+        final Entry entry = get(key);
+        if (entry != null) {
+            try {
+                writeProperties(key, entry.getEtag(), entry.getLastModified());
+            } catch (IOException e) {
+                throw new ODataException(e);
+            }
+        }
+    }
+
+    public synchronized void remove(String key) {
+        FileUtils.deleteQuietly(getFile(key, EDMX_SUFFIX));
+        FileUtils.deleteQuietly(getFile(key, PROPERTIES_SUFFIX));
+    }
+
+    private void writeProperties(String key, String etag, String lastModified) throws IOException {
+        final Properties values = new Properties();
+        values.setProperty(KEY, key);
+        if (etag != null) {
+            values.setProperty(ETAG, etag);
+        }
+        if (lastModified != null) {
+            values.setProperty(LAST_MODIFIED, lastModified);
+        }
+        values.setProperty(VALIDATED, String.valueOf(System.currentTimeMillis()));
+        final File temp = createTempFile();
+        try (OutputStream out = new FileOutputStream(temp)) {
+            values.store(out, null);
+        }
+        move(temp, getFile(key, PROPERTIES_SUFFIX));
+    }
+
+    private void write(File file, byte[] content) throws IOException {
+        final File temp = createTempFile();
+        FileUtils.writeByteArrayToFile(temp, content);
+        move(temp, file);
+    }
+
+    private File createTempFile() throws IOException {
+        FileUtils.forceMkdir(directory);
+        return File.createTempFile("metadata", ".tmp", directory);
+    }
+
+    private static void move(File source, File target) throws IOException {
+        // other processes using the same directory never see partially written files
+        Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private File getFile(String key, String suffix) {
+        return new File(directory, hash(key) + suffix);
+    }
+
+    static String hash(String key) {
+        try {
+            final StringBuilder hash = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8))) {
+                hash.append(String.format("%02x", b));
+            }
+            return hash.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new ODataException(e);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.i4tech.odata.common.client;
+
+import lombok.Getter;
+import org.apache.olingo.odata2.api.edm.Edm;
+import org.apache.olingo.odata2.api.edm.EdmEntityContainer;
+import org.apache.olingo.odata2.api.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.edm.EdmEntityType;
+import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.edm.EdmFunctionImport;
+import org.apache.olingo.odata2.api.edm.EdmTyped;
+import org.apache.olingo.odata2.api.ep.EntityProvider;
+import org.apache.olingo.odata2.api.ep.EntityProviderException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Metadata snapshot emitted by the generator (outputMetadataSnapshot), packaged as a classpath resource.
+ * The client reads it instead of the metadata of the service, optionally verifying it against the service
+ * in the background.
+ */
+@Getter
+public class ODataMetadataSnapshot {
+
+    private final String resource;
+
+    private final boolean verify;
+
+    public ODataMetadataSnapshot(String resource, boolean verify) {
+        this.resource = resource.startsWith("/") ? resource : "/" + resource;
+        this.verify = verify;
+    }
+
+    public boolean exists() {
+        return ODataMetadataSnapshot.class.getResource(resource) != null;
+    }
+
+    public InputStream open() {
+        final InputStream content = ODataMetadataSnapshot.class.getResourceAsStream(resource);
+        if (content == null) {
+            throw new ODataException("Metadata snapshot '" + resource + "' not found.");
+        }
+        return content;
+    }
+
+    public Edm read() {
+        try (InputStream content = open()) {
+            return EntityProvider.readMetadata(content, false);
+        } catch (IOException | EntityProviderException e) {
+            throw new ODataException(e);
+        }
+    }
+
+    /**
+     * Lists the entity sets, properties, navigations and function imports of the snapshot which are missing
+     * from the service metadata or have a different type there.
+     */
+    public static List<String> compare(Edm snapshot, Edm service) throws EdmException {
+        final List<String> differences = new ArrayList<>();
+        final EdmEntityContainer container = service.getDefaultEntityContainer();
+        for (EdmEntitySet entitySet : snapshot.getEntitySets()) {
+            final EdmEntitySet serviceEntitySet = container.getEntitySet(entitySet.getName());
+            if (serviceEntitySet == null) {
+                differences.add("Entity set " + entitySet.getName() + " is missing");
+                continue;
+            }
+            final EdmEntityType entityType = entitySet.getEntityType();
+            final EdmEntityType serviceEntityType = serviceEntitySet.getEntityType();
+            for (String name : entityType.getPropertyNames()) {
+                compare(entitySet.getName() + "/" + name, entityType.getProperty(name), serviceEntityType.getProperty(name), differences);
+            }
+            for (String name : entityType.getNavigationPropertyNames()) {
+                compare(entitySet.getName() + "/" + name, entityType.getProperty(name), serviceEntityType.getProperty(name), differences);
+            }
+        }
+        for (EdmFunctionImport functionImport : snapshot.getFunctionImports()) {
+            if (container.getFunctionImport(functionImport.getName()) == null) {
+                differences.add("Function import " + functionImport.getName() + " is missing");
+            }
+        }
+        return differences;
+    }
+
+    private static void compare(String path, EdmTyped property, EdmTyped serviceProperty, List<String> differences) throws EdmException {
+        if (serviceProperty == null) {
+            differences.add("Property " + path + " is missing");
+        } else if (!property.getType().getName().equals(serviceProperty.getType().getName())) {
+            differences.add("Property " + path + " is " + serviceProperty.getType().getName() + " instead of " + property.getType().getName());
+        }
+    }
+}
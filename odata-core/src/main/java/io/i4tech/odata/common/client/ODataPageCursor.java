@@ -0,0 +1,109 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.i4tech.odata.common.client;
+
+import io.i4tech.odata.common.model.ODataEntity;
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Walks the server-side pages of a feed, requesting a page only when {@link #next()} is called.
+ * Closing the cursor skips all remaining pages.
+ */
+public class ODataPageCursor<E extends ODataEntity> implements Iterator<ODataPage<E>>, Closeable {
+
+    protected final ODataClient client;
+
+    protected final String entitySetName;
+
+    protected final Class<E> entityClass;
+
+    protected final Locale locale;
+
+    protected String nextPath;
+
+    @Getter
+    protected String nextLink;
+
+    @Getter
+    protected int pageCount;
+
+    protected boolean closed;
+
+    ODataPageCursor(ODataClient client, String entitySetName, Class<E> entityClass, String requestPath) {
+        this.client = client;
+        this.entitySetName = entitySetName;
+        this.entityClass = entityClass;
+        this.locale = client.getRequestLocale();
+        this.nextPath = requestPath;
+    }
+
+    protected ODataPage<E> readPage(String requestPath, int index) {
+        final Locale currentLocale = client.getRequestLocale();
+        client.setRequestLocale(locale);
+        try {
+            return client.readPage(entitySetName, entityClass, requestPath, index);
+        } finally {
+            client.setRequestLocale(currentLocale);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !closed && nextPath != null;
+    }
+
+    @Override
+    public ODataPage<E> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final ODataPage<E> page;
+        try {
+            page = readPage(nextPath, pageCount);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+        pageCount++;
+        nextLink = page.getNextLink();
+        nextPath = client.getNextLinkPath(nextLink);
+        return page;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        nextPath = null;
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.i4tech.odata.common.client;
+
+import io.i4tech.odata.common.mapper.ODataCompiledEntityMapper;
+import io.i4tech.odata.common.model.ODataEntity;
+import io.i4tech.odata.common.util.ODataEntityUtils;
+import org.apache.olingo.odata2.api.edm.Edm;
+import org.apache.olingo.odata2.api.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.edm.EdmException;
+import org.apache.olingo.odata2.api.ep.EntityProviderReadProperties;
+import org.apache.olingo.odata2.api.ep.EntityProviderWriteProperties;
+
+import javax.xml.bind.annotation.XmlElement;
+import java.lang.reflect.Field;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Read and write setup of a client, derived once per entity class and Edm instead of on every request.
+ * Plans bound to the Edm are dropped when the client switches to a new Edm.
+ */
+public class ODataPlanCache {
+
+    /**
+     * Upper bound of cached write properties, one is kept per entity set and set of written properties.
+     */
+    public static final int MAX_WRITE_PLANS = 1024;
+
+    private final ConcurrentMap<Class<?>, Map<String, Object>> typeMappings = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Class<?>, EntityProviderReadProperties> readProperties = new ConcurrentHashMap<>();
+
+    private volatile EdmPlans edmPlans;
+
+    private static final class EdmPlans {
+
+        private final Edm edm;
+
+        private final ConcurrentMap<String, EdmEntitySet> entitySets = new ConcurrentHashMap<>();
+
+        private final ConcurrentMap<WritePlanKey, EntityProviderWriteProperties> writeProperties = new ConcurrentHashMap<>();
+
+        private final ConcurrentMap<ReadPlanKey, ODataAtomEntityReader.EntityPlan> atomEntityPlans = new ConcurrentHashMap<>();
+
+        private EdmPlans(Edm edm) {
+            this.edm = edm;
+        }
+    }
+
+    private static final class WritePlanKey {
+
+        private final String entitySetName;
+
+        private final Set<String> properties;
+
+        private WritePlanKey(String entitySetName, Set<String> properties) {
+            this.entitySetName = entitySetName;
+            this.properties = properties;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof WritePlanKey)) {
+                return false;
+            }
+            final WritePlanKey other = (WritePlanKey) o;
+            return entitySetName.equals(other.entitySetName) && properties.equals(other.properties);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(entitySetName, properties);
+        }
+    }
+
+    private static final class ReadPlanKey {
+
+        private final String entitySetName;
+
+        private final Class<?> entityClass;
+
+        private ReadPlanKey(String entitySetName, Class<?> entityClass) {
+            this.entitySetName = entitySetName;
+            this.entityClass = entityClass;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ReadPlanKey)) {
+                return false;
+            }
+            final ReadPlanKey other = (ReadPlanKey) o;
+            return entitySetName.equals(other.entitySetName) && entityClass.equals(other.entityClass);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(entitySetName, entityClass);
+        }
+    }
+
+    /**
+     * Timestamp properties of the entity class and its navigation classes, which are read as {@link Timestamp}.
+     */
+    public Map<String, Object> getTypeMappings(Class<?> entityClass) {
+        return typeMappings.computeIfAbsent(entityClass, ODataPlanCache::createTypeMappings);
+    }
+
+    public EntityProviderReadProperties getReadProperties(Class<?> entityClass) {
+        return readProperties.computeIfAbsent(entityClass, c -> EntityProviderReadProperties.init()
+                .addTypeMappings(getTypeMappings(c))
+                .build());
+    }
+
+    public EdmEntitySet getEntitySet(Edm edm, String entitySetName) throws EdmException {
+        final EdmPlans plans = getEdmPlans(edm);
+        EdmEntitySet entitySet = plans.entitySets.get(entitySetName);
+        if (entitySet == null) {
+            entitySet = edm.getDefaultEntityContainer().getEntitySet(entitySetName);
+            if (entitySet != null) {
+                plans.entitySets.putIfAbsent(entitySetName, entitySet);
+            }
+        }
+        return entitySet;
+    }
+
+    /**
+     * Returns the cached write properties of the entity set and written properties, or null if there are none.
+     */
+    public EntityProviderWriteProperties getWriteProperties(Edm edm, String entitySetName, Set<String> properties) {
+        return getEdmPlans(edm).writeProperties.get(new WritePlanKey(entitySetName, properties));
+    }
+
+    public void putWriteProperties(Edm edm, String entitySetName, Set<String> properties, EntityProviderWriteProperties writeProperties) {
+        final EdmPlans plans = getEdmPlans(edm);
+        if (plans.writeProperties.size() < MAX_WRITE_PLANS) {
+            plans.writeProperties.putIfAbsent(new WritePlanKey(entitySetName, properties), writeProperties);
+        }
+    }
+
+    public ODataAtomEntityReader.EntityPlan getAtomEntityPlan(Edm edm, EdmEntitySet entitySet, Class<? extends ODataEntity> entityClass,
+                                                              ODataCompiledEntityMapper mapper) throws EdmException {
+        final EdmPlans plans = getEdmPlans(edm);
+        final ReadPlanKey key = new ReadPlanKey(entitySet.getName(), entityClass);
+        ODataAtomEntityReader.EntityPlan plan = plans.atomEntityPlans.get(key);
+        if (plan == null) {
+            plan = new ODataAtomEntityReader.EntityPlan(entitySet, entityClass, mapper);
+            plans.atomEntityPlans.putIfAbsent(key, plan);
+        }
+        return plan;
+    }
+
+    public void clear() {
+        typeMappings.clear();
+        readProperties.clear();
+        edmPlans = null;
+    }
+
+    private EdmPlans getEdmPlans(Edm edm) {
+        EdmPlans plans = edmPlans;
+        if (plans == null || plans.edm != edm) {
+            plans = new EdmPlans(edm);
+            edmPlans = plans;
+        }
+        return plans;
+    }
+
+    private static Map<String, Object> getTimestampFields(Class<?> entityClass) {
+        return Arrays.stream(entityClass.getDeclaredFields())
+                .filter(f -> f.getType().isAssignableFrom(Timestamp.class))
+                .collect(Collectors.toMap(f -> f.getAnnotation(XmlElement.class).name(), Field::getType));
+    }
+
+    private static Map<String, Object> createTypeMappings(Class<?> entityClass) {
+        final Map<String, Object> typeMap = getTimestampFields(entityClass);
+        Arrays.stream(entityClass.getDeclaredFields())
+                .filter(f -> ODataEntity.class.isAssignableFrom(ODataEntityUtils.getGenericType(f)))
+                .map(f -> getTimestampFields(ODataEntityUtils.getGenericType(f)))
+                .forEach(typeMap::putAll);
+        return Collections.unmodifiableMap(typeMap);
+    }
+}
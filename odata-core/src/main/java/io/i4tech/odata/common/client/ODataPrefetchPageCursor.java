@@ -0,0 +1,149 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.i4tech.odata.common.client;
+
+import io.i4tech.odata.common.client.transport.ODataTransportRequest;
+import io.i4tech.odata.common.model.ODataEntity;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Page cursor requesting up to {@code prefetchDepth} pages ahead on the given executor. As the next link
+ * is only known once a page has been read, the request of page N+1 is issued right after page N is read.
+ */
+class ODataPrefetchPageCursor<E extends ODataEntity> extends ODataPageCursor<E> {
+
+    private final int prefetchDepth;
+
+    private final Executor executor;
+
+    private final Deque<CompletableFuture<ODataPage<E>>> pending = new ArrayDeque<>();
+
+    private final Set<ODataTransportRequest> activeRequests = ConcurrentHashMap.newKeySet();
+
+    private int scheduledCount;
+
+    ODataPrefetchPageCursor(ODataClient client, String entitySetName, Class<E> entityClass, String requestPath,
+                            int prefetchDepth, Executor executor) {
+        super(client, entitySetName, entityClass, requestPath);
+        this.prefetchDepth = prefetchDepth;
+        this.executor = executor;
+    }
+
+    @Override
+    protected ODataPage<E> readPage(String requestPath, int index) {
+        final Locale currentLocale = client.getRequestLocale();
+        client.setRequestLocale(locale);
+        final ODataTransportRequest request;
+        try {
+            request = client.getRequest(requestPath);
+        } finally {
+            client.setRequestLocale(currentLocale);
+        }
+        activeRequests.add(request);
+        try {
+            if (isClosed()) {
+                throw new ODataException("Page cursor closed.");
+            }
+            return client.readPage(entitySetName, entityClass, request, requestPath, index);
+        } finally {
+            activeRequests.remove(request);
+        }
+    }
+
+    private synchronized void schedule() {
+        while (!closed && nextPath != null && pending.size() < prefetchDepth) {
+            final String requestPath = nextPath;
+            final int index = scheduledCount++;
+            nextPath = null;
+            // the future is queued before the page is read, and the next path is set before the page is handed over,
+            // so that the cursor never looks exhausted in between
+            final CompletableFuture<ODataPage<E>> future = new CompletableFuture<>();
+            pending.add(future);
+            executor.execute(() -> {
+                try {
+                    final ODataPage<E> page = readPage(requestPath, index);
+                    onPageRead(page);
+                    future.complete(page);
+                } catch (RuntimeException | Error e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        }
+    }
+
+    private synchronized void onPageRead(ODataPage<E> page) {
+        nextPath = client.getNextLinkPath(page.getNextLink());
+        schedule();
+    }
+
+    @Override
+    public synchronized boolean hasNext() {
+        return !closed && (!pending.isEmpty() || nextPath != null);
+    }
+
+    @Override
+    public ODataPage<E> next() {
+        final CompletableFuture<ODataPage<E>> future;
+        synchronized (this) {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            schedule();
+            future = pending.poll();
+        }
+        final ODataPage<E> page;
+        try {
+            page = future.join();
+        } catch (CompletionException e) {
+            close();
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new ODataException(e);
+        }
+        synchronized (this) {
+            pageCount++;
+            nextLink = page.getNextLink();
+            schedule();
+        }
+        return page;
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            super.close();
+            pending.forEach(f -> f.cancel(true));
+            pending.clear();
+        }
+        activeRequests.forEach(ODataTransportRequest::abort);
+    }
+}
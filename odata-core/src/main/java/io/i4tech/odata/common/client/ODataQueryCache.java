@@ -0,0 +1,145 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.i4tech.odata.common.client;
+
+import io.i4tech.odata.common.cache.ODataCache;
+import io.i4tech.odata.common.cache.ODataCacheStats;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the payload of query results for the queries built with
+ * {@link io.i4tech.odata.common.operation.query.ODataQueryOperationBuilder#cached()}. Results are keyed by
+ * entity set, request path, language and authorization and are served without any request until their time
+ * to live expires. The store is bounded by the total size of the payloads; writes of the client to an entity set
+ * drop its results.
+ */
+public class ODataQueryCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+
+    private final ODataCache<String, byte[]> entries;
+
+    private final long defaultTtlMillis;
+
+    private final Map<String, Long> ttlMillis = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxEntries       maximum number of cached results
+     * @param maxBytes         maximum total size of the cached payloads
+     * @param defaultTtlMillis time to live of the results of entity sets without their own policy
+     */
+    public ODataQueryCache(int maxEntries, long maxBytes, long defaultTtlMillis) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache size in bytes must be positive.");
+        }
+        if (defaultTtlMillis <= 0) {
+            throw new IllegalArgumentException("Cache time to live must be positive.");
+        }
+        this.entries = new ODataCache<>(maxEntries, 0, maxBytes, content -> content.length);
+        this.defaultTtlMillis = defaultTtlMillis;
+    }
+
+    public ODataQueryCache(long defaultTtl, TimeUnit unit) {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES, unit.toMillis(defaultTtl));
+    }
+
+    /**
+     * Sets the time to live of the results of the entity set, 0 if its results are not cached.
+     */
+    public ODataQueryCache ttl(String entitySet, long ttl, TimeUnit unit) {
+        if (ttl < 0) {
+            throw new IllegalArgumentException("Cache time to live must not be negative.");
+        }
+        ttlMillis.put(entitySet, unit.toMillis(ttl));
+        return this;
+    }
+
+    public long getTtlMillis(String entitySet) {
+        return ttlMillis.getOrDefault(entitySet, defaultTtlMillis);
+    }
+
+    public static String getKey(String entitySet, String requestScope) {
+        return entitySet + "\n" + requestScope;
+    }
+
+    public byte[] get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Returns the generation of the entity set, to be passed to {@link #put(String, String, long, byte[])}
+     * when its request is sent.
+     */
+    public long getGeneration(String entitySet) {
+        return generations.computeIfAbsent(entitySet, s -> new AtomicLong()).get();
+    }
+
+    /**
+     * Caches the result, unless the entity set was written since the request was sent.
+     */
+    public void put(String entitySet, String key, long generation, byte[] content) {
+        final long ttl = getTtlMillis(entitySet);
+        if (ttl > 0) {
+            entries.put(key, content, ttl);
+            if (getGeneration(entitySet) != generation) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Drops the results of the entity set, including those of requests still in progress.
+     */
+    public void invalidate(String entitySet) {
+        generations.computeIfAbsent(entitySet, s -> new AtomicLong()).incrementAndGet();
+        final String prefix = getKey(entitySet, "");
+        entries.removeIf(key -> key.startsWith(prefix));
+    }
+
+    public void clear() {
+        generations.values().forEach(AtomicLong::incrementAndGet);
+        entries.clear();
+    }
+
+    /**
+     * Total size of the cached payloads in bytes.
+     */
+    public long getSize() {
+        return entries.getWeight();
+    }
+
+    public ODataCacheStats getStats() {
+        return entries.getStats();
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.i4tech.odata.common.client;
+
+import io.i4tech.odata.common.cache.ODataCache;
+import io.i4tech.odata.common.cache.ODataCacheStats;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the payload of read responses with their ETag and Last-Modified validators. Cached requests are sent
+ * as conditional requests and the cached payload is reused when the service answers 304 Not Modified.
+ * Entries are keyed by request URI, format, language and authorization, the cache can be shared by clients.
+ */
+public class ODataResponseCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+
+    private final ODataCache<String, Entry> entries;
+
+    private final AtomicLong notModified = new AtomicLong();
+
+    @Getter
+    public static class Entry {
+
+        private final byte[] content;
+
+        private final String etag;
+
+        private final String lastModified;
+
+        public Entry(byte[] content, String etag, String lastModified) {
+            this.content = content;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /**
+     * A read with its cache key and the entry it was made conditional with, if any.
+     */
+    @Getter
+    public static class CachedRead {
+
+        private final String key;
+
+        private final Entry entry;
+
+        public CachedRead(String key, Entry entry) {
+            this.key = key;
+            this.entry = entry;
+        }
+    }
+
+    /**
+     * @param maxEntries maximum number of cached responses
+     * @param maxBytes   maximum total size of the cached payloads
+     */
+    public ODataResponseCache(int maxEntries, long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache size in bytes must be positive.");
+        }
+        this.entries = new ODataCache<>(maxEntries, 0, maxBytes, entry -> entry.getContent().length);
+    }
+
+    public ODataResponseCache(int maxEntries) {
+        this(maxEntries, DEFAULT_MAX_BYTES);
+    }
+
+    public ODataResponseCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public Entry get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Caches the payload, responses without validators cannot be revalidated and are not cached.
+     */
+    public void put(String key, byte[] content, String etag, String lastModified) {
+        if (etag != null || lastModified != null) {
+            entries.put(key, new Entry(content, etag, lastModified));
+        } else {
+            entries.remove(key);
+        }
+    }
+
+    public void remove(String key) {
+        entries.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Total size of the cached payloads in bytes.
+     */
+    public long getSize() {
+        return entries.getWeight();
+    }
+
+    void notModified() {
+        notModified.incrementAndGet();
+    }
+
+    /**
+     * Number of responses served from the cache after the service answered 304 Not Modified.
+     */
+    public long getNotModifiedCount() {
+        return notModified.get();
+    }
+
+    /**
+     * Statistics of the cache lookups: a hit is a cached entry the request was made conditional with.
+     */
+    public ODataCacheStats getStats() {
+        return entries.getStats();
+    }
+}
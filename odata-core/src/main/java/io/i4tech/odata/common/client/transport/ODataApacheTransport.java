@@ -0,0 +1,270 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.i4tech.odata.common.client.transport;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.*;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.nio.client.HttpAsyncClient;
+import org.apache.http.pool.PoolStats;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Transport of Apache HttpClient 4, asynchronous requests are sent with HttpAsyncClient.
+ */
+public class ODataApacheTransport implements ODataTransport {
+
+    protected final HttpClient httpClient;
+
+    protected final boolean closeHttpClient;
+
+    protected final PoolingHttpClientConnectionManager connectionManager;
+
+    protected HttpAsyncClient httpAsyncClient;
+
+    protected final Supplier<CloseableHttpAsyncClient> httpAsyncClientFactory;
+
+    protected CloseableHttpAsyncClient createdHttpAsyncClient;
+
+    protected boolean closed;
+
+    /**
+     * Transport of clients owned by the caller, they are not closed with the transport. Without an asynchronous
+     * client the asynchronous requests run the blocking calls of the http client on the common pool.
+     */
+    public ODataApacheTransport(HttpClient httpClient, HttpAsyncClient httpAsyncClient) {
+        this.httpClient = httpClient;
+        this.closeHttpClient = false;
+        this.connectionManager = null;
+        this.httpAsyncClient = httpAsyncClient;
+        this.httpAsyncClientFactory = null;
+    }
+
+    /**
+     * Transport of an http client created for it, the client and its pool are closed with the transport.
+     *
+     * @param httpAsyncClient        asynchronous client owned by the caller, or null
+     * @param httpAsyncClientFactory creates the asynchronous client on first use if none is given,
+     *                               the created client is closed with the transport
+     */
+    public ODataApacheTransport(CloseableHttpClient httpClient, PoolingHttpClientConnectionManager connectionManager,
+                                HttpAsyncClient httpAsyncClient, Supplier<CloseableHttpAsyncClient> httpAsyncClientFactory) {
+        this.httpClient = httpClient;
+        this.closeHttpClient = true;
+        this.connectionManager = connectionManager;
+        this.httpAsyncClient = httpAsyncClient;
+        this.httpAsyncClientFactory = httpAsyncClientFactory;
+    }
+
+    public static HttpHost getProxyHost(Proxy proxy) {
+        if (proxy != null && proxy.address() instanceof InetSocketAddress) {
+            final InetSocketAddress address = (InetSocketAddress) proxy.address();
+            return new HttpHost(address.getHostString(), address.getPort());
+        }
+        return null;
+    }
+
+    protected synchronized HttpAsyncClient getHttpAsyncClient() {
+        if (closed) {
+            throw new IllegalStateException("Transport is closed.");
+        }
+        if (httpAsyncClient == null && httpAsyncClientFactory != null) {
+            createdHttpAsyncClient = httpAsyncClientFactory.get();
+            createdHttpAsyncClient.start();
+            httpAsyncClient = createdHttpAsyncClient;
+        }
+        return httpAsyncClient;
+    }
+
+    protected HttpRequestBase createRequest(ODataTransportRequest request) {
+        final HttpRequestBase httpRequest;
+        switch (request.getMethod()) {
+            case HttpGet.METHOD_NAME:
+                httpRequest = new HttpGet(request.getUri());
+                break;
+            case HttpPost.METHOD_NAME:
+                httpRequest = new HttpPost(request.getUri());
+                break;
+            case HttpPatch.METHOD_NAME:
+                httpRequest = new HttpPatch(request.getUri());
+                break;
+            case HttpPut.METHOD_NAME:
+                httpRequest = new HttpPut(request.getUri());
+                break;
+            case HttpDelete.METHOD_NAME:
+                httpRequest = new HttpDelete(request.getUri());
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported http method " + request.getMethod());
+        }
+        request.getHeaders().forEach(httpRequest::setHeader);
+        if (request.getBody() != null && httpRequest instanceof HttpEntityEnclosingRequest) {
+            // content set from bytes is sent with its length and repeatable, streams of unknown length are chunked
+            ((HttpEntityEnclosingRequest) httpRequest).setEntity(request.getBodyContent() != null
+                    ? new ByteArrayEntity(request.getBodyContent())
+                    : new InputStreamEntity(request.getBody(), request.getContentLength()));
+        }
+        request.setAbortHandler(httpRequest::abort);
+        return httpRequest;
+    }
+
+    @Override
+    public ODataTransportResponse execute(ODataTransportRequest request) throws IOException {
+        final HttpRequestBase httpRequest = createRequest(request);
+        try {
+            return new Response(httpRequest, httpClient.execute(httpRequest));
+        } catch (IOException | RuntimeException e) {
+            httpRequest.releaseConnection();
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<ODataTransportResponse> executeAsync(ODataTransportRequest request) {
+        final HttpAsyncClient client = getHttpAsyncClient();
+        if (client == null) {
+            return ODataTransport.super.executeAsync(request);
+        }
+        final HttpRequestBase httpRequest = createRequest(request);
+        final CompletableFuture<ODataTransportResponse> future = new CompletableFuture<>();
+        final Future<HttpResponse> execution = client.execute(httpRequest, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse result) {
+                future.complete(new Response(httpRequest, result));
+            }
+
+            @Override
+            public void failed(Exception e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void cancelled() {
+                future.cancel(false);
+            }
+        });
+        future.whenComplete((r, e) -> {
+            if (future.isCancelled()) {
+                execution.cancel(true);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public ODataPoolStats getPoolStats() {
+        if (connectionManager == null) {
+            return null;
+        }
+        final PoolStats stats = connectionManager.getTotalStats();
+        return new ODataPoolStats(stats.getLeased(), stats.getPending(), stats.getAvailable(), stats.getMax());
+    }
+
+    @Override
+    public void close() throws IOException {
+        final CloseableHttpAsyncClient asyncClient;
+        synchronized (this) {
+            closed = true;
+            asyncClient = createdHttpAsyncClient;
+            createdHttpAsyncClient = null;
+        }
+        try {
+            if (asyncClient != null) {
+                asyncClient.close();
+            }
+        } finally {
+            if (closeHttpClient) {
+                ((Closeable) httpClient).close();
+            }
+        }
+    }
+
+    protected static class Response implements ODataTransportResponse {
+
+        private final HttpRequestBase request;
+        private final HttpResponse response;
+
+        protected Response(HttpRequestBase request, HttpResponse response) {
+            this.request = request;
+            this.response = response;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return response.getStatusLine().getStatusCode();
+        }
+
+        @Override
+        public String getHeader(String name) {
+            final Header header = response.getFirstHeader(name);
+            return header != null ? header.getValue() : null;
+        }
+
+        @Override
+        @SuppressWarnings("squid:S1612") // Method reference for Header::getValue does not work with old httpclient versions
+        public List<String> getHeaders(String name) {
+            final Header[] headers = response.getHeaders(name);
+            if (headers == null) {
+                return Collections.emptyList();
+            }
+            return Arrays.stream(headers)
+                    .map(h -> h.getValue())
+                    .collect(Collectors.toList());
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            return response.getEntity() != null ? response.getEntity().getContent() : new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public void close() {
+            request.releaseConnection();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.i4tech.odata.common.client.transport;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Transport answering requests with a handler in the same process, without any network access.
+ * Intended for tests and benchmarks.
+ */
+public class ODataInMemoryTransport implements ODataTransport {
+
+    @FunctionalInterface
+    public interface Handler {
+        ODataTransportResponse handle(ODataTransportRequest request) throws IOException;
+    }
+
+    private final Handler handler;
+
+    private final List<ODataTransportRequest> requests = new CopyOnWriteArrayList<>();
+
+    public ODataInMemoryTransport(Handler handler) {
+        this.handler = handler;
+    }
+
+    public List<ODataTransportRequest> getRequests() {
+        return Collections.unmodifiableList(requests);
+    }
+
+    @Override
+    public ODataTransportResponse execute(ODataTransportRequest request) throws IOException {
+        requests.add(request);
+        if (request.isAborted()) {
+            throw new IOException("Request " + request + " aborted.");
+        }
+        return handler.handle(request);
+    }
+
+    @Override
+    public CompletableFuture<ODataTransportResponse> executeAsync(ODataTransportRequest request) {
+        final CompletableFuture<ODataTransportResponse> future = new CompletableFuture<>();
+        try {
+            future.complete(execute(request));
+        } catch (IOException | RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.i4tech.odata.common.client.transport;
+
+import lombok.Getter;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ODataTransportRequest {
+
+    @Getter
+    protected final String method;
+
+    @Getter
+    protected final String uri;
+
+    protected final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    @Getter
+    protected InputStream body;
+
+    @Getter
+    protected long contentLength = -1;
+
+    /**
+     * The content of a body set from bytes, which transports can send again without buffering the stream.
+     */
+    @Getter
+    protected byte[] bodyContent;
+
+    protected Runnable abortHandler;
+
+    protected volatile boolean aborted;
+
+    public ODataTransportRequest(String method, String uri) {
+        this.method = method;
+        this.uri = uri;
+    }
+
+    public Map<String, String> getHeaders() {
+        return Collections.unmodifiableMap(headers);
+    }
+
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    public void setHeader(String name, String value) {
+        headers.put(name, value);
+    }
+
+    public void removeHeader(String name) {
+        headers.remove(name);
+    }
+
+    public void setBody(InputStream body) {
+        setBody(body, -1);
+    }
+
+    public void setBody(InputStream body, long contentLength) {
+        this.body = body;
+        this.contentLength = contentLength;
+        this.bodyContent = null;
+    }
+
+    public void setBody(byte[] body) {
+        setBody(new ByteArrayInputStream(body), body.length);
+        this.bodyContent = body;
+    }
+
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     * Registers the action of the transport aborting the request in flight.
+     */
+    public synchronized void setAbortHandler(Runnable abortHandler) {
+        this.abortHandler = abortHandler;
+        if (aborted && abortHandler != null) {
+            abortHandler.run();
+        }
+    }
+
+    public synchronized void abort() {
+        aborted = true;
+        if (abortHandler != null) {
+            abortHandler.run();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return method + " " + uri;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.i4tech.odata.common.mapper;
+
+import io.i4tech.odata.common.model.ODataEntity;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Entity mapper binding the read properties with a binder compiled once per entity class, instead of
+ * converting them through the object mapper for every entity. Writes read the properties with the same binder.
+ * Generated mappings are still preferred when present.
+ */
+public class ODataCompiledEntityMapper extends ODataEntityMapper {
+
+    private final ConcurrentMap<Class<?>, ODataEntityBinder<?>> binders = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <E extends ODataEntity> ODataEntityBinder<E> getBinder(Class<E> entityClass) {
+        return (ODataEntityBinder<E>) binders.computeIfAbsent(entityClass, clz -> {
+            try {
+                return new ODataEntityBinder<>(entityClass, this::convertValue);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Could not create binder for entity " + entityClass.getName(), e);
+            }
+        });
+    }
+
+    @Override
+    public <E extends ODataEntity> E mapPropertiesToEntity(Map<String, Object> properties, Class<E> entityClass) {
+        final ODataGeneratedEntityMapping<E> mapping = getGeneratedMapping(entityClass);
+        return mapping != null ? mapping.read(properties) : getBinder(entityClass).bind(properties, this);
+    }
+
+    @Override
+    public <E extends ODataEntity> Map<String, Object> mapEntityToProperties(E data, Class<E> entityClass) {
+        final ODataGeneratedEntityMapping<E> mapping = getGeneratedMapping(entityClass);
+        if (mapping != null) {
+            return mapping.write(data);
+        }
+        final Map<String, Object> properties = new LinkedHashMap<>();
+        getBinder(entityClass).writeProperties(data, this, properties::put);
+        return properties;
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.i4tech.odata.common.mapper;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.i4tech.odata.common.model.ODataEntity;
+import io.i4tech.odata.common.model.ODataEnum;
+import io.i4tech.odata.common.util.ODataEntityUtils;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.datatype.XMLGregorianCalendar;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Copies the properties read by Olingo into a new entity with method handles resolved once per entity class,
+ * with the conversions the object mapper would apply to the same values. Readers creating entities without
+ * an intermediate property map set the properties one by one. Writes read the properties with the same handles.
+ */
+public class ODataEntityBinder<E extends ODataEntity> {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private static final Object UNCONVERTED = new Object();
+
+    private final Class<E> entityClass;
+
+    private final MethodHandle constructor;
+
+    private final Map<String, PropertyBinding> properties = new LinkedHashMap<>();
+
+    private final Map<String, PropertyBinding> propertiesIgnoreCase = new HashMap<>();
+
+    private final Map<String, NavigationBinding> navigations = new LinkedHashMap<>();
+
+    private static class PropertyBinding {
+
+        private final MethodHandle getter;
+
+        private final MethodHandle setter;
+
+        private final Function<Object, Object> converter;
+
+        private final Class<?> type;
+
+        PropertyBinding(MethodHandle getter, MethodHandle setter, Function<Object, Object> converter, Class<?> type) {
+            this.getter = getter;
+            this.setter = setter;
+            this.converter = converter;
+            this.type = type;
+        }
+    }
+
+    private static class NavigationBinding {
+
+        private final Class<? extends ODataEntity> entityClass;
+
+        private final MethodHandle getter;
+
+        private final MethodHandle setter;
+
+        private final boolean collection;
+
+        NavigationBinding(Class<? extends ODataEntity> entityClass, MethodHandle getter, MethodHandle setter, boolean collection) {
+            this.entityClass = entityClass;
+            this.getter = getter;
+            this.setter = setter;
+            this.collection = collection;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    ODataEntityBinder(Class<E> entityClass, BiFunction<Object, Class<?>, Object> fallbackConverter) throws ReflectiveOperationException {
+        this.entityClass = entityClass;
+        final Constructor<E> defaultConstructor = entityClass.getDeclaredConstructor();
+        defaultConstructor.setAccessible(true);
+        this.constructor = LOOKUP.unreflectConstructor(defaultConstructor).asType(MethodType.methodType(Object.class));
+
+        for (Class<?> clz = entityClass; clz != null && clz != Object.class; clz = clz.getSuperclass()) {
+            for (Field field : clz.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers()) || field.isSynthetic()) {
+                    continue;
+                }
+                field.setAccessible(true);
+                final XmlElement element = field.getAnnotation(XmlElement.class);
+                final String name = element != null ? element.name() : field.getName();
+                final MethodHandle getter = LOOKUP.unreflectGetter(field).asType(GETTER_TYPE);
+                final MethodHandle setter = LOOKUP.unreflectSetter(field).asType(SETTER_TYPE);
+                final Class<?> genericType = ODataEntityUtils.getGenericType(field);
+                if (ODataEntity.class.isAssignableFrom(genericType)) {
+                    navigations.putIfAbsent(name, new NavigationBinding((Class<? extends ODataEntity>) genericType,
+                            getter, setter, Collection.class.isAssignableFrom(field.getType())));
+                } else if (field.getAnnotation(JsonIgnore.class) == null) {
+                    final PropertyBinding binding = new PropertyBinding(getter, setter,
+                            createConverter(field.getType(), fallbackConverter), field.getType());
+                    properties.putIfAbsent(name, binding);
+                    propertiesIgnoreCase.putIfAbsent(name.toLowerCase(), binding);
+                    propertiesIgnoreCase.putIfAbsent(field.getName().toLowerCase(), binding);
+                }
+            }
+        }
+    }
+
+    private IllegalStateException bindingFailed(Throwable e) {
+        return new IllegalStateException("Could not bind entity " + entityClass.getName(), e);
+    }
+
+    private PropertyBinding getPropertyBinding(String name) {
+        final PropertyBinding binding = properties.get(name);
+        return binding != null ? binding : propertiesIgnoreCase.get(name.toLowerCase());
+    }
+
+    @SuppressWarnings("unchecked")
+    public E newEntity() {
+        try {
+            return (E) (Object) constructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw bindingFailed(e);
+        }
+    }
+
+    /**
+     * Returns the Java type of the property, or null if the entity has no such property.
+     */
+    public Class<?> getPropertyType(String name) {
+        final PropertyBinding binding = getPropertyBinding(name);
+        return binding != null ? binding.type : null;
+    }
+
+    public void setProperty(E entity, String name, Object value) {
+        final PropertyBinding binding = getPropertyBinding(name);
+        if (binding == null) {
+            return;
+        }
+        final Object converted = value == null ? null : binding.converter.apply(value);
+        if (converted != null || !binding.type.isPrimitive()) {
+            try {
+                binding.setter.invokeExact((Object) entity, converted);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw bindingFailed(e);
+            }
+        }
+    }
+
+    /**
+     * Returns the entity class of the navigation, or null if the entity has no such navigation.
+     */
+    public Class<? extends ODataEntity> getNavigationClass(String name) {
+        final NavigationBinding navigation = navigations.get(name);
+        return navigation != null ? navigation.entityClass : null;
+    }
+
+    /**
+     * Sets a single navigation or adds the entity to a collection navigation.
+     */
+    @SuppressWarnings("unchecked")
+    public void addNavigation(E entity, String name, ODataEntity navigationEntity) {
+        final NavigationBinding navigation = navigations.get(name);
+        if (navigation == null) {
+            return;
+        }
+        try {
+            if (navigation.collection) {
+                List<Object> list = (List<Object>) (Object) navigation.getter.invokeExact((Object) entity);
+                if (list == null) {
+                    list = new ArrayList<>();
+                    navigation.setter.invokeExact((Object) entity, (Object) list);
+                }
+                list.add(navigationEntity);
+            } else {
+                navigation.setter.invokeExact((Object) entity, (Object) navigationEntity);
+            }
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw bindingFailed(e);
+        }
+    }
+
+    /**
+     * Passes the set properties of the entity to the writer, with the values the object mapper would write for them.
+     * Navigations are not written.
+     */
+    public void writeProperties(E entity, ODataEntityMapper mapper, BiConsumer<String, Object> writer) {
+        for (Map.Entry<String, PropertyBinding> property : properties.entrySet()) {
+            final Object value;
+            try {
+                value = property.getValue().getter.invokeExact((Object) entity);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw bindingFailed(e);
+            }
+            if (value != null && !"".equals(value)) {
+                writer.accept(property.getKey(), toPropertyValue(value, mapper));
+            }
+        }
+    }
+
+    static Object toPropertyValue(Object value, ODataEntityMapper mapper) {
+        if (value instanceof ODataEnum) {
+            return ((ODataEnum) value).value();
+        } else if (value instanceof Enum) {
+            return ((Enum<?>) value).name();
+        } else if (value instanceof XMLGregorianCalendar) {
+            return ((XMLGregorianCalendar) value).toGregorianCalendar();
+        } else if (isSimpleValue(value)) {
+            return value;
+        }
+        return mapper.convertValue(value, Map.class);
+    }
+
+    private static boolean isSimpleValue(Object value) {
+        return value instanceof String || value instanceof Number || value instanceof Boolean || value instanceof Character
+                || value instanceof Date || value instanceof Calendar || value instanceof UUID || value instanceof byte[];
+    }
+
+    E bind(Map<String, Object> values, ODataCompiledEntityMapper mapper) {
+        final E entity = newEntity();
+        for (Map.Entry<String, Object> value : values.entrySet()) {
+            setProperty(entity, value.getKey(), value.getValue());
+        }
+        for (Map.Entry<String, NavigationBinding> navigation : navigations.entrySet()) {
+            final List<Map<String, Object>> entries = mapper.getNavigationEntries(values.get(navigation.getKey()));
+            if (entries != null) {
+                for (Map<String, Object> entry : entries) {
+                    addNavigation(entity, navigation.getKey(),
+                            mapper.mapPropertiesToEntity(entry, navigation.getValue().entityClass));
+                }
+            }
+        }
+        return entity;
+    }
+
+    @SuppressWarnings("rawtypes")
+    static Function<Object, Object> createConverter(Class<?> type, BiFunction<Object, Class<?>, Object> fallback) {
+        final Class<?> target = type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+        final Function<Object, Object> conversion;
+        if (target == String.class) {
+            conversion = v -> v instanceof Number || v instanceof Boolean ? String.valueOf(v) : UNCONVERTED;
+        } else if (target == UUID.class) {
+            conversion = v -> v instanceof String ? UUID.fromString((String) v) : UNCONVERTED;
+        } else if (target == Timestamp.class) {
+            conversion = v -> toMillis(v) != null ? new Timestamp(toMillis(v)) : UNCONVERTED;
+        } else if (target == Date.class) {
+            conversion = v -> toMillis(v) != null ? new Date(toMillis(v)) : UNCONVERTED;
+        } else if (target.isEnum()) {
+            final Map<String, Object> constants = new HashMap<>();
+            for (Object constant : target.getEnumConstants()) {
+                constants.put(constant instanceof ODataEnum ? ((ODataEnum) constant).value() : ((Enum) constant).name(), constant);
+            }
+            // unknown values are mapped to null, as by the object mapper
+            conversion = v -> constants.get(String.valueOf(v));
+        } else if (Number.class.isAssignableFrom(target)) {
+            conversion = createNumberConverter(target);
+        } else {
+            conversion = v -> UNCONVERTED;
+        }
+        return v -> {
+            if (target.isInstance(v)) {
+                return v;
+            }
+            final Object converted = conversion.apply(v);
+            return converted != UNCONVERTED ? converted : fallback.apply(v, type);
+        };
+    }
+
+    private static Long toMillis(Object value) {
+        if (value instanceof Calendar) {
+            return ((Calendar) value).getTimeInMillis();
+        } else if (value instanceof Date) {
+            return ((Date) value).getTime();
+        } else if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return null;
+    }
+
+    private static Function<Object, Object> createNumberConverter(Class<?> target) {
+        final Function<Number, Object> conversion;
+        if (target == Integer.class) {
+            conversion = Number::intValue;
+        } else if (target == Long.class) {
+            conversion = Number::longValue;
+        } else if (target == Short.class) {
+            conversion = Number::shortValue;
+        } else if (target == Byte.class) {
+            conversion = Number::byteValue;
+        } else if (target == Double.class) {
+            conversion = Number::doubleValue;
+        } else if (target == Float.class) {
+            conversion = Number::floatValue;
+        } else if (target == BigDecimal.class) {
+            conversion = n -> new BigDecimal(n.toString());
+        } else if (target == BigInteger.class) {
+            conversion = n -> new BigDecimal(n.toString()).toBigInteger();
+        } else {
+            return v -> UNCONVERTED;
+        }
+        return v -> v instanceof Number ? conversion.apply((Number) v) : UNCONVERTED;
+    }
+}
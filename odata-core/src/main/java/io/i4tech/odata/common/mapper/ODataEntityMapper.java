@@ -31,11 +31,15 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import io.i4tech.odata.common.model.ODataEntity;
 import io.i4tech.odata.common.util.ODataEntityUtils;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.olingo.odata2.api.ep.entry.ODataEntry;
 import org.apache.olingo.odata2.api.ep.feed.ODataFeed;
 
 import javax.xml.bind.annotation.XmlElement;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -46,6 +50,8 @@ public class ODataEntityMapper {
 
     private final Map<Class<?>, Map<String, Field>> entityClassFields = new HashMap<>();
 
+    private final ConcurrentMap<Class<?>, Optional<ODataGeneratedEntityMapping<?>>> generatedMappings = new ConcurrentHashMap<>();
+
     public ODataEntityMapper() {
         objectMapper = new ObjectMapper();
         objectMapper.configure(MapperFeature.ACCEPT_CASE_INSENSITIVE_PROPERTIES, true);
@@ -71,13 +77,31 @@ public class ODataEntityMapper {
         objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
     }
 
+    // Inline content is an ODataFeed/ODataEntry when read by Olingo, a list of maps/map when read from JSON
+    @SuppressWarnings("unchecked")
+    protected List<Map<String, Object>> getNavigationEntries(Object navigation) {
+        List<Map<String, Object>> entries = null;
+        if (navigation instanceof ODataFeed) {
+            entries = ((ODataFeed) navigation).getEntries().stream()
+                    .map(ODataEntry::getProperties)
+                    .collect(Collectors.toList());
+        } else if (navigation instanceof ODataEntry) {
+            entries = Collections.singletonList(((ODataEntry) navigation).getProperties());
+        } else if (navigation instanceof List) {
+            entries = (List<Map<String, Object>>) navigation;
+        } else if (navigation instanceof Map) {
+            entries = Collections.singletonList((Map<String, Object>) navigation);
+        }
+        return entries;
+    }
+
     protected void mapNavigationField(Map<String, Object> properties, ODataEntity entity, Field navField) {
         final String propName = navField.getAnnotation(XmlElement.class).name();
         final Class<?> navClz = ODataEntityUtils.getGenericType(navField);
-        final ODataFeed feed = (ODataFeed)properties.get(propName);
-        if (feed != null) {
-            feed.getEntries().forEach(nav -> {
-                final Object navigationEntity = mapPropertiesToEntity(nav.getProperties(), (Class) navClz);
+        final List<Map<String, Object>> entries = getNavigationEntries(properties.get(propName));
+        if (entries != null) {
+            entries.forEach(nav -> {
+                final Object navigationEntity = mapPropertiesToEntity(nav, (Class) navClz);
                 try {
                     navField.setAccessible(true);
                     if (Collection.class.isAssignableFrom(navField.getType())) {
@@ -115,7 +139,54 @@ public class ODataEntityMapper {
         return mappedValue;
     }
 
+    /**
+     * Returns the mapping generated for the entity class, or null if the entity has none and is mapped reflectively.
+     */
+    @SuppressWarnings("unchecked")
+    protected <E extends ODataEntity> ODataGeneratedEntityMapping<E> getGeneratedMapping(Class<E> entityClass) {
+        return (ODataGeneratedEntityMapping<E>) generatedMappings
+                .computeIfAbsent(entityClass, this::createGeneratedMapping)
+                .orElse(null);
+    }
+
+    private Optional<ODataGeneratedEntityMapping<?>> createGeneratedMapping(Class<?> entityClass) {
+        final Class<?> mappingClass;
+        try {
+            mappingClass = Class.forName(entityClass.getName() + "$" + ODataGeneratedEntityMapping.CLASS_NAME,
+                    true, entityClass.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return Optional.empty();
+        }
+        // properties of an entity base class are not known to the generated code
+        for (Class<?> clz = entityClass.getSuperclass(); clz != ODataEntity.class && clz != null; clz = clz.getSuperclass()) {
+            if (Arrays.stream(clz.getDeclaredFields()).anyMatch(f -> !Modifier.isStatic(f.getModifiers()))) {
+                log.debug("Entity {} is mapped reflectively, base class {} has properties.", entityClass.getName(), clz.getName());
+                return Optional.empty();
+            }
+        }
+        try {
+            return Optional.of((ODataGeneratedEntityMapping<?>) mappingClass
+                    .asSubclass(ODataGeneratedEntityMapping.class)
+                    .getConstructor(ODataEntityMapper.class)
+                    .newInstance(this));
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            log.warn("Could not create generated mapping of entity {}.", entityClass.getName(), e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Converts a single value with the object mapper.
+     */
+    protected Object convertValue(Object value, Class<?> type) {
+        return objectMapper.convertValue(value, type);
+    }
+
     public <E extends ODataEntity> E mapPropertiesToEntity(Map<String, Object> properties, Class<E> entityClass) {
+        final ODataGeneratedEntityMapping<E> mapping = getGeneratedMapping(entityClass);
+        if (mapping != null) {
+            return mapping.read(properties);
+        }
         final E entity = objectMapper.convertValue(properties, entityClass);
         ODataEntityUtils.getNavigationFields(entityClass)
                 .forEach(f -> mapNavigationField(properties, entity, f));
@@ -124,6 +195,10 @@ public class ODataEntityMapper {
 
 
     public <E extends ODataEntity> Map<String, Object> mapEntityToProperties(E data, Class<E> entityClass) {
+        final ODataGeneratedEntityMapping<E> mapping = getGeneratedMapping(entityClass);
+        if (mapping != null) {
+            return mapping.write(data);
+        }
         final Map<String, Object> dataMap = new HashMap<>();
         objectMapper.convertValue(data, Map.class).forEach((k, v) ->
             dataMap.put(
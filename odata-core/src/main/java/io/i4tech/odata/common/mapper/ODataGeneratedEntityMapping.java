@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.i4tech.odata.common.mapper;
+
+import io.i4tech.odata.common.model.ODataEntity;
+
+import javax.xml.bind.annotation.XmlElement;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Base class of the entity mappings emitted by the generator as nested class {@value #CLASS_NAME} of the
+ * generated entities. The generated code reads and writes the properties through the accessors of the entity,
+ * the values are converted with converters resolved once per property.
+ */
+public abstract class ODataGeneratedEntityMapping<E extends ODataEntity> {
+
+    public static final String CLASS_NAME = "ODataMapping";
+
+    private final ODataEntityMapper mapper;
+
+    private final Map<String, Function<Object, Object>> converters = new HashMap<>();
+
+    private final Map<String, Object> primitiveDefaults = new HashMap<>();
+
+    protected ODataGeneratedEntityMapping(Class<E> entityClass, ODataEntityMapper mapper) {
+        this.mapper = mapper;
+        for (Field field : entityClass.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()
+                    || ODataEntity.class.isAssignableFrom(field.getType()) || Collection.class.isAssignableFrom(field.getType())) {
+                continue;
+            }
+            final XmlElement element = field.getAnnotation(XmlElement.class);
+            final String name = element != null ? element.name() : field.getName();
+            converters.put(name, ODataEntityBinder.createConverter(field.getType(), mapper::convertValue));
+            if (field.getType().isPrimitive()) {
+                primitiveDefaults.put(name, Array.get(Array.newInstance(field.getType(), 1), 0));
+            }
+        }
+    }
+
+    public abstract E read(Map<String, Object> properties);
+
+    public abstract Map<String, Object> write(E entity);
+
+    /**
+     * Returns the converted value of a property, the default value of primitive properties if it is null.
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> T value(Map<String, Object> properties, String name) {
+        final Object value = properties.get(name);
+        final Function<Object, Object> converter = converters.get(name);
+        final Object converted = value == null || converter == null ? value : converter.apply(value);
+        return (T) (converted != null ? converted : primitiveDefaults.get(name));
+    }
+
+    protected <N extends ODataEntity> N entity(Map<String, Object> properties, String name, Class<N> entityClass) {
+        final List<Map<String, Object>> entries = mapper.getNavigationEntries(properties.get(name));
+        return entries == null || entries.isEmpty()
+                ? null
+                : mapper.mapPropertiesToEntity(entries.get(entries.size() - 1), entityClass);
+    }
+
+    protected <N extends ODataEntity> void entities(List<N> list, Map<String, Object> properties, String name, Class<N> entityClass) {
+        final List<Map<String, Object>> entries = mapper.getNavigationEntries(properties.get(name));
+        if (entries != null) {
+            for (Map<String, Object> entry : entries) {
+                list.add(mapper.mapPropertiesToEntity(entry, entityClass));
+            }
+        }
+    }
+
+    /**
+     * Adds a property to write, skipping null and empty values as the object mapper does.
+     */
+    protected void put(Map<String, Object> properties, String name, Object value) {
+        if (value == null || "".equals(value)) {
+            return;
+        }
+        properties.put(name, ODataEntityBinder.toPropertyValue(value, mapper));
+    }
+}
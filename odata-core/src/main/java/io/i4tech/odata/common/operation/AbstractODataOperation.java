@@ -25,12 +25,14 @@
 package io.i4tech.odata.common.operation;
 
 import io.i4tech.odata.common.model.ODataEntity;
+import io.i4tech.odata.common.client.ODataBatchRequest;
 import io.i4tech.odata.common.client.ODataClient;
 import io.i4tech.odata.common.client.ODataResponse;
 import lombok.Getter;
 import org.apache.commons.lang3.NotImplementedException;
 
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 
 public abstract class AbstractODataOperation<E extends ODataEntity> implements ODataOperation<E> {
 
@@ -56,8 +58,27 @@ public abstract class AbstractODataOperation<E extends ODataEntity> implements O
         return response;
     }
 
+    public CompletableFuture<ODataResponse<E>> executeAsync() {
+        throw new NotImplementedException("Asynchronous execution not implemented for this operation.");
+    }
+
+    public CompletableFuture<ODataResponse<E>> executeAsync(Locale locale) {
+        // the locale is captured when the asynchronous call is started
+        Locale clientLocale = client.getRequestLocale();
+        client.setRequestLocale(locale);
+        try {
+            return executeAsync();
+        } finally {
+            client.setRequestLocale(clientLocale);
+        }
+    }
+
     public ODataResponse<E> execute(String path) {
         throw new NotImplementedException("Raw execute method not implemented for this operation.");
     }
 
+    public ODataBatchRequest<E> toBatchRequest() {
+        throw new NotImplementedException("Batch execution not implemented for this operation.");
+    }
+
 }
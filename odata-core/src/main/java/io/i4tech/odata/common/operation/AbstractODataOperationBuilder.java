@@ -28,6 +28,7 @@ import io.i4tech.odata.common.client.ODataClient;
 import io.i4tech.odata.common.model.ODataEntity;
 import io.i4tech.odata.common.model.ODataKey;
 import io.i4tech.odata.common.model.ODataKeyFields;
+import io.i4tech.odata.common.model.ODataNavigations;
 import io.i4tech.odata.common.util.ODataEntityUtils;
 
 import java.util.ArrayList;
@@ -56,6 +57,22 @@ public abstract class AbstractODataOperationBuilder<E extends ODataEntity> imple
         }
     }
 
+    protected class ODataReferencePathElement extends ODataPathElement {
+        private final String contentId;
+        private final ODataNavigations<?> navigation;
+
+        ODataReferencePathElement(String contentId, ODataNavigations<?> navigation) {
+            super(null, null);
+            this.contentId = contentId;
+            this.navigation = navigation;
+        }
+
+        @Override
+        public String toString() {
+            return "$" + contentId + "/" + navigation.value();
+        }
+    }
+
     protected Class<? extends ODataEntity> entityClass;
     protected ODataClient client;
     protected List<ODataPathElement> path = new ArrayList<>();
@@ -80,6 +97,16 @@ public abstract class AbstractODataOperationBuilder<E extends ODataEntity> imple
         return (ODataOperationBuilder<R>) this;
     }
 
+    // References an entity created in the same $batch changeset by its Content-ID
+    protected <R extends ODataEntity> ODataOperationBuilder<R> reference(String contentId, ODataNavigations<?> navigation, Class<R> resourceClass) {
+        if (!path.isEmpty()) {
+            throw new ODataOperationBuilderException("Content-ID reference must be the first path element.");
+        }
+        this.entityClass = resourceClass;
+        path.add(new ODataReferencePathElement(contentId, navigation));
+        return (ODataOperationBuilder<R>) this;
+    }
+
     protected <R extends ODataEntity> ODataOperationBuilder<R> collection(String collectionName, Class<R> resourceClass) {
         this.entityClass = resourceClass;
         this.collectionName = collectionName;
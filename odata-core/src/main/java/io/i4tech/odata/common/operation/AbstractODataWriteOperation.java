@@ -27,14 +27,24 @@ package io.i4tech.odata.common.operation;
 
 import io.i4tech.odata.common.model.ODataEntity;
 import io.i4tech.odata.common.client.ODataClient;
+import io.i4tech.odata.common.client.ODataWriteResponseMode;
 
 public abstract class AbstractODataWriteOperation<E extends ODataEntity> extends AbstractODataOperation<E> {
 
     protected E data;
 
+    // response mode of the operation, the client's mode is used if not set
+    protected ODataWriteResponseMode responseMode;
+
     protected AbstractODataWriteOperation(Class<E> entityClass, ODataClient client, String requestPath, E data) {
         super(entityClass, client, requestPath);
         this.data = data;
     }
 
+    protected AbstractODataWriteOperation(Class<E> entityClass, ODataClient client, String requestPath, E data,
+                                          ODataWriteResponseMode responseMode) {
+        this(entityClass, client, requestPath, data);
+        this.responseMode = responseMode;
+    }
+
 }
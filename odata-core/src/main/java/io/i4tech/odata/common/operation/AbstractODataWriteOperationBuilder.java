@@ -25,15 +25,23 @@
 package io.i4tech.odata.common.operation;
 
 
+import io.i4tech.odata.common.client.ODataWriteResponseMode;
 import io.i4tech.odata.common.model.ODataEntity;
 
 public abstract class AbstractODataWriteOperationBuilder<E extends ODataEntity> extends AbstractODataOperationBuilder<E> {
 
     protected E data;
 
+    protected ODataWriteResponseMode responseMode;
+
     protected ODataOperationBuilder<E> data(E data) {
         this.data = data;
         return this;
     }
 
+    protected ODataOperationBuilder<E> responseMode(ODataWriteResponseMode responseMode) {
+        this.responseMode = responseMode;
+        return this;
+    }
+
 }
@@ -0,0 +1,71 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.i4tech.odata.common.operation.batch;
+
+import io.i4tech.odata.common.client.ODataBatchRequest;
+import io.i4tech.odata.common.client.ODataBatchResponse;
+import io.i4tech.odata.common.client.ODataClient;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Executes a list of operations as $batch requests, each one holding at most {@code maxPartsPerBatch} parts.
+ * Changesets are not split between requests.
+ */
+public class ODataBatchOperation {
+
+    public static final int DEFAULT_MAX_PARTS_PER_BATCH = 100;
+
+    protected final ODataClient client;
+
+    protected final List<ODataBatchRequest<?>> requests;
+
+    protected final int maxPartsPerBatch;
+
+    public ODataBatchOperation(ODataClient client, List<ODataBatchRequest<?>> requests, int maxPartsPerBatch) {
+        this.client = client;
+        this.requests = requests;
+        this.maxPartsPerBatch = maxPartsPerBatch;
+    }
+
+    public ODataBatchResponse execute() {
+        return client.batch(requests, maxPartsPerBatch);
+    }
+
+    public ODataBatchResponse execute(Locale locale) {
+        Locale clientLocale = client.getRequestLocale();
+        client.setRequestLocale(locale);
+        try {
+            return execute();
+        } finally {
+            client.setRequestLocale(clientLocale);
+        }
+    }
+
+    public static ODataBatchOperationBuilder builder() {
+        return new ODataBatchOperationBuilder();
+    }
+}
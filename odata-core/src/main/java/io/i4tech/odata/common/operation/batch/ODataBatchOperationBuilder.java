@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.i4tech.odata.common.operation.batch;
+
+import io.i4tech.odata.common.client.ODataBatchRequest;
+import io.i4tech.odata.common.client.ODataClient;
+import io.i4tech.odata.common.operation.AbstractODataOperation;
+import io.i4tech.odata.common.operation.ODataOperationBuilderException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class ODataBatchOperationBuilder {
+
+    protected ODataClient client;
+    protected List<ODataBatchRequest<?>> requests = new ArrayList<>();
+    protected int maxPartsPerBatch = ODataBatchOperation.DEFAULT_MAX_PARTS_PER_BATCH;
+
+    ODataBatchOperationBuilder() {
+    }
+
+    public ODataBatchOperationBuilder client(ODataClient client) {
+        if (this.client != null) {
+            throw new ODataOperationBuilderException("Only one client can be added to one request.");
+        }
+        this.client = client;
+        return this;
+    }
+
+    public ODataBatchOperationBuilder operation(AbstractODataOperation<?> operation) {
+        requests.add(operation.toBatchRequest());
+        return this;
+    }
+
+    public ODataBatchOperationBuilder operations(Collection<? extends AbstractODataOperation<?>> operations) {
+        operations.forEach(this::operation);
+        return this;
+    }
+
+    public ODataBatchOperationBuilder changeSet(ODataChangeSet changeSet) {
+        requests.addAll(changeSet.getRequests());
+        return this;
+    }
+
+    public ODataBatchOperationBuilder maxPartsPerBatch(int maxPartsPerBatch) {
+        if (maxPartsPerBatch < 1) {
+            throw new ODataOperationBuilderException("Batch must contain at least one part.");
+        }
+        this.maxPartsPerBatch = maxPartsPerBatch;
+        return this;
+    }
+
+    public ODataBatchOperation build() {
+        if (client == null) {
+            throw new ODataOperationBuilderException("Client is required for batch operation.");
+        }
+        return new ODataBatchOperation(client, new ArrayList<>(requests), maxPartsPerBatch);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.i4tech.odata.common.operation.batch;
+
+import io.i4tech.odata.common.client.ODataBatchRequest;
+import io.i4tech.odata.common.operation.AbstractODataWriteOperation;
+import io.i4tech.odata.common.operation.ODataOperationBuilderException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+public class ODataChangeSetBuilder {
+
+    protected final String changeSetId = UUID.randomUUID().toString();
+    protected final List<ODataBatchRequest<?>> requests = new ArrayList<>();
+    protected final Set<String> contentIds = new HashSet<>();
+
+    ODataChangeSetBuilder() {
+    }
+
+    public ODataChangeSetBuilder operation(AbstractODataWriteOperation<?> operation) {
+        requests.add(operation.toBatchRequest().inChangeSet(changeSetId, null));
+        return this;
+    }
+
+    /**
+     * Adds the operation with a Content-ID, subsequent operations of the changeset can refer to its result as {@code $contentId}.
+     */
+    public ODataChangeSetBuilder operation(AbstractODataWriteOperation<?> operation, String contentId) {
+        if (!contentIds.add(contentId)) {
+            throw new ODataOperationBuilderException("Content-ID '" + contentId + "' is already used in the changeset.");
+        }
+        requests.add(operation.toBatchRequest().inChangeSet(changeSetId, contentId));
+        return this;
+    }
+
+    public ODataChangeSet build() {
+        if (requests.isEmpty()) {
+            throw new ODataOperationBuilderException("Changeset must contain at least one operation.");
+        }
+        return new ODataChangeSet(new ArrayList<>(requests));
+    }
+}
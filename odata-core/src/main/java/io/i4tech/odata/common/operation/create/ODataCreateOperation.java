@@ -26,8 +26,14 @@ package io.i4tech.odata.common.operation.create;
 
 import io.i4tech.odata.common.model.ODataEntity;
 import io.i4tech.odata.common.operation.AbstractODataWriteOperation;
+import io.i4tech.odata.common.util.ODataEntityUtils;
+import org.apache.olingo.odata2.api.commons.ODataHttpMethod;
+import io.i4tech.odata.common.client.ODataBatchRequest;
 import io.i4tech.odata.common.client.ODataClient;
 import io.i4tech.odata.common.client.ODataResponse;
+import io.i4tech.odata.common.client.ODataWriteResponseMode;
+
+import java.util.concurrent.CompletableFuture;
 
 public class ODataCreateOperation<E extends ODataEntity> extends AbstractODataWriteOperation<E> {
 
@@ -35,8 +41,27 @@ public class ODataCreateOperation<E extends ODataEntity> extends AbstractODataWr
         super(entityClass, client, requestPath, data);
     }
 
+    public ODataCreateOperation(Class<E> entityClass, ODataClient client, String requestPath, E data, ODataWriteResponseMode responseMode) {
+        super(entityClass, client, requestPath, data, responseMode);
+    }
+
     public ODataResponse<E> execute() {
-        return client.create(this.entityClass, this.requestPath, this.data);
+        return responseMode == null
+                ? client.create(this.entityClass, this.requestPath, this.data)
+                : client.create(this.entityClass, this.requestPath, this.data, responseMode);
+    }
+
+    @Override
+    public CompletableFuture<ODataResponse<E>> executeAsync() {
+        return responseMode == null
+                ? client.createAsync(this.entityClass, this.requestPath, this.data)
+                : client.createAsync(this.entityClass, this.requestPath, this.data, responseMode);
+    }
+
+    @Override
+    public ODataBatchRequest<E> toBatchRequest() {
+        return new ODataBatchRequest<>(ODataHttpMethod.POST, this.requestPath,
+                ODataEntityUtils.getEntitySetName(this.entityClass), this.entityClass, this.data);
     }
 
     public static <E extends ODataEntity> ODataCreateOperationBuilder<E> builder() {
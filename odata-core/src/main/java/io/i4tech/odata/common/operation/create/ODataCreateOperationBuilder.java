@@ -25,9 +25,11 @@
 package io.i4tech.odata.common.operation.create;
 
 import io.i4tech.odata.common.client.ODataClient;
+import io.i4tech.odata.common.client.ODataWriteResponseMode;
 import io.i4tech.odata.common.model.ODataEntity;
 import io.i4tech.odata.common.model.ODataKey;
 import io.i4tech.odata.common.model.ODataKeyFields;
+import io.i4tech.odata.common.model.ODataNavigations;
 import io.i4tech.odata.common.operation.AbstractODataWriteOperationBuilder;
 
 import java.util.stream.Collectors;
@@ -57,17 +59,27 @@ public class ODataCreateOperationBuilder<E extends ODataEntity> extends Abstract
         return (ODataCreateOperationBuilder<R>) super.path(resourceClass);
     }
 
+    @Override
+    public <R extends ODataEntity> ODataCreateOperationBuilder<R> reference(String contentId, ODataNavigations<?> navigation, Class<R> resourceClass) {
+        return (ODataCreateOperationBuilder<R>) super.reference(contentId, navigation, resourceClass);
+    }
+
     @Override
     public ODataCreateOperationBuilder<E> data(E data) {
         return (ODataCreateOperationBuilder<E>) super.data(data);
     }
 
+    @Override
+    public ODataCreateOperationBuilder<E> responseMode(ODataWriteResponseMode responseMode) {
+        return (ODataCreateOperationBuilder<E>) super.responseMode(responseMode);
+    }
+
     @Override
     public ODataCreateOperation<E> build() {
         final String uri = "/" + path.stream()
                 .map(ODataPathElement::toString)
                 .collect(Collectors.joining("/"));
-         return new ODataCreateOperation(entityClass, client, uri, data);
+         return new ODataCreateOperation(entityClass, client, uri, data, responseMode);
     }
 }
 
@@ -24,10 +24,15 @@
 
 package io.i4tech.odata.common.operation.delete;
 
+import io.i4tech.odata.common.client.ODataBatchRequest;
 import io.i4tech.odata.common.client.ODataClient;
 import io.i4tech.odata.common.client.ODataResponse;
 import io.i4tech.odata.common.model.ODataEntity;
 import io.i4tech.odata.common.operation.AbstractODataWriteOperation;
+import io.i4tech.odata.common.util.ODataEntityUtils;
+import org.apache.olingo.odata2.api.commons.ODataHttpMethod;
+
+import java.util.concurrent.CompletableFuture;
 
 public class ODataDeleteOperation<E extends ODataEntity> extends AbstractODataWriteOperation<E> {
 
@@ -39,6 +44,17 @@ public class ODataDeleteOperation<E extends ODataEntity> extends AbstractODataWr
         return client.delete(this.entityClass, this.requestPath);
     }
 
+    @Override
+    public CompletableFuture<ODataResponse<E>> executeAsync() {
+        return client.deleteAsync(this.entityClass, this.requestPath);
+    }
+
+    @Override
+    public ODataBatchRequest<E> toBatchRequest() {
+        return new ODataBatchRequest<>(ODataHttpMethod.DELETE, this.requestPath,
+                ODataEntityUtils.getEntitySetName(this.entityClass), this.entityClass, null);
+    }
+
     public static <E extends ODataEntity> ODataDeleteOperationBuilder<E> builder() {
         return new ODataDeleteOperationBuilder<>();
     }
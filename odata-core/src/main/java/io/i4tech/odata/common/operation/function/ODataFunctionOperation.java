@@ -25,12 +25,17 @@
 package io.i4tech.odata.common.operation.function;
 
 
+import io.i4tech.odata.common.client.ODataBatchRequest;
 import io.i4tech.odata.common.client.ODataClient;
 import io.i4tech.odata.common.client.ODataResponse;
 import io.i4tech.odata.common.model.ODataEntity;
 import io.i4tech.odata.common.operation.AbstractODataOperation;
+import io.i4tech.odata.common.util.ODataEntityUtils;
+import org.apache.commons.lang3.NotImplementedException;
+import org.apache.olingo.odata2.api.commons.ODataHttpMethod;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public class ODataFunctionOperation<E extends ODataEntity> extends AbstractODataOperation<E> {
 
@@ -46,6 +51,20 @@ public class ODataFunctionOperation<E extends ODataEntity> extends AbstractOData
         return client.function(this.entityClass, this.requestPath, this.postParameters);
     }
 
+    @Override
+    public CompletableFuture<ODataResponse<E>> executeAsync() {
+        return client.functionAsync(this.entityClass, this.requestPath, this.postParameters);
+    }
+
+    @Override
+    public ODataBatchRequest<E> toBatchRequest() {
+        if (!postParameters.isEmpty()) {
+            throw new NotImplementedException("OData POST function calls are not implemented.");
+        }
+        return new ODataBatchRequest<>(ODataHttpMethod.GET, this.requestPath,
+                ODataEntityUtils.getEntitySetName(this.entityClass), this.entityClass, null);
+    }
+
     public static <E extends ODataEntity> ODataFunctionOperationBuilder<E> builder() {
         return new ODataFunctionOperationBuilder<>();
     }
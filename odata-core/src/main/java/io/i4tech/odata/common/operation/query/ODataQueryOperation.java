@@ -24,24 +24,61 @@
 
 package io.i4tech.odata.common.operation.query;
 
+import io.i4tech.odata.common.client.ODataBatchRequest;
 import io.i4tech.odata.common.client.ODataClient;
+import io.i4tech.odata.common.client.ODataPageCursor;
 import io.i4tech.odata.common.client.ODataResponse;
 import io.i4tech.odata.common.model.ODataEntity;
 import io.i4tech.odata.common.operation.AbstractODataOperation;
+import org.apache.olingo.odata2.api.commons.ODataHttpMethod;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public class ODataQueryOperation<E extends ODataEntity> extends AbstractODataOperation<E> {
 
     protected final String collectionName;
 
+    protected final boolean cached;
+
     public ODataQueryOperation(String collectionName, Class<E> entityClass, ODataClient client, String requestPath) {
+        this(collectionName, entityClass, client, requestPath, false);
+    }
+
+    public ODataQueryOperation(String collectionName, Class<E> entityClass, ODataClient client, String requestPath, boolean cached) {
         super(entityClass, client, requestPath);
         this.collectionName = collectionName;
+        this.cached = cached;
     }
 
     public ODataResponse<E> execute() {
+        if (cached) {
+            return client.readCached(collectionName, this.entityClass, requestPath);
+        }
         return client.read(collectionName, this.entityClass, requestPath);
     }
 
+    @Override
+    public CompletableFuture<ODataResponse<E>> executeAsync() {
+        if (cached) {
+            return client.readCachedAsync(collectionName, this.entityClass, requestPath);
+        }
+        return client.readAsync(collectionName, this.entityClass, requestPath);
+    }
+
+    public Stream<E> stream() {
+        return client.stream(collectionName, this.entityClass, requestPath);
+    }
+
+    public ODataPageCursor<E> pages() {
+        return client.pages(collectionName, this.entityClass, requestPath);
+    }
+
+    @Override
+    public ODataBatchRequest<E> toBatchRequest() {
+        return new ODataBatchRequest<>(ODataHttpMethod.GET, requestPath, collectionName, this.entityClass, null);
+    }
+
     public static <E extends ODataEntity> ODataQueryOperationBuilder<E> builder() {
         return new ODataQueryOperationBuilder<>();
     }
@@ -60,6 +60,7 @@ public class ODataQueryOperationBuilder<E extends ODataEntity> extends AbstractO
     private Boolean inlineCount;
     private Integer skip;
     private Integer top;
+    private boolean cached;
 
     @Override
     public ODataQueryOperationBuilder<E> client(ODataClient client) {
@@ -207,6 +208,14 @@ public class ODataQueryOperationBuilder<E extends ODataEntity> extends AbstractO
         return this;
     }
 
+    /**
+     * Serves the result from the query cache of the client, if it has one.
+     */
+    public ODataQueryOperationBuilder<E> cached() {
+        this.cached = true;
+        return this;
+    }
+
     public ODataQueryOperationBuilder<E> queryString(String queryString) {
         if (this.queryString != null) {
             throw new ODataOperationBuilderException("Only one query string can be added to one request.");
@@ -307,7 +316,7 @@ public class ODataQueryOperationBuilder<E extends ODataEntity> extends AbstractO
 
         final String entitySetName = StringUtils.isNotBlank(collectionName) ?
                 collectionName : entityClass.getAnnotation(ODataEntitySet.class).name();
-        return new ODataQueryOperation(entitySetName, entityClass, client, urlBuilder.toString());
+        return new ODataQueryOperation(entitySetName, entityClass, client, urlBuilder.toString(), cached);
     }
 }
 
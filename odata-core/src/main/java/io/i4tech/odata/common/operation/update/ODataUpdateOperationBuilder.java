@@ -25,6 +25,7 @@
 package io.i4tech.odata.common.operation.update;
 
 import io.i4tech.odata.common.client.ODataClient;
+import io.i4tech.odata.common.client.ODataWriteResponseMode;
 import io.i4tech.odata.common.model.ODataEntity;
 import io.i4tech.odata.common.model.ODataKey;
 import io.i4tech.odata.common.model.ODataKeyFields;
@@ -57,12 +58,17 @@ public class ODataUpdateOperationBuilder<E extends ODataEntity> extends Abstract
         return (ODataUpdateOperationBuilder<E>) super.data(data);
     }
 
+    @Override
+    public ODataUpdateOperationBuilder<E> responseMode(ODataWriteResponseMode responseMode) {
+        return (ODataUpdateOperationBuilder<E>) super.responseMode(responseMode);
+    }
+
     @Override
     public ODataUpdateOperation<E> build() {
         final String uri = "/" + path.stream()
                 .map(ODataPathElement::toString)
                 .collect(Collectors.joining("/"));
-        return new ODataUpdateOperation(entityClass, client, uri, data);
+        return new ODataUpdateOperation(entityClass, client, uri, data, responseMode);
     }
 }
 
@@ -0,0 +1,87 @@
+package io.i4tech.odata.common.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ODataCacheTest {
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        final ODataCache<String, Integer> cache = new ODataCache<>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        Assert.assertEquals(Integer.valueOf(1), cache.get("a"));
+        cache.put("c", 3);
+
+        Assert.assertNull(cache.get("b"));
+        Assert.assertEquals(Integer.valueOf(1), cache.get("a"));
+        Assert.assertEquals(Integer.valueOf(3), cache.get("c"));
+
+        final ODataCacheStats stats = cache.getStats();
+        Assert.assertEquals(3, stats.getHits());
+        Assert.assertEquals(1, stats.getMisses());
+        Assert.assertEquals(1, stats.getEvictions());
+        Assert.assertEquals(2, stats.getSize());
+        Assert.assertEquals(0.75, stats.getHitRate(), 0.001);
+    }
+
+    @Test
+    public void testTimeToLive() {
+        final AtomicLong time = new AtomicLong();
+        final ODataCache<String, Integer> cache = new ODataCache<String, Integer>(10, 100) {
+            @Override
+            protected long currentTimeMillis() {
+                return time.get();
+            }
+        };
+        cache.put("a", 1);
+        cache.put("b", 2, 500);
+        cache.put("c", 3, 0);
+
+        time.set(99);
+        Assert.assertEquals(Integer.valueOf(1), cache.get("a"));
+        time.set(100);
+        Assert.assertNull(cache.get("a"));
+        Assert.assertEquals(Integer.valueOf(2), cache.get("b"));
+        time.set(10000);
+        Assert.assertNull(cache.get("b"));
+        Assert.assertEquals(Integer.valueOf(3), cache.get("c"));
+        Assert.assertEquals(2, cache.getStats().getEvictions());
+    }
+
+    @Test
+    public void testRemoveIf() {
+        final ODataCache<String, Integer> cache = new ODataCache<>(10);
+        cache.put("a1", 1);
+        cache.put("a2", 2);
+        cache.put("b1", 3);
+        cache.removeIf(k -> k.startsWith("a"));
+
+        Assert.assertEquals(1, cache.size());
+        Assert.assertEquals(Integer.valueOf(3), cache.get("b1"));
+    }
+
+    @Test
+    public void testWeightBound() {
+        final ODataCache<String, String> cache = new ODataCache<>(10, 0, 6, String::length);
+        cache.put("a", "aaa");
+        cache.put("b", "bb");
+        cache.put("c", "cc");
+
+        Assert.assertNull(cache.get("a"));
+        Assert.assertEquals(4, cache.getWeight());
+        cache.put("b", "b");
+        Assert.assertEquals(3, cache.getWeight());
+        cache.removeIf("c"::equals);
+        Assert.assertEquals(1, cache.getWeight());
+        cache.clear();
+        Assert.assertEquals(0, cache.getWeight());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSize() {
+        new ODataCache<String, Integer>(0);
+    }
+}
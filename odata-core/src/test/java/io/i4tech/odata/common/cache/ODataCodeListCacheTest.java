@@ -0,0 +1,135 @@
+package io.i4tech.odata.common.cache;
+
+import io.i4tech.odata.common.client.ODataClient;
+import io.i4tech.odata.common.client.ODataException;
+import io.i4tech.odata.common.client.ODataFormat;
+import io.i4tech.odata.common.client.transport.ODataInMemoryResponse;
+import io.i4tech.odata.common.client.transport.ODataInMemoryTransport;
+import io.i4tech.odata.common.client.transport.ODataTransportRequest;
+import io.i4tech.odata.test.model.employee.EmployeeLanguageCode;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.i4tech.odata.common.client.transport.ODataInMemoryFixture.*;
+
+public class ODataCodeListCacheTest {
+
+    private static final String GERMAN_FEED = "{\"d\":{\"results\":[{\"Code\":\"DE\",\"Description\":\"Deutsch\"},"
+            + "{\"Code\":\"EN\",\"Description\":\"Englisch\"}]}}";
+
+    private final AtomicBoolean unavailable = new AtomicBoolean();
+
+    private ODataInMemoryTransport transport;
+
+    private ODataClient client;
+
+    private ODataInMemoryResponse route(ODataTransportRequest request) {
+        if (request.getUri().contains("$metadata")) {
+            return resource(200, "/employee.edmx");
+        } else if (unavailable.get()) {
+            return new ODataInMemoryResponse(503, "{}");
+        } else if ("de".equals(request.getHeader("Accept-Language"))) {
+            return new ODataInMemoryResponse(200, GERMAN_FEED);
+        }
+        return resource(200, "/employee-languagecode-feed.json");
+    }
+
+    private long codeListRequests() {
+        return transport.getRequests().stream().filter(r -> r.getUri().contains("EmployeeLanguageCodeCollection")).count();
+    }
+
+    @Before
+    public void setup() {
+        transport = new ODataInMemoryTransport(this::route);
+        client = clientBuilder(transport)
+                .format(ODataFormat.JSON)
+                .language(Locale.ENGLISH)
+                .build();
+    }
+
+    @Test
+    public void testLoadedOnce() {
+        final ODataCodeListCache cache = new ODataCodeListCache(client);
+
+        Assert.assertEquals("English", cache.getDescription(EmployeeLanguageCode.ENGLISH));
+        Assert.assertEquals("French", cache.getDescription(EmployeeLanguageCode.FRENCH));
+        Assert.assertNull(cache.getDescription(EmployeeLanguageCode.CHINESE));
+        Assert.assertTrue(cache.isValid(EmployeeLanguageCode.GERMAN));
+        Assert.assertFalse(cache.isValid(EmployeeLanguageCode.CHINESE));
+        Assert.assertEquals(3, cache.getCodeList("EmployeeLanguageCodeCollection").size());
+        Assert.assertEquals(1, codeListRequests());
+    }
+
+    @Test
+    public void testLocale() {
+        final ODataCodeListCache cache = new ODataCodeListCache(client);
+        cache.preload(Collections.singletonList("EmployeeLanguageCodeCollection"), Arrays.asList(Locale.ENGLISH, Locale.GERMAN));
+
+        Assert.assertEquals("Englisch", cache.getDescription(EmployeeLanguageCode.ENGLISH, Locale.GERMANY));
+        Assert.assertEquals("English", cache.getDescription(EmployeeLanguageCode.ENGLISH));
+        client.setRequestLocale(Locale.GERMAN);
+        Assert.assertEquals("Deutsch", cache.getDescription(EmployeeLanguageCode.GERMAN));
+        Assert.assertEquals(2, codeListRequests());
+    }
+
+    @Test
+    public void testLoadFailure() {
+        final ODataCodeListCache cache = new ODataCodeListCache(client);
+        unavailable.set(true);
+        try {
+            cache.getCodeList(EmployeeLanguageCode.class, null);
+            Assert.fail();
+        } catch (ODataException e) {
+            // failures are not cached
+        }
+        unavailable.set(false);
+        Assert.assertEquals("German", cache.getDescription(EmployeeLanguageCode.GERMAN));
+    }
+
+    @Test
+    public void testRefresh() {
+        final ODataCodeListCache cache = new ODataCodeListCache(client);
+        final Map<String, String> codeList = cache.getCodeList(EmployeeLanguageCode.class, null);
+
+        cache.refresh();
+        Assert.assertEquals(2, codeListRequests());
+        Assert.assertNotSame(codeList, cache.getCodeList(EmployeeLanguageCode.class, null));
+        Assert.assertEquals(codeList, cache.getCodeList(EmployeeLanguageCode.class, null));
+
+        // the previous values are served while the service is unavailable
+        unavailable.set(true);
+        cache.refresh();
+        Assert.assertEquals("English", cache.getDescription(EmployeeLanguageCode.ENGLISH));
+    }
+
+    @Test
+    public void testScheduledRefresh() throws Exception {
+        try (ODataCodeListCache cache = new ODataCodeListCache(client, 20, TimeUnit.MILLISECONDS)) {
+            cache.getCodeList(EmployeeLanguageCode.class, null);
+            final long timeout = System.currentTimeMillis() + 5000;
+            while (codeListRequests() < 3 && System.currentTimeMillis() < timeout) {
+                Thread.sleep(10);
+            }
+            Assert.assertTrue(codeListRequests() >= 3);
+            Assert.assertEquals("English", cache.getDescription(EmployeeLanguageCode.ENGLISH));
+        }
+    }
+
+    @Test
+    public void testEntitySetName() {
+        Assert.assertEquals("EmployeeLanguageCodeCollection", ODataCodeListCache.getEntitySetName(EmployeeLanguageCode.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRefreshInterval() {
+        new ODataCodeListCache(client, -1, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,66 @@
+package io.i4tech.odata.common.client;
+
+import io.i4tech.odata.common.client.transport.ODataInMemoryResponse;
+import io.i4tech.odata.common.client.transport.ODataInMemoryTransport;
+import io.i4tech.odata.common.mapper.ODataCompiledEntityMapper;
+import io.i4tech.odata.common.mapper.ODataEntityMapper;
+import io.i4tech.odata.test.model.employee.Employee;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static io.i4tech.odata.common.client.transport.ODataInMemoryFixture.*;
+
+/**
+ * Compares the Olingo and the direct Atom read path on a large feed, run manually:
+ * {@code java ... ODataAtomEntityReaderBenchmark [entries] [iterations]}.
+ */
+public class ODataAtomEntityReaderBenchmark {
+
+    // Repeats the first entry (with its inline skills) of the test feed
+    private static byte[] createFeed(int entries) {
+        final String feed = resourceString("/employee-feed.xml");
+        final int start = feed.indexOf("<entry");
+        final int end = feed.indexOf("\n    </entry>", start) + "\n    </entry>".length();
+        final StringBuilder content = new StringBuilder(feed.substring(0, start));
+        for (int i = 0; i < entries; i++) {
+            content.append(feed, start, end).append('\n');
+        }
+        return content.append("</feed>").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ODataClient client(byte[] metadata, byte[] feed, ODataEntityMapper mapper, boolean direct) {
+        final ODataClientBuilder builder = clientBuilder(new ODataInMemoryTransport(request -> new ODataInMemoryResponse(200,
+                request.getUri().contains("$metadata") ? metadata : feed)))
+                .mapper(mapper);
+        return direct ? builder.directAtomReader().build() : builder.build();
+    }
+
+    private static long run(ODataClient client, int iterations) {
+        final long start = System.nanoTime();
+        long entities = 0;
+        for (int i = 0; i < iterations; i++) {
+            entities += client.read("EmployeeCollection", Employee.class, "EmployeeCollection").getResultList().size();
+        }
+        if (entities == 0) {
+            throw new IllegalStateException("No entities read.");
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    public static void main(String[] args) {
+        final int entries = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        final int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        final byte[] metadata = resource("/employee.edmx");
+        final byte[] feed = createFeed(entries);
+
+        final ODataClient olingo = client(metadata, feed, new ODataEntityMapper(), false);
+        final ODataClient direct = client(metadata, feed, new ODataCompiledEntityMapper(), true);
+
+        // warm up both paths before measuring
+        run(olingo, iterations);
+        run(direct, iterations);
+        System.out.printf("%d entries x %d reads (%d KB): olingo %d ms, direct %d ms%n",
+                entries, iterations, feed.length / 1024, run(olingo, iterations), run(direct, iterations));
+    }
+}
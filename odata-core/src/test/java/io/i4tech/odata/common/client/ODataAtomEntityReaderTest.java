@@ -0,0 +1,83 @@
+package io.i4tech.odata.common.client;
+
+import io.i4tech.odata.common.client.transport.ODataInMemoryFixture;
+import io.i4tech.odata.common.client.transport.ODataInMemoryResponse;
+import io.i4tech.odata.common.client.transport.ODataInMemoryTransport;
+import io.i4tech.odata.common.client.transport.ODataTransportRequest;
+import io.i4tech.odata.common.mapper.ODataCompiledEntityMapper;
+import io.i4tech.odata.common.mapper.ODataEntityMapper;
+import io.i4tech.odata.test.model.employee.Employee;
+import io.i4tech.odata.test.model.employee.EmployeeLanguageCode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static io.i4tech.odata.common.client.transport.ODataInMemoryFixture.*;
+
+public class ODataAtomEntityReaderTest {
+
+    private static ODataInMemoryResponse route(ODataTransportRequest request) {
+        final String uri = request.getUri();
+        if (uri.contains("$metadata")) {
+            return resource(200, "/employee.edmx");
+        } else if (uri.contains("$skiptoken=2")) {
+            return resource(200, "/employee-feed-page2.xml");
+        } else if (uri.contains("id1")) {
+            return resource(200, "/employee-entry.xml");
+        }
+        return resource(200, "/employee-feed.xml");
+    }
+
+    private static ODataClientBuilder clientBuilder(ODataEntityMapper mapper) {
+        return ODataInMemoryFixture.clientBuilder(new ODataInMemoryTransport(ODataAtomEntityReaderTest::route))
+                .mapper(mapper);
+    }
+
+    private final ODataClient olingoClient = clientBuilder(new ODataEntityMapper()).build();
+
+    private final ODataClient directClient = clientBuilder(new ODataCompiledEntityMapper()).directAtomReader().build();
+
+    @Test
+    public void testReadSameAsOlingo() {
+        final List<Employee> expected = olingoClient.read("EmployeeCollection", Employee.class, "EmployeeCollection").getResultList();
+        final List<Employee> employees = directClient.read("EmployeeCollection", Employee.class, "EmployeeCollection").getResultList();
+
+        Assert.assertEquals(expected, employees);
+        Assert.assertEquals(3, employees.size());
+        Assert.assertEquals(EmployeeLanguageCode.ENGLISH, employees.get(0).getLanguageCode());
+        Assert.assertEquals(Timestamp.class, employees.get(0).getEntityLastChangedOn().getClass());
+        Assert.assertEquals("skill1", employees.get(0).getEmployeeSkills().get(0).getSkillID());
+        Assert.assertNull(employees.get(1).getEmployeeUUID());
+    }
+
+    @Test
+    public void testPageMetadata() throws IOException {
+        try (ODataPageCursor<Employee> pages = directClient.pages("EmployeeCollection", Employee.class, "EmployeeCollection")) {
+            final ODataPage<Employee> first = pages.next();
+            Assert.assertEquals(2, first.getEntities().size());
+            Assert.assertEquals(Long.valueOf(3), first.getInlineCount());
+            Assert.assertEquals("https://myservice.domain.com/EmployeeCollection?$skiptoken=2", first.getNextLink());
+        }
+        try (Stream<Employee> stream = directClient.stream("EmployeeCollection", Employee.class, "EmployeeCollection")) {
+            Assert.assertEquals(3, stream.collect(Collectors.toList()).size());
+        }
+    }
+
+    @Test
+    public void testReadEntry() {
+        final Employee expected = olingoClient.get(Employee.class, "EmployeeCollection('id1')").getSingleResult();
+        final Employee employee = directClient.get(Employee.class, "EmployeeCollection('id1')").getSingleResult();
+        Assert.assertEquals(expected, employee);
+        Assert.assertEquals("id1", employee.getObjectID());
+    }
+
+    @Test(expected = ODataClientBuilderException.class)
+    public void testRequiresCompiledMapper() {
+        clientBuilder(new ODataEntityMapper()).directAtomReader().build();
+    }
+}
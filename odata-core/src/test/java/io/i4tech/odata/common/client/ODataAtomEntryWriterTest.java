@@ -0,0 +1,86 @@
+package io.i4tech.odata.common.client;
+
+import io.i4tech.odata.common.client.transport.ODataInMemoryResponse;
+import io.i4tech.odata.common.client.transport.ODataInMemoryTransport;
+import io.i4tech.odata.common.client.transport.ODataTransportRequest;
+import io.i4tech.odata.common.mapper.ODataCompiledEntityMapper;
+import io.i4tech.odata.common.mapper.ODataEntityMapper;
+import io.i4tech.odata.test.model.employee.Employee;
+import io.i4tech.odata.test.model.employee.EmployeeLanguageCode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static io.i4tech.odata.common.client.transport.ODataInMemoryFixture.*;
+
+public class ODataAtomEntryWriterTest {
+
+    private static final Pattern PROPERTY = Pattern.compile("<d:(\\w+)>([^<]*)</d:\\1>");
+
+    private static final Employee EMPLOYEE = Employee.builder()
+            .objectID("id1")
+            .firstName("first & <name>")
+            .languageCode(EmployeeLanguageCode.ENGLISH)
+            .entityLastChangedOn(new Timestamp(1600000000123L))
+            .build();
+
+    private static String writeUpdate(ODataEntityMapper mapper, boolean directAtomWriter) throws Exception {
+        final ODataInMemoryTransport transport = new ODataInMemoryTransport(request -> request.getUri().contains("$metadata")
+                ? resource(200, "/employee.edmx")
+                : new ODataInMemoryResponse(204, "").header(ODataClient.X_CSRF_TOKEN, CSRF_TOKEN));
+        final ODataClientBuilder builder = clientBuilder(transport).mapper(mapper);
+        if (directAtomWriter) {
+            builder.directAtomWriter();
+        }
+        builder.build().update(Employee.class, "EmployeeCollection('id1')", EMPLOYEE);
+
+        final ODataTransportRequest patch = transport.getRequests().stream()
+                .filter(r -> r.getBodyContent() != null)
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+        Assert.assertEquals(patch.getBodyContent().length, patch.getContentLength());
+        return new String(patch.getBodyContent(), StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, String> properties(String entry) {
+        final Map<String, String> properties = new TreeMap<>();
+        final Matcher matcher = PROPERTY.matcher(entry);
+        while (matcher.find()) {
+            properties.put(matcher.group(1), matcher.group(2));
+        }
+        return properties;
+    }
+
+    @Test
+    public void testWriteEntryAsOlingo() throws Exception {
+        final String olingo = writeUpdate(new ODataEntityMapper(), false);
+        final String direct = writeUpdate(new ODataCompiledEntityMapper(), true);
+
+        Assert.assertTrue(direct.contains("<entry xmlns=\"http://www.w3.org/2005/Atom\""));
+        Assert.assertTrue(direct.contains("xml:base=\"EmployeeCollection\""));
+        Assert.assertTrue(direct.contains("<content type=\"application/xml\"><m:properties>"));
+        Assert.assertEquals(4, properties(olingo).size());
+        Assert.assertEquals(properties(olingo), properties(direct));
+        Assert.assertEquals("first &amp; &lt;name>", properties(direct).get("FirstName"));
+    }
+
+    @Test
+    public void testCompiledMapperWritesAsObjectMapper() throws Exception {
+        Assert.assertEquals(properties(writeUpdate(new ODataEntityMapper(), true)),
+                properties(writeUpdate(new ODataCompiledEntityMapper(), true)));
+    }
+
+    @Test(expected = ODataClientBuilderException.class)
+    public void testDirectWriterRequiresAtom() {
+        clientBuilder()
+                .format(ODataFormat.JSON)
+                .directAtomWriter()
+                .build();
+    }
+}
@@ -0,0 +1,193 @@
+package io.i4tech.odata.common.client;
+
+import io.i4tech.odata.common.operation.create.ODataCreateOperation;
+import io.i4tech.odata.common.operation.query.ODataQueryOperation;
+import io.i4tech.odata.test.model.employee.Employee;
+import io.i4tech.odata.test.model.employee.EmployeeLanguageCode;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.nio.client.HttpAsyncClient;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.i4tech.odata.common.client.transport.ODataInMemoryFixture.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class ODataClientAsyncTest {
+
+    @Mock
+    private HttpClient httpClient;
+
+    @Mock
+    private HttpAsyncClient httpAsyncClient;
+
+    private ODataClient client;
+
+    private final List<HttpUriRequest> requests = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger callbacks = new AtomicInteger();
+
+    private final AtomicInteger csrfFailures = new AtomicInteger();
+
+    private static HttpResponse response(int status, String content) {
+        final HttpResponse response = mock(HttpResponse.class, RETURNS_DEEP_STUBS);
+        when(response.getStatusLine().getStatusCode()).thenReturn(status);
+        when(response.getHeaders(ODataClient.X_CSRF_TOKEN)).thenReturn(new Header[]{new BasicHeader(ODataClient.X_CSRF_TOKEN,
+                status == 403 ? ODataClient.X_CSRF_TOKEN_REQUIRED : CSRF_TOKEN)});
+        try {
+            when(response.getEntity().getContent()).thenAnswer(i -> new ByteArrayInputStream(content.startsWith("/")
+                    ? resource(content)
+                    : content.getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return response;
+    }
+
+    private HttpResponse respond(HttpUriRequest request) {
+        requests.add(request);
+        final String uri = request.getURI().toString();
+        if (uri.contains("$metadata")) {
+            return response(200, "/employee.edmx");
+        } else if (uri.contains("$skiptoken=2")) {
+            return response(200, "/employee-feed-page2.json");
+        } else if (uri.contains("unknown")) {
+            return response(404, "/error.json");
+        } else if ("POST".equals(request.getMethod())) {
+            return csrfFailures.getAndDecrement() > 0 ? response(403, "{}") : response(201, "/employee-entry.json");
+        } else if (uri.endsWith("EmployeeCollection")) {
+            return response(200, "/employee-feed.json");
+        }
+        return response(200, "{}");
+    }
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() throws IOException {
+        when(httpClient.execute(any(HttpUriRequest.class))).thenAnswer(invocation -> respond(invocation.getArgument(0)));
+        when(httpAsyncClient.execute(any(HttpUriRequest.class), any(FutureCallback.class))).thenAnswer(invocation -> {
+            final HttpUriRequest request = invocation.getArgument(0);
+            final FutureCallback<HttpResponse> callback = invocation.getArgument(1);
+            final CompletableFuture<HttpResponse> future = CompletableFuture.supplyAsync(() -> respond(request));
+            future.thenAccept(callback::completed);
+            return future;
+        });
+
+        final Executor callbackExecutor = command -> {
+            callbacks.incrementAndGet();
+            command.run();
+        };
+        client = clientBuilder()
+                .httpClient(httpClient)
+                .httpAsyncClient(httpAsyncClient)
+                .callbackExecutor(callbackExecutor)
+                .format(ODataFormat.JSON)
+                .build();
+    }
+
+    private Employee newEmployee() {
+        return Employee.builder()
+                .firstName("firstName4")
+                .lastName("lastName4")
+                .languageCode(EmployeeLanguageCode.ENGLISH)
+                .build();
+    }
+
+    @Test
+    public void testReadAsync() throws Exception {
+        final CompletableFuture<ODataResponse<Employee>> future = ODataQueryOperation.<Employee>builder()
+                .client(client)
+                .path(Employee.class)
+                .build()
+                .executeAsync(Locale.GERMAN);
+
+        final List<Employee> employees = future.get(5, TimeUnit.SECONDS).getResultList();
+        Assert.assertEquals(3, employees.size());
+        Assert.assertEquals("id1", employees.get(0).getObjectID());
+        Assert.assertEquals("id3", employees.get(2).getObjectID());
+
+        // metadata and first page are executed asynchronously, remaining page is read on the callback executor
+        verify(httpAsyncClient, times(2)).execute(any(HttpUriRequest.class), any());
+        verify(httpClient, times(1)).execute(any(HttpUriRequest.class));
+        Assert.assertEquals(2, callbacks.get());
+        requests.forEach(r -> Assert.assertEquals("de", r.getFirstHeader(HttpHeaders.ACCEPT_LANGUAGE).getValue()));
+        Assert.assertEquals(client.getRequestLocale(), Locale.getDefault());
+    }
+
+    @Test
+    public void testCreateAsync() throws Exception {
+        final ODataResponse<Employee> response = ODataCreateOperation.<Employee>builder()
+                .client(client)
+                .path(Employee.class)
+                .data(newEmployee())
+                .build()
+                .executeAsync()
+                .get(5, TimeUnit.SECONDS);
+
+        Assert.assertEquals("id4", response.getSingleResult().getObjectID());
+        final HttpUriRequest post = requests.stream().filter(r -> "POST".equals(r.getMethod())).findFirst().orElse(null);
+        Assert.assertNotNull(post);
+        Assert.assertEquals(CSRF_TOKEN, post.getFirstHeader(ODataClient.X_CSRF_TOKEN).getValue());
+        verify(httpClient, never()).execute(any(HttpUriRequest.class));
+    }
+
+    @Test
+    public void testCsrfRetryAsync() throws Exception {
+        csrfFailures.set(1);
+        final ODataResponse<Employee> response = client.createAsync(Employee.class, "EmployeeCollection", newEmployee())
+                .get(5, TimeUnit.SECONDS);
+
+        Assert.assertEquals("id4", response.getSingleResult().getObjectID());
+        Assert.assertEquals(2, requests.stream().filter(r -> "POST".equals(r.getMethod())).count());
+    }
+
+    @Test
+    public void testErrorAsync() throws Exception {
+        try {
+            client.getAsync(Employee.class, "EmployeeCollection('unknown')").get(5, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof ODataException);
+            Assert.assertTrue(e.getCause().getMessage().contains("[SY/530]: Employee not found"));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCancelAbortsRequest() throws Exception {
+        client.loadEdm();
+        final Future<HttpResponse> pending = mock(Future.class);
+        when(httpAsyncClient.execute(any(HttpUriRequest.class), any(FutureCallback.class))).thenReturn(pending);
+
+        final CompletableFuture<ODataResponse<Employee>> future = client.readAsync("EmployeeCollection", Employee.class, "EmployeeCollection");
+        Assert.assertFalse(future.isDone());
+
+        future.cancel(true);
+        verify(pending).cancel(true);
+        Assert.assertEquals(0, callbacks.get());
+    }
+}
@@ -0,0 +1,167 @@
+package io.i4tech.odata.common.client;
+
+import io.i4tech.odata.common.operation.create.ODataCreateOperation;
+import io.i4tech.odata.test.model.employee.Employee;
+import io.i4tech.odata.test.model.employee.EmployeeLanguageCode;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.message.BasicHeader;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.i4tech.odata.common.client.transport.ODataInMemoryFixture.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class ODataClientJsonTest {
+
+    @Mock
+    private HttpClient httpClient;
+
+    private ODataClient client;
+
+    private final Map<String, HttpUriRequest> requests = new HashMap<>();
+
+    private final Map<String, String> requestBodies = new HashMap<>();
+
+    private static HttpResponse response(int status, String content) throws IOException {
+        final HttpResponse response = mock(HttpResponse.class, RETURNS_DEEP_STUBS);
+        when(response.getStatusLine().getStatusCode()).thenReturn(status);
+        when(response.getHeaders(ODataClient.X_CSRF_TOKEN)).thenReturn(new Header[]{new BasicHeader(ODataClient.X_CSRF_TOKEN, CSRF_TOKEN)});
+        when(response.getEntity().getContent()).thenAnswer(i -> new ByteArrayInputStream(content.startsWith("/")
+                ? resource(content)
+                : content.getBytes(StandardCharsets.UTF_8)));
+        return response;
+    }
+
+    @Before
+    public void setup() throws IOException {
+        when(httpClient.execute(any(HttpUriRequest.class))).thenAnswer(invocation -> {
+            final HttpUriRequest request = invocation.getArgument(0);
+            final String uri = request.getURI().toString();
+            requests.put(request.getMethod() + " " + uri, request);
+            if (request instanceof HttpEntityEnclosingRequest) {
+                requestBodies.put(uri, IOUtils.toString(((HttpEntityEnclosingRequest) request).getEntity().getContent(), StandardCharsets.UTF_8));
+            }
+            if (uri.contains("$metadata")) {
+                return response(200, "/employee.edmx");
+            } else if (uri.contains("$count")) {
+                return response(200, "3");
+            } else if (uri.contains("$skiptoken=2")) {
+                return response(200, "/employee-feed-page2.json");
+            } else if (uri.contains("unknown")) {
+                return response(404, "/error.json");
+            } else if ("POST".equals(request.getMethod())) {
+                return response(201, "/employee-entry.json");
+            } else if (uri.endsWith("EmployeeCollection")) {
+                return response(200, "/employee-feed.json");
+            }
+            return response(200, "{}");
+        });
+
+        client = clientBuilder()
+                .httpClient(httpClient)
+                .format(ODataFormat.JSON)
+                .build();
+    }
+
+    @Test
+    public void testReadFeed() {
+        final ODataResponse<Employee> response = client.read("EmployeeCollection", Employee.class, "EmployeeCollection");
+
+        final List<Employee> employees = response.getResultList();
+        Assert.assertEquals(3, employees.size());
+        Assert.assertEquals(3, response.getTotalCount());
+        Assert.assertEquals("id1", employees.get(0).getObjectID());
+        Assert.assertEquals(EmployeeLanguageCode.ENGLISH, employees.get(0).getLanguageCode());
+        Assert.assertNotNull(employees.get(0).getEmployeeUUID());
+        Assert.assertNotNull(employees.get(0).getBirthDate());
+        Assert.assertNotNull(employees.get(0).getEntityLastChangedOn());
+        Assert.assertEquals(1, employees.get(0).getEmployeeSkills().size());
+        Assert.assertEquals("skill1", employees.get(0).getEmployeeSkills().get(0).getSkillID());
+        Assert.assertNull(employees.get(1).getBirthDate());
+        Assert.assertEquals("id3", employees.get(2).getObjectID());
+
+        Assert.assertEquals(ODataFormat.JSON.getContentType(), requests.get("GET https://myservice.domain.com/EmployeeCollection")
+                .getFirstHeader(HttpHeaders.ACCEPT).getValue());
+        Assert.assertEquals("application/xml", requests.get("GET https://myservice.domain.com/$metadata")
+                .getFirstHeader(HttpHeaders.ACCEPT).getValue());
+    }
+
+    @Test
+    public void testJsonMatchesAtom() {
+        final List<Employee> json = client.read("EmployeeCollection", Employee.class, "EmployeeCollection").getResultList();
+
+        final HttpClient atomHttpClient = mock(HttpClient.class);
+        try {
+            when(atomHttpClient.execute(any(HttpUriRequest.class))).thenAnswer(invocation -> {
+                final String uri = ((HttpUriRequest) invocation.getArgument(0)).getURI().toString();
+                return response(200, uri.contains("$metadata") ? "/employee.edmx"
+                        : uri.contains("$skiptoken=2") ? "/employee-feed-page2.xml" : "/employee-feed.xml");
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        final List<Employee> atom = clientBuilder()
+                .httpClient(atomHttpClient)
+                .build()
+                .read("EmployeeCollection", Employee.class, "EmployeeCollection")
+                .getResultList();
+
+        Assert.assertEquals(atom, json);
+    }
+
+    @Test
+    public void testCount() {
+        final ODataResponse<Employee> response = client.read("EmployeeCollection", Employee.class, "EmployeeCollection/$count");
+        Assert.assertEquals("3", response.getResultValue());
+    }
+
+    @Test
+    public void testCreate() {
+        final ODataResponse<Employee> response = ODataCreateOperation.<Employee>builder()
+                .client(client)
+                .path(Employee.class)
+                .data(Employee.builder()
+                        .firstName("firstName4")
+                        .lastName("lastName4")
+                        .languageCode(EmployeeLanguageCode.ENGLISH)
+                        .build())
+                .build()
+                .execute();
+
+        Assert.assertEquals("id4", response.getSingleResult().getObjectID());
+        final String body = requestBodies.get("https://myservice.domain.com/EmployeeCollection");
+        Assert.assertTrue(body.startsWith("{"));
+        Assert.assertTrue(body.contains("\"FirstName\":\"firstName4\""));
+        Assert.assertTrue(body.contains("\"LanguageCode\":\"EN\""));
+        Assert.assertFalse(body.contains("EmployeeSkills"));
+    }
+
+    @Test
+    public void testJsonError() {
+        try {
+            client.get(Employee.class, "EmployeeCollection('unknown')");
+            Assert.fail();
+        } catch (ODataException e) {
+            Assert.assertTrue(e.getMessage().contains("[SY/530]: Employee not found"));
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package io.i4tech.odata.common.client;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpServer;
+import io.i4tech.odata.common.client.transport.ODataInMemoryFixture;
+import io.i4tech.odata.common.client.transport.ODataInMemoryResponse;
+import io.i4tech.odata.common.client.transport.ODataInMemoryTransport;
+import io.i4tech.odata.common.client.transport.ODataApacheTransport;
+import io.i4tech.odata.common.client.transport.ODataPoolStats;
+import io.i4tech.odata.common.client.transport.ODataTransport;
+import io.i4tech.odata.common.client.transport.ODataTransportRequest;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.i4tech.odata.common.client.transport.ODataInMemoryFixture.*;
+import static org.mockito.Mockito.mock;
+
+public class ODataClientPoolTest {
+
+    private HttpServer server;
+
+    private final List<Headers> requestHeaders = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            requestHeaders.add(exchange.getRequestHeaders());
+            IOUtils.toByteArray(exchange.getRequestBody());
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private ODataClientBuilder clientBuilder() {
+        return ODataInMemoryFixture.clientBuilder()
+                .serviceUrl("http://localhost:" + server.getAddress().getPort() + "/");
+    }
+
+    @Test
+    public void testPoolStats() {
+        final ODataClient client = clientBuilder()
+                .maxConnections(8)
+                .maxConnectionsPerRoute(4)
+                .keepAlive(30, TimeUnit.SECONDS)
+                .validateAfterInactivity(1, TimeUnit.SECONDS)
+                .evictIdleConnections(1, TimeUnit.MINUTES)
+                .evictExpiredConnections()
+                .build();
+
+        ODataPoolStats stats = client.getPoolStats();
+        Assert.assertEquals(8, stats.getMax());
+        Assert.assertEquals(0, stats.getLeased());
+        Assert.assertEquals(0, stats.getAvailable());
+
+        Assert.assertTrue(client.testConnection());
+
+        stats = client.getPoolStats();
+        Assert.assertEquals(0, stats.getLeased());
+        Assert.assertEquals(0, stats.getPending());
+        Assert.assertEquals(1, stats.getAvailable());
+    }
+
+    @Test
+    public void testDefaultPool() {
+        Assert.assertEquals(ODataClientBuilder.DEFAULT_MAX_CONNECTIONS, clientBuilder().build().getPoolStats().getMax());
+        Assert.assertNull(clientBuilder().httpClient(mock(HttpClient.class)).build().getPoolStats());
+    }
+
+    @Test(expected = ODataClientBuilderException.class)
+    public void testPoolWithHttpClient() {
+        clientBuilder()
+                .httpClient(mock(HttpClient.class))
+                .maxConnections(8)
+                .build();
+    }
+
+    @Test(expected = ODataClientBuilderException.class)
+    public void testPoolWithTransport() {
+        clientBuilder()
+                .transport(new ODataInMemoryTransport(r -> new ODataInMemoryResponse(200, "")))
+                .maxConnectionsPerRoute(8)
+                .build();
+    }
+
+    @Test(expected = ODataClientBuilderException.class)
+    public void testInvalidPoolSize() {
+        clientBuilder()
+                .maxConnections(0)
+                .build();
+    }
+
+    @Test
+    public void testBodyWithKnownLength() throws IOException {
+        final ODataTransport transport = new ODataApacheTransport(HttpClients.createDefault(), null);
+        final ODataTransportRequest request = new ODataTransportRequest("POST",
+                "http://localhost:" + server.getAddress().getPort() + "/EmployeeCollection");
+        request.setBody("{}".getBytes(StandardCharsets.UTF_8));
+        transport.execute(request).close();
+
+        Assert.assertEquals("2", requestHeaders.get(0).getFirst("Content-Length"));
+        Assert.assertNull(requestHeaders.get(0).getFirst("Transfer-Encoding"));
+    }
+
+    private static boolean isThreadAlive(String name) {
+        return Thread.getAllStackTraces().keySet().stream()
+                .anyMatch(thread -> thread.getName().equals(name) && thread.isAlive());
+    }
+
+    @Test
+    public void testCloseCreatedClients() throws Exception {
+        final ODataClient client = clientBuilder()
+                .prefetchDepth(1)
+                .build();
+        final ODataTransportRequest request = new ODataTransportRequest("GET",
+                "http://localhost:" + server.getAddress().getPort() + "/");
+        client.transport.executeAsync(request).get(5, TimeUnit.SECONDS).close();
+        Assert.assertTrue(isThreadAlive("odata-async-io"));
+
+        client.close();
+
+        Assert.assertFalse(isThreadAlive("odata-async-io"));
+        Assert.assertTrue(((ExecutorService) client.prefetchExecutor).isShutdown());
+        try {
+            client.transport.executeAsync(request);
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            // closed
+        }
+    }
+
+    @Test
+    public void testAsyncWithHttpClient() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        final CloseableHttpClient httpClient = HttpClients.custom()
+                .addInterceptorFirst((HttpRequestInterceptor) (r, context) -> calls.incrementAndGet())
+                .build();
+        final ODataClient client = clientBuilder()
+                .httpClient(httpClient)
+                .build();
+        final ODataTransportRequest request = new ODataTransportRequest("GET",
+                "http://localhost:" + server.getAddress().getPort() + "/");
+        client.transport.executeAsync(request).get(5, TimeUnit.SECONDS).close();
+        Assert.assertEquals(1, calls.get());
+
+        client.close();
+
+        // the http client of the caller is left open
+        httpClient.execute(new HttpGet("http://localhost:" + server.getAddress().getPort() + "/")).close();
+        Assert.assertEquals(2, calls.get());
+    }
+}
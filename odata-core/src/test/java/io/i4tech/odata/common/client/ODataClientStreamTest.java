@@ -0,0 +1,209 @@
+package io.i4tech.odata.common.client;
+
+import io.i4tech.odata.common.operation.query.ODataQueryOperation;
+import io.i4tech.odata.test.model.employee.Employee;
+import io.i4tech.odata.test.model.employee.EmployeeLanguageCode;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static io.i4tech.odata.common.client.transport.ODataInMemoryFixture.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class ODataClientStreamTest {
+
+    @Mock
+    private HttpClient httpClient;
+
+    private ODataClient client;
+
+    private static HttpResponse resourceResponse(String name) {
+        final HttpResponse response = mock(HttpResponse.class, RETURNS_DEEP_STUBS);
+        when(response.getStatusLine().getStatusCode()).thenReturn(200);
+        try {
+            when(response.getEntity().getContent()).thenAnswer(i -> new ByteArrayInputStream(resource(name)));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return response;
+    }
+
+    private static HttpUriRequest requestTo(String path) {
+        return argThat(r -> r != null && r.getURI().toString().contains(path));
+    }
+
+    @Before
+    public void setup() throws IOException {
+        when(httpClient.execute(any(HttpUriRequest.class))).thenAnswer(invocation -> {
+            final String uri = ((HttpUriRequest) invocation.getArgument(0)).getURI().toString();
+            if (uri.contains("$metadata")) {
+                return resourceResponse("/employee.edmx");
+            } else if (uri.contains("$skiptoken=2")) {
+                return resourceResponse("/employee-feed-page2.xml");
+            }
+            return resourceResponse("/employee-feed.xml");
+        });
+
+        client = clientBuilder().httpClient(httpClient).build();
+    }
+
+    @Test
+    public void testStreamFollowsNextLink() throws IOException {
+        final ODataQueryOperation<Employee> operation = ODataQueryOperation.<Employee>builder()
+                .client(client)
+                .path(Employee.class)
+                .expand(Employee._EmployeeSkills)
+                .build();
+
+        final List<Employee> employees;
+        try (Stream<Employee> stream = operation.stream()) {
+            employees = stream.collect(Collectors.toList());
+        }
+
+        Assert.assertEquals(3, employees.size());
+        Assert.assertEquals("id1", employees.get(0).getObjectID());
+        Assert.assertEquals(EmployeeLanguageCode.ENGLISH, employees.get(0).getLanguageCode());
+        Assert.assertEquals(1, employees.get(0).getEmployeeSkills().size());
+        Assert.assertEquals("skill1", employees.get(0).getEmployeeSkills().get(0).getSkillID());
+        Assert.assertEquals("id3", employees.get(2).getObjectID());
+        verify(httpClient, times(1)).execute(requestTo("$skiptoken=2"));
+    }
+
+    @Test
+    public void testStreamReadsPagesOnDemand() throws IOException {
+        try (Stream<Employee> stream = client.stream("EmployeeCollection", Employee.class, "EmployeeCollection")) {
+            Assert.assertEquals("id1", stream.findFirst().map(Employee::getObjectID).orElse(null));
+        }
+        verify(httpClient, never()).execute(requestTo("$skiptoken=2"));
+    }
+
+    @Test
+    public void testStreamMatchesRead() {
+        final List<Employee> read = client.read("EmployeeCollection", Employee.class, "EmployeeCollection").getResultList();
+        final List<Employee> streamed;
+        try (Stream<Employee> stream = client.stream("EmployeeCollection", Employee.class, "EmployeeCollection")) {
+            streamed = stream.collect(Collectors.toList());
+        }
+        Assert.assertEquals(read, streamed);
+    }
+
+    @Test
+    public void testPageCursor() throws IOException {
+        try (ODataPageCursor<Employee> pages = client.pages("EmployeeCollection", Employee.class, "EmployeeCollection?$inlinecount=allpages")) {
+            Assert.assertTrue(pages.hasNext());
+            final ODataPage<Employee> first = pages.next();
+            Assert.assertEquals(0, first.getIndex());
+            Assert.assertEquals(2, first.getEntities().size());
+            Assert.assertEquals(Long.valueOf(3), first.getInlineCount());
+            Assert.assertEquals("https://myservice.domain.com/EmployeeCollection?$skiptoken=2", first.getNextLink());
+            verify(httpClient, never()).execute(requestTo("$skiptoken=2"));
+
+            Assert.assertTrue(pages.hasNext());
+            final ODataPage<Employee> second = pages.next();
+            Assert.assertEquals(1, second.getIndex());
+            Assert.assertEquals("EmployeeCollection?$skiptoken=2", second.getRequestPath());
+            Assert.assertEquals("id3", second.getEntities().get(0).getObjectID());
+            Assert.assertFalse(second.hasNextLink());
+            Assert.assertFalse(pages.hasNext());
+        }
+    }
+
+    @Test
+    public void testPageCursorClose() throws IOException {
+        final ODataPageCursor<Employee> pages = client.pages("EmployeeCollection", Employee.class, "EmployeeCollection");
+        pages.next();
+        pages.close();
+        Assert.assertFalse(pages.hasNext());
+        verify(httpClient, never()).execute(requestTo("$skiptoken=2"));
+    }
+
+    @Test
+    public void testReadMergesAllPages() throws IOException {
+        final ODataResponse<Employee> response = client.read("EmployeeCollection", Employee.class, "EmployeeCollection");
+        Assert.assertEquals(3, response.getResultList().size());
+        Assert.assertEquals(3, response.getTotalCount());
+        verify(httpClient, times(1)).execute(requestTo("$skiptoken=2"));
+    }
+
+    @Test
+    public void testPrefetchRequestsNextPageAhead() throws IOException {
+        client = clientBuilder()
+                .httpClient(httpClient)
+                .prefetchDepth(1)
+                .prefetchExecutor(Runnable::run)
+                .build();
+
+        try (ODataPageCursor<Employee> pages = client.pages("EmployeeCollection", Employee.class, "EmployeeCollection")) {
+            final ODataPage<Employee> first = pages.next();
+            Assert.assertEquals(2, first.getEntities().size());
+            verify(httpClient, times(1)).execute(requestTo("$skiptoken=2"));
+
+            final ODataPage<Employee> second = pages.next();
+            Assert.assertEquals(1, second.getIndex());
+            Assert.assertEquals("id3", second.getEntities().get(0).getObjectID());
+            Assert.assertFalse(pages.hasNext());
+        }
+    }
+
+    @Test
+    public void testPrefetchRead() throws IOException {
+        client = clientBuilder()
+                .httpClient(httpClient)
+                .prefetchDepth(2)
+                .build();
+
+        final ODataResponse<Employee> response = client.read("EmployeeCollection", Employee.class, "EmployeeCollection");
+        Assert.assertEquals(3, response.getResultList().size());
+        Assert.assertEquals("id3", response.getResultList().get(2).getObjectID());
+        verify(httpClient, times(1)).execute(requestTo("$skiptoken=2"));
+    }
+
+    @Test
+    public void testPrefetchPageReadBeforeCallback() throws Exception {
+        // the page is handed over while the thread that read it is still busy with its completion
+        final ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            client = clientBuilder()
+                    .httpClient(httpClient)
+                    .prefetchDepth(1)
+                    .prefetchExecutor(task -> executor.execute(() -> {
+                        Thread.currentThread().setPriority(Thread.MIN_PRIORITY);
+                        task.run();
+                    }))
+                    .build();
+            for (int i = 0; i < 200; i++) {
+                int count = 0;
+                try (ODataPageCursor<Employee> pages = client.pages("EmployeeCollection", Employee.class, "EmployeeCollection")) {
+                    while (pages.hasNext()) {
+                        count += pages.next().getEntities().size();
+                    }
+                }
+                Assert.assertEquals(3, count);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test(expected = ODataClientBuilderException.class)
+    public void testNegativePrefetchDepth() {
+        clientBuilder().prefetchDepth(-1).build();
+    }
+}
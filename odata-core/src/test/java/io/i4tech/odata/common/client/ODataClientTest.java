@@ -110,7 +110,7 @@ public class ODataClientTest {
                 .build());
 
         doReturn(edm).when(client).olingoReadMetaData(any(InputStream.class), eq(false));
-        doReturn(mock(InputStream.class)).when(client).olingoWriteEntry(any(), any(), any(), any());
+        doReturn(new ByteArrayInputStream(new byte[]{})).when(client).olingoWriteEntry(any(), any(), any(), any());
     }
 
     @Test
@@ -0,0 +1,163 @@
+package io.i4tech.odata.common.client;
+
+import io.i4tech.odata.common.client.transport.ODataInMemoryResponse;
+import io.i4tech.odata.common.client.transport.ODataInMemoryTransport;
+import io.i4tech.odata.common.client.transport.ODataTransportRequest;
+import io.i4tech.odata.common.mapper.ODataEntityMapper;
+import io.i4tech.odata.test.model.employee.Employee;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static io.i4tech.odata.common.client.transport.ODataInMemoryFixture.*;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class ODataCsrfTokenManagerTest {
+
+    private static ODataClient client(ODataInMemoryTransport transport, int maxRetries) {
+        return client(transport, maxRetries, new ODataEntityMapper());
+    }
+
+    private static ODataClient client(ODataInMemoryTransport transport, int maxRetries, ODataEntityMapper mapper) {
+        return clientBuilder(transport)
+                .mapper(mapper)
+                .format(ODataFormat.JSON)
+                .csrfMaxRetries(maxRetries)
+                .build();
+    }
+
+    private static long count(ODataInMemoryTransport transport, String method) {
+        return transport.getRequests().stream().filter(r -> method.equals(r.getMethod())).count();
+    }
+
+    @Test
+    public void testSingleFlightFetch() throws Exception {
+        final ODataCsrfTokenManager manager = new ODataCsrfTokenManager(1);
+        final AtomicInteger fetches = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<String>> tokens = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                tokens.add(executor.submit(() -> manager.fetchToken(() -> {
+                    fetches.incrementAndGet();
+                    release.await(5, TimeUnit.SECONDS);
+                    return "TOKEN";
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<String> token : tokens) {
+                Assert.assertEquals("TOKEN", token.get(5, TimeUnit.SECONDS));
+            }
+            Assert.assertEquals(1, fetches.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCaptureAndInvalidate() {
+        final ODataCsrfTokenManager manager = new ODataCsrfTokenManager(1);
+        manager.capture(ODataClient.X_CSRF_TOKEN_REQUIRED);
+        Assert.assertNull(manager.getToken());
+
+        manager.capture("TOKEN1");
+        manager.capture("TOKEN2");
+        manager.invalidate("TOKEN1");
+        Assert.assertEquals("TOKEN2", manager.getToken());
+
+        manager.invalidate("TOKEN2");
+        Assert.assertNull(manager.getToken());
+    }
+
+    @Test
+    public void testTokenCapturedFromRead() {
+        final ODataInMemoryTransport transport = new ODataInMemoryTransport(withCsrfToken(request -> request.getUri().contains("$metadata")
+                ? resource(200, "/employee.edmx")
+                : "POST".equals(request.getMethod()) ? resource(201, "/employee-entry.json") : resource(200, "/employee-feed-page2.json")));
+        final ODataClient client = client(transport, 1);
+
+        client.read("EmployeeCollection", Employee.class, "EmployeeCollection");
+        client.create(Employee.class, "EmployeeCollection", Employee.builder().firstName("firstName4").build());
+
+        // no dedicated token fetch, the token of the read is sent with the write
+        Assert.assertEquals(1, count(transport, "GET") - transport.getRequests().stream()
+                .filter(r -> r.getUri().endsWith("$metadata")).count());
+        final ODataTransportRequest post = transport.getRequests().stream()
+                .filter(r -> "POST".equals(r.getMethod()))
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+        Assert.assertEquals(CSRF_TOKEN, post.getHeader(ODataClient.X_CSRF_TOKEN));
+    }
+
+    @Test
+    public void testBoundedRetry() {
+        final ODataInMemoryTransport transport = new ODataInMemoryTransport(request -> {
+            if (request.getUri().contains("$metadata")) {
+                return resource(200, "/employee.edmx");
+            } else if ("POST".equals(request.getMethod())) {
+                return new ODataInMemoryResponse(403, "{}").header(ODataClient.X_CSRF_TOKEN, ODataClient.X_CSRF_TOKEN_REQUIRED);
+            }
+            return new ODataInMemoryResponse(200, "{}").header(ODataClient.X_CSRF_TOKEN, "TOKEN");
+        });
+        final ODataClient client = client(transport, 2);
+
+        try {
+            client.create(Employee.class, "EmployeeCollection", Employee.builder().firstName("firstName4").build());
+            Assert.fail();
+        } catch (ODataException e) {
+            Assert.assertTrue(e.getMessage().contains("after 2 retries"));
+        }
+        Assert.assertEquals(3, count(transport, "POST"));
+
+        try {
+            client.createAsync(Employee.class, "EmployeeCollection", Employee.builder().firstName("firstName4").build())
+                    .get(5, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (Exception e) {
+            Assert.assertTrue(e.getCause() instanceof ODataException);
+        }
+        Assert.assertEquals(6, count(transport, "POST"));
+    }
+
+    @Test
+    public void testContentWrittenOnce() {
+        final ODataInMemoryTransport transport = new ODataInMemoryTransport(request -> {
+            if (request.getUri().contains("$metadata")) {
+                return resource(200, "/employee.edmx");
+            } else if ("POST".equals(request.getMethod())) {
+                return new ODataInMemoryResponse(403, "{}").header(ODataClient.X_CSRF_TOKEN, ODataClient.X_CSRF_TOKEN_REQUIRED);
+            }
+            return new ODataInMemoryResponse(200, "{}").header(ODataClient.X_CSRF_TOKEN, "TOKEN");
+        });
+        final ODataEntityMapper mapper = spy(new ODataEntityMapper());
+        final ODataClient client = client(transport, 2, mapper);
+        final Employee employee = Employee.builder().firstName("firstName4").build();
+
+        try {
+            client.create(Employee.class, "EmployeeCollection", employee);
+            Assert.fail();
+        } catch (ODataException e) {
+            Assert.assertTrue(e.getMessage().contains("after 2 retries"));
+        }
+        verify(mapper, times(1)).mapEntityToProperties(employee, Employee.class);
+
+        // every retry sends the same bytes with a known length
+        final List<ODataTransportRequest> posts = transport.getRequests().stream()
+                .filter(r -> "POST".equals(r.getMethod()))
+                .collect(Collectors.toList());
+        Assert.assertEquals(3, posts.size());
+        for (ODataTransportRequest post : posts) {
+            Assert.assertSame(posts.get(0).getBodyContent(), post.getBodyContent());
+            Assert.assertEquals(post.getBodyContent().length, post.getContentLength());
+        }
+    }
+}
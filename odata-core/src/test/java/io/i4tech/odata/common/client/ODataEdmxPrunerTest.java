@@ -0,0 +1,71 @@
+package io.i4tech.odata.common.client;
+
+import io.i4tech.odata.common.client.transport.ODataInMemoryTransport;
+import io.i4tech.odata.test.model.employee.Employee;
+import org.apache.olingo.odata2.api.edm.Edm;
+import org.apache.olingo.odata2.api.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.edm.EdmNavigationProperty;
+import org.apache.olingo.odata2.api.ep.EntityProvider;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Collectors;
+
+import static io.i4tech.odata.common.client.transport.ODataInMemoryFixture.*;
+
+public class ODataEdmxPrunerTest {
+
+    private static Edm read(ODataEdmxPruner pruner) throws Exception {
+        return EntityProvider.readMetadata(pruner.prune(new ByteArrayInputStream(resource("/employee.edmx"))), false);
+    }
+
+    private static String entitySetNames(Edm edm) throws Exception {
+        return edm.getEntitySets().stream().map(s -> {
+            try {
+                return s.getName();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }).sorted().collect(Collectors.joining(","));
+    }
+
+    @Test
+    public void testEntityClasses() throws Exception {
+        final ODataEdmxPruner pruner = ODataEdmxPruner.forEntityClasses(Collections.singletonList(Employee.class));
+        Assert.assertEquals(3, pruner.getEntitySets().size());
+
+        final Edm edm = read(pruner);
+        Assert.assertEquals("EmployeeCollection,EmployeeSkillsCollection,EmployeeWorkingHoursCollection", entitySetNames(edm));
+        Assert.assertTrue(edm.getFunctionImports().isEmpty());
+
+        // navigations between retained sets are kept, the one to the dropped sales order is not
+        final EdmEntitySet employees = edm.getDefaultEntityContainer().getEntitySet("EmployeeCollection");
+        Assert.assertEquals(Arrays.asList("EmployeeSkills", "EmployeeWorkingHours"), employees.getEntityType().getNavigationPropertyNames());
+        Assert.assertEquals("EmployeeSkillsCollection", employees.getRelatedEntitySet(
+                (EdmNavigationProperty) employees.getEntityType().getProperty("EmployeeSkills")).getName());
+    }
+
+    @Test
+    public void testExplicitNames() throws Exception {
+        final Edm edm = read(new ODataEdmxPruner(Arrays.asList("EmployeeCollection", "EmployeeLanguageCodeCollection"),
+                Collections.singletonList("CheckForDuplicates")));
+
+        Assert.assertEquals("EmployeeCollection,EmployeeDuplicateCheckResultCollection,EmployeeLanguageCodeCollection", entitySetNames(edm));
+        Assert.assertNotNull(edm.getDefaultEntityContainer().getFunctionImport("CheckForDuplicates"));
+        Assert.assertTrue(edm.getDefaultEntityContainer().getEntitySet("EmployeeCollection").getEntityType()
+                .getNavigationPropertyNames().isEmpty());
+    }
+
+    @Test
+    public void testClientPrunesMetadata() throws Exception {
+        final ODataClient client = clientBuilder(new ODataInMemoryTransport(r -> resource(200, "/employee.edmx")))
+                .pruneMetadata(Employee.class)
+                .build();
+
+        Assert.assertNotNull(client.getEntitySet("EmployeeCollection"));
+        Assert.assertNull(client.getEntitySet("SalesOrderCollection"));
+    }
+}
@@ -0,0 +1,163 @@
+package io.i4tech.odata.common.client;
+
+import io.i4tech.odata.common.client.transport.ODataInMemoryResponse;
+import io.i4tech.odata.common.client.transport.ODataInMemoryTransport;
+import io.i4tech.odata.common.client.transport.ODataTransportRequest;
+import io.i4tech.odata.common.operation.create.ODataCreateOperation;
+import io.i4tech.odata.test.model.employee.Employee;
+import io.i4tech.odata.test.model.employee.EmployeeLanguageCode;
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.odata2.api.edm.EdmEntitySet;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static io.i4tech.odata.common.client.transport.ODataInMemoryFixture.*;
+
+public class ODataInMemoryTransportTest {
+
+    private ODataInMemoryTransport transport;
+
+    private ODataClient client;
+
+    private static ODataInMemoryResponse route(ODataTransportRequest request) {
+        final String uri = request.getUri();
+        if (uri.contains("$metadata")) {
+            return resource(200, "/employee.edmx");
+        } else if ("POST".equals(request.getMethod())) {
+            return CSRF_TOKEN.equals(request.getHeader(ODataClient.X_CSRF_TOKEN))
+                    ? resource(201, "/employee-entry.json").header("Location", SERVICE_URL + "EmployeeCollection('id4')")
+                    : new ODataInMemoryResponse(403, "{}").header(ODataClient.X_CSRF_TOKEN, ODataClient.X_CSRF_TOKEN_REQUIRED);
+        } else if (uri.contains("$skiptoken=2")) {
+            return resource(200, "/employee-feed-page2.json");
+        } else if (uri.contains("unknown")) {
+            return resource(404, "/error.json");
+        } else if (uri.endsWith("EmployeeCollection")) {
+            return resource(200, "/employee-feed.json");
+        }
+        return new ODataInMemoryResponse(200, "{}");
+    }
+
+    @Before
+    public void setup() {
+        transport = new ODataInMemoryTransport(withCsrfToken(ODataInMemoryTransportTest::route));
+        client = clientBuilder(transport)
+                .format(ODataFormat.JSON)
+                .build();
+    }
+
+    @Test
+    public void testRead() throws Exception {
+        final List<Employee> employees = client.read("EmployeeCollection", Employee.class, "EmployeeCollection").getResultList();
+        Assert.assertEquals(3, employees.size());
+        Assert.assertEquals(employees, client.readAsync("EmployeeCollection", Employee.class, "EmployeeCollection")
+                .get(5, TimeUnit.SECONDS).getResultList());
+        Assert.assertEquals(5, transport.getRequests().size());
+        Assert.assertEquals(1, transport.getRequests().stream().filter(r -> r.getUri().endsWith("$metadata")).count());
+    }
+
+    @Test
+    public void testCreate() throws IOException {
+        final Employee employee = client.create(Employee.class, "EmployeeCollection", Employee.builder()
+                .firstName("firstName4")
+                .languageCode(EmployeeLanguageCode.ENGLISH)
+                .build()).getSingleResult();
+
+        Assert.assertEquals("id4", employee.getObjectID());
+        final ODataTransportRequest post = transport.getRequests().stream()
+                .filter(r -> "POST".equals(r.getMethod()))
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+        Assert.assertEquals("TOKEN", post.getHeader(ODataClient.X_CSRF_TOKEN));
+        Assert.assertTrue(IOUtils.toString(post.getBody(), StandardCharsets.UTF_8).contains("\"FirstName\":\"firstName4\""));
+    }
+
+    @Test
+    public void testCreateKeyOnly() {
+        final ODataResponse<Employee> response = ODataCreateOperation.builder()
+                .client(client)
+                .path(Employee.class)
+                .data(Employee.builder().firstName("firstName4").build())
+                .responseMode(ODataWriteResponseMode.KEY)
+                .build()
+                .execute();
+
+        Assert.assertEquals("id4", response.getSingleResult().getObjectID());
+        Assert.assertNull(response.getSingleResult().getFirstName());
+    }
+
+    @Test
+    public void testCreateWithoutResponse() {
+        final ODataResponse<Employee> response = client.create(Employee.class, "EmployeeCollection",
+                Employee.builder().firstName("firstName4").build(), ODataWriteResponseMode.NONE);
+
+        Assert.assertNull(response.getSingleResult());
+        Assert.assertNull(response.getResultList());
+    }
+
+    @Test
+    public void testUpdateWithoutRead() throws Exception {
+        final Employee employee = Employee.builder().firstName("firstName1").build();
+        final Employee updated = client.update(Employee.class, "EmployeeCollection('id1')", employee,
+                ODataWriteResponseMode.KEY).getSingleResult();
+        Assert.assertEquals("id1", updated.getObjectID());
+        Assert.assertEquals("firstName1", updated.getFirstName());
+        Assert.assertNull(employee.getObjectID());
+        final Employee updatedAsync = client.updateAsync(Employee.class, "EmployeeCollection('id1')", employee,
+                ODataWriteResponseMode.KEY).get(5, TimeUnit.SECONDS).getSingleResult();
+        Assert.assertEquals("id1", updatedAsync.getObjectID());
+        final Employee withKey = Employee.builder().objectID("id1").firstName("firstName1").build();
+        Assert.assertSame(withKey, client.update(Employee.class, "EmployeeCollection('id1')", withKey,
+                ODataWriteResponseMode.KEY).getSingleResult());
+        Assert.assertNull(client.updateAsync(Employee.class, "EmployeeCollection('id1')", employee,
+                ODataWriteResponseMode.NONE).get(5, TimeUnit.SECONDS).getSingleResult());
+
+        // no read of the updated entity
+        Assert.assertEquals(0, transport.getRequests().stream()
+                .filter(r -> "GET".equals(r.getMethod()) && r.getUri().endsWith("EmployeeCollection('id1')"))
+                .count());
+    }
+
+    @Test
+    public void testReadLocationKey() throws Exception {
+        final EdmEntitySet entitySet = client.getEntitySet("EmployeeSkillsCollection");
+        final Map<String, Object> key = client.readLocationKey(
+                "https://myservice.domain.com/EmployeeSkillsCollection(EmployeeID='id1',SkillID='a%2Cb''c')", entitySet);
+
+        Assert.assertEquals("id1", key.get("EmployeeID"));
+        Assert.assertEquals("a,b'c", key.get("SkillID"));
+        Assert.assertNull(client.readLocationKey("https://myservice.domain.com/EmployeeCollection('id1')", entitySet));
+        Assert.assertNull(client.readLocationKey(null, entitySet));
+    }
+
+    @Test
+    public void testError() {
+        try {
+            client.get(Employee.class, "EmployeeCollection('unknown')");
+            Assert.fail();
+        } catch (ODataException e) {
+            Assert.assertTrue(e.getMessage().contains("[SY/530]: Employee not found"));
+            Assert.assertEquals(404, e.getStatusCode());
+        }
+        try {
+            client.getAsync(Employee.class, "EmployeeCollection('unknown')").join();
+            Assert.fail();
+        } catch (CompletionException e) {
+            Assert.assertEquals(404, new ODataException(e).getStatusCode());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testAbortedRequest() throws IOException {
+        final ODataTransportRequest request = new ODataTransportRequest("GET", "https://myservice.domain.com/EmployeeCollection");
+        request.abort();
+        transport.execute(request);
+    }
+}
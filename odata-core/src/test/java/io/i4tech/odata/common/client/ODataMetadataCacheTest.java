@@ -0,0 +1,108 @@
+package io.i4tech.odata.common.client;
+
+import io.i4tech.odata.common.client.transport.ODataInMemoryResponse;
+import io.i4tech.odata.common.client.transport.ODataInMemoryTransport;
+import io.i4tech.odata.common.client.transport.ODataTransportRequest;
+import org.apache.http.HttpHeaders;
+import org.apache.olingo.odata2.api.edm.Edm;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.i4tech.odata.common.client.transport.ODataInMemoryFixture.*;
+
+public class ODataMetadataCacheTest {
+
+    private static final String ETAG = "W/\"1\"";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final byte[] edmx = resource("/employee.edmx");
+
+    private final AtomicInteger notModified = new AtomicInteger();
+
+    private ODataInMemoryTransport transport() {
+        return new ODataInMemoryTransport(request -> {
+            if (ETAG.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+                notModified.incrementAndGet();
+                return new ODataInMemoryResponse(304, new byte[0]);
+            }
+            return new ODataInMemoryResponse(200, edmx).header(HttpHeaders.ETAG, ETAG);
+        });
+    }
+
+    private static ODataClient client(ODataInMemoryTransport transport, ODataMetadataCache cache) {
+        return clientBuilder(transport)
+                .metadataArgument("sap-language", "EN")
+                .callbackExecutor(Runnable::run)
+                .metadataCache(cache)
+                .build();
+    }
+
+    @Test
+    public void testStartFromCache() throws Exception {
+        final ODataMetadataCache cache = new ODataMetadataCache(folder.getRoot(), 1, TimeUnit.HOURS);
+
+        final ODataInMemoryTransport first = transport();
+        client(first, cache).loadEdm();
+        Assert.assertEquals(1, first.getRequests().size());
+        Assert.assertEquals(ETAG, cache.get(ODataMetadataCache.getKey("https://myservice.domain.com/",
+                Collections.singletonMap("sap-language", "EN"))).getEtag());
+
+        final ODataInMemoryTransport second = transport();
+        final Edm edm = client(second, cache).loadEdm();
+        Assert.assertNotNull(edm.getDefaultEntityContainer().getEntitySet("EmployeeCollection"));
+        Assert.assertTrue(second.getRequests().isEmpty());
+
+        final ODataInMemoryTransport third = transport();
+        client(third, cache).loadEdmAsync(new ODataAsyncCall(null)).get(5, TimeUnit.SECONDS);
+        Assert.assertTrue(third.getRequests().isEmpty());
+    }
+
+    @Test
+    public void testRevalidateExpired() {
+        final ODataMetadataCache cache = new ODataMetadataCache(folder.getRoot(), 0, TimeUnit.SECONDS);
+        client(transport(), cache).loadEdm();
+
+        final ODataInMemoryTransport transport = transport();
+        Assert.assertNotNull(client(transport, cache).loadEdm());
+        Assert.assertEquals(1, transport.getRequests().size());
+        final ODataTransportRequest request = transport.getRequests().get(0);
+        Assert.assertEquals(ETAG, request.getHeader(HttpHeaders.IF_NONE_MATCH));
+        Assert.assertEquals(1, notModified.get());
+    }
+
+    @Test
+    public void testCorruptEntry() throws IOException {
+        final ODataMetadataCache cache = new ODataMetadataCache(folder.getRoot());
+        final String key = ODataMetadataCache.getKey("https://myservice.domain.com/",
+                Collections.singletonMap("sap-language", "EN"));
+        cache.put(key, "<broken".getBytes(), null, null);
+
+        final ODataInMemoryTransport transport = transport();
+        Assert.assertNotNull(client(transport, cache).loadEdm());
+        Assert.assertEquals(1, transport.getRequests().size());
+        Assert.assertArrayEquals(edmx, cache.get(key).getContent());
+    }
+
+    @Test
+    public void testKeyIgnoresArgumentOrder() {
+        final Map<String, String> first = new LinkedHashMap<>();
+        first.put("a", "1");
+        first.put("b", "2");
+        final Map<String, String> second = new LinkedHashMap<>();
+        second.put("b", "2");
+        second.put("a", "1");
+        Assert.assertEquals(ODataMetadataCache.getKey("url", first), ODataMetadataCache.getKey("url", second));
+        Assert.assertNotEquals(ODataMetadataCache.getKey("url", first), ODataMetadataCache.getKey("url2", first));
+    }
+}
@@ -0,0 +1,65 @@
+package io.i4tech.odata.common.client;
+
+import io.i4tech.odata.common.client.transport.ODataInMemoryResponse;
+import io.i4tech.odata.common.client.transport.ODataInMemoryTransport;
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.odata2.api.ep.EntityProvider;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static io.i4tech.odata.common.client.transport.ODataInMemoryFixture.*;
+
+public class ODataMetadataSnapshotTest {
+
+    private final String edmx = resourceString("/employee.edmx");
+
+    @Test
+    public void testLoadSnapshot() throws Exception {
+        final ODataInMemoryTransport transport = new ODataInMemoryTransport(r -> new ODataInMemoryResponse(200, edmx));
+        final ODataClient client = clientBuilder(transport)
+                .metadataSnapshot("employee.edmx")
+                .build();
+
+        Assert.assertNotNull(client.getEntitySet("EmployeeCollection"));
+        Assert.assertTrue(transport.getRequests().isEmpty());
+    }
+
+    @Test
+    public void testVerifySnapshot() throws Exception {
+        final ODataInMemoryTransport transport = new ODataInMemoryTransport(r -> new ODataInMemoryResponse(200,
+                edmx.replace("Name=\"FirstName\"", "Name=\"GivenName\"")));
+        final ODataClient client = clientBuilder(transport)
+                .callbackExecutor(Runnable::run)
+                .metadataSnapshot("/employee.edmx", true)
+                .build();
+
+        client.loadEdm();
+        // verified on the callback executor, which runs in the calling thread here
+        Assert.assertEquals(1, transport.getRequests().size());
+        Assert.assertNotNull(client.getEdm().getDefaultEntityContainer().getEntitySet("EmployeeCollection")
+                .getEntityType().getProperty("GivenName"));
+    }
+
+    @Test
+    public void testCompare() throws Exception {
+        final ODataMetadataSnapshot snapshot = new ODataMetadataSnapshot("employee.edmx", false);
+        Assert.assertTrue(ODataMetadataSnapshot.compare(snapshot.read(), snapshot.read()).isEmpty());
+
+        final List<String> differences = ODataMetadataSnapshot.compare(snapshot.read(),
+                EntityProvider.readMetadata(IOUtils.toInputStream(
+                        edmx.replace("Name=\"BirthDate\" Type=\"Edm.DateTime\"", "Name=\"BirthDate\" Type=\"Edm.String\""),
+                        StandardCharsets.UTF_8), false));
+        Assert.assertEquals(1, differences.size());
+        Assert.assertTrue(differences.get(0).contains("BirthDate"));
+    }
+
+    @Test(expected = ODataClientBuilderException.class)
+    public void testMissingSnapshot() {
+        clientBuilder(new ODataInMemoryTransport(r -> new ODataInMemoryResponse(200, edmx)))
+                .metadataSnapshot("missing.edmx")
+                .build();
+    }
+}
@@ -0,0 +1,67 @@
+package io.i4tech.odata.common.client;
+
+import io.i4tech.odata.test.model.employee.Employee;
+import org.apache.olingo.odata2.api.edm.Edm;
+import org.apache.olingo.odata2.api.edm.EdmEntitySet;
+import org.apache.olingo.odata2.api.ep.EntityProvider;
+import org.apache.olingo.odata2.api.ep.EntityProviderWriteProperties;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.mockito.Mockito.mock;
+
+public class ODataPlanCacheTest {
+
+    private final ODataPlanCache planCache = new ODataPlanCache();
+
+    private Edm edm;
+
+    private static Edm readEdm() throws Exception {
+        try (InputStream edmx = ODataPlanCacheTest.class.getResourceAsStream("/employee.edmx")) {
+            return EntityProvider.readMetadata(edmx, false);
+        }
+    }
+
+    @Before
+    public void setup() throws Exception {
+        edm = readEdm();
+    }
+
+    @Test
+    public void testReadPlans() {
+        Assert.assertEquals(Timestamp.class, planCache.getTypeMappings(Employee.class).get("EntityLastChangedOn"));
+        Assert.assertSame(planCache.getTypeMappings(Employee.class), planCache.getTypeMappings(Employee.class));
+        Assert.assertSame(planCache.getReadProperties(Employee.class), planCache.getReadProperties(Employee.class));
+    }
+
+    @Test
+    public void testEntitySetBoundToEdm() throws Exception {
+        final EdmEntitySet entitySet = planCache.getEntitySet(edm, "EmployeeCollection");
+        Assert.assertSame(entitySet, planCache.getEntitySet(edm, "EmployeeCollection"));
+        Assert.assertNull(planCache.getEntitySet(edm, "UnknownCollection"));
+
+        final Edm newEdm = readEdm();
+        Assert.assertNotSame(entitySet, planCache.getEntitySet(newEdm, "EmployeeCollection"));
+    }
+
+    @Test
+    public void testWritePlans() throws Exception {
+        final Set<String> properties = new HashSet<>(Arrays.asList("FirstName", "LastName"));
+        final EntityProviderWriteProperties writeProperties = mock(EntityProviderWriteProperties.class);
+        Assert.assertNull(planCache.getWriteProperties(edm, "EmployeeCollection", properties));
+
+        planCache.putWriteProperties(edm, "EmployeeCollection", properties, writeProperties);
+        Assert.assertSame(writeProperties, planCache.getWriteProperties(edm, "EmployeeCollection",
+                new HashSet<>(Arrays.asList("LastName", "FirstName"))));
+        Assert.assertNull(planCache.getWriteProperties(edm, "EmployeeCollection", Collections.singleton("FirstName")));
+        Assert.assertNull(planCache.getWriteProperties(readEdm(), "EmployeeCollection", properties));
+    }
+}
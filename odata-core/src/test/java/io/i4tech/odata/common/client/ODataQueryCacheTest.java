@@ -0,0 +1,123 @@
+package io.i4tech.odata.common.client;
+
+import io.i4tech.odata.common.client.transport.ODataInMemoryResponse;
+import io.i4tech.odata.common.client.transport.ODataInMemoryTransport;
+import io.i4tech.odata.common.client.transport.ODataTransportRequest;
+import io.i4tech.odata.common.operation.query.ODataQueryOperation;
+import io.i4tech.odata.test.model.employee.Employee;
+import io.i4tech.odata.test.model.employee.EmployeeSkills;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static io.i4tech.odata.common.client.transport.ODataInMemoryFixture.*;
+
+public class ODataQueryCacheTest {
+
+    private ODataInMemoryTransport transport;
+
+    private ODataQueryCache queryCache;
+
+    private ODataClient client;
+
+    private static ODataInMemoryResponse route(ODataTransportRequest request) {
+        if (request.getUri().contains("$metadata")) {
+            return resource(200, "/employee.edmx");
+        } else if ("GET".equals(request.getMethod())) {
+            return resource(200, "/employee-feed-page2.json");
+        }
+        return new ODataInMemoryResponse(204, "");
+    }
+
+    private long reads() {
+        return transport.getRequests().stream()
+                .filter(r -> "GET".equals(r.getMethod()) && r.getUri().contains("EmployeeCollection?"))
+                .count();
+    }
+
+    private ODataQueryOperation<Employee> query(int top) {
+        return ODataQueryOperation.<Employee>builder()
+                .client(client)
+                .path(Employee.class)
+                .top(top)
+                .cached()
+                .build();
+    }
+
+    @Before
+    public void setup() {
+        transport = new ODataInMemoryTransport(withCsrfToken(ODataQueryCacheTest::route));
+        queryCache = new ODataQueryCache(1, TimeUnit.MINUTES);
+        client = clientBuilder(transport)
+                .format(ODataFormat.JSON)
+                .language(Locale.ENGLISH)
+                .queryCache(queryCache)
+                .build();
+    }
+
+    @Test
+    public void testCachedQuery() throws Exception {
+        Assert.assertEquals(1, query(10).execute().getResultList().size());
+        Assert.assertEquals(1, query(10).execute().getResultList().size());
+        Assert.assertEquals(1, query(10).executeAsync().get(5, TimeUnit.SECONDS).getResultList().size());
+        Assert.assertEquals(1, reads());
+        Assert.assertEquals(2, queryCache.getStats().getHits());
+
+        // different request path and language
+        query(20).execute();
+        client.setRequestLocale(Locale.GERMAN);
+        query(10).executeAsync().get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(3, reads());
+        Assert.assertTrue(queryCache.getSize() > 0);
+    }
+
+    @Test
+    public void testNotCachedQuery() {
+        ODataQueryOperation.<Employee>builder().client(client).path(Employee.class).top(10).build().execute();
+        ODataQueryOperation.<Employee>builder().client(client).path(Employee.class).top(10).build().execute();
+        Assert.assertEquals(2, reads());
+        Assert.assertEquals(0, queryCache.getStats().getSize());
+    }
+
+    @Test
+    public void testInvalidatedByWrite() throws Exception {
+        query(10).execute();
+        client.update(Employee.class, "EmployeeCollection('id1')", Employee.builder().objectID("id1").build());
+        query(10).execute();
+        Assert.assertEquals(2, reads());
+
+        // writes to other entity sets keep the result
+        client.delete(EmployeeSkills.class, "EmployeeSkillsCollection(EmployeeID='id1',SkillID='s1')");
+        query(10).execute();
+        Assert.assertEquals(2, reads());
+
+        client.deleteAsync(Employee.class, "EmployeeCollection('id1')").get(5, TimeUnit.SECONDS);
+        query(10).execute();
+        Assert.assertEquals(3, reads());
+    }
+
+    @Test
+    public void testStaleResultNotCached() {
+        final String key = client.getQueryCacheKey("EmployeeCollection", "/EmployeeCollection?$top=10");
+        final long generation = queryCache.getGeneration("EmployeeCollection");
+        queryCache.invalidate("EmployeeCollection");
+        queryCache.put("EmployeeCollection", key, generation, new byte[]{1});
+        Assert.assertNull(queryCache.get(key));
+    }
+
+    @Test
+    public void testEntitySetTtl() {
+        queryCache.ttl("EmployeeCollection", 0, TimeUnit.SECONDS);
+        query(10).execute();
+        query(10).execute();
+        Assert.assertEquals(2, reads());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTtl() {
+        new ODataQueryCache(0, TimeUnit.SECONDS);
+    }
+}
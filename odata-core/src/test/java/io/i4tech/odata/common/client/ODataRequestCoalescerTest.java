@@ -0,0 +1,138 @@
+package io.i4tech.odata.common.client;
+
+import io.i4tech.odata.common.client.transport.ODataInMemoryResponse;
+import io.i4tech.odata.common.client.transport.ODataInMemoryTransport;
+import io.i4tech.odata.common.client.transport.ODataTransportRequest;
+import io.i4tech.odata.test.model.employee.Employee;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.i4tech.odata.common.client.transport.ODataInMemoryFixture.*;
+
+public class ODataRequestCoalescerTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    private ODataInMemoryTransport transport;
+
+    private ODataRequestCoalescer coalescer;
+
+    private ODataClient client;
+
+    private ODataInMemoryResponse respond(ODataTransportRequest request) throws IOException {
+        if (request.getUri().contains("$metadata")) {
+            return resource(200, "/employee.edmx");
+        }
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+        if (request.getUri().contains("unknown")) {
+            return resource(404, "/error.json");
+        } else if (request.getUri().contains("id1")) {
+            return resource(200, "/employee-entry.json");
+        }
+        return resource(200, "/employee-feed-page2.json");
+    }
+
+    private long requests(String path) {
+        return transport.getRequests().stream().filter(r -> r.getUri().endsWith(path)).count();
+    }
+
+    private void awaitSaved(long count) throws InterruptedException {
+        final long timeout = System.currentTimeMillis() + 5000;
+        while (coalescer.getSavedRequestCount() < count && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Before
+    public void setup() {
+        transport = new ODataInMemoryTransport(this::respond);
+        coalescer = new ODataRequestCoalescer();
+        client = clientBuilder(transport)
+                .format(ODataFormat.JSON)
+                .language(Locale.ENGLISH)
+                .requestCoalescer(coalescer)
+                .build();
+        client.loadEdm();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentReads() throws Exception {
+        final List<Future<ODataResponse<Employee>>> responses = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            responses.add(executor.submit(() -> client.read("EmployeeCollection", Employee.class, "EmployeeCollection")));
+        }
+        awaitSaved(7);
+        release.countDown();
+
+        for (Future<ODataResponse<Employee>> response : responses) {
+            Assert.assertEquals("id3", response.get(5, TimeUnit.SECONDS).getResultList().get(0).getObjectID());
+        }
+        Assert.assertEquals(1, requests("EmployeeCollection"));
+        Assert.assertEquals(7, coalescer.getSavedRequestCount());
+        Assert.assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    public void testDifferentLocales() throws Exception {
+        final AtomicInteger index = new AtomicInteger();
+        final List<Future<ODataResponse<Employee>>> responses = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            responses.add(executor.submit(() -> {
+                client.setRequestLocale(index.getAndIncrement() % 2 == 0 ? Locale.ENGLISH : Locale.GERMAN);
+                return client.get(Employee.class, "EmployeeCollection('id1')");
+            }));
+        }
+        awaitSaved(2);
+        release.countDown();
+
+        for (Future<ODataResponse<Employee>> response : responses) {
+            Assert.assertEquals("id4", response.get(5, TimeUnit.SECONDS).getSingleResult().getObjectID());
+        }
+        Assert.assertEquals(2, requests("EmployeeCollection('id1')".replace("'", "%27")));
+        Assert.assertEquals(2, coalescer.getSavedRequestCount());
+    }
+
+    @Test
+    public void testSharedFailure() throws Exception {
+        final List<Future<ODataResponse<Employee>>> responses = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            responses.add(executor.submit(() -> client.get(Employee.class, "EmployeeCollection('unknown')")));
+        }
+        awaitSaved(2);
+        release.countDown();
+
+        for (Future<ODataResponse<Employee>> response : responses) {
+            try {
+                response.get(5, TimeUnit.SECONDS);
+                Assert.fail();
+            } catch (Exception e) {
+                Assert.assertTrue(e.getCause() instanceof ODataException);
+            }
+        }
+        Assert.assertEquals(1, transport.getRequests().stream().filter(r -> r.getUri().contains("unknown")).count());
+    }
+}
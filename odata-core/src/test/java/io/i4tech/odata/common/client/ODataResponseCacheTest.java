@@ -0,0 +1,119 @@
+package io.i4tech.odata.common.client;
+
+import io.i4tech.odata.common.client.transport.ODataInMemoryResponse;
+import io.i4tech.odata.common.client.transport.ODataInMemoryTransport;
+import io.i4tech.odata.common.client.transport.ODataTransportRequest;
+import io.i4tech.odata.test.model.employee.Employee;
+import org.apache.http.HttpHeaders;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static io.i4tech.odata.common.client.transport.ODataInMemoryFixture.*;
+
+public class ODataResponseCacheTest {
+
+    private ODataInMemoryTransport transport;
+
+    private ODataResponseCache responseCache;
+
+    private ODataClient client;
+
+    private static ODataInMemoryResponse route(ODataTransportRequest request) {
+        final String uri = request.getUri();
+        if (uri.contains("$metadata")) {
+            return resource(200, "/employee.edmx");
+        } else if (uri.contains("id1")) {
+            return "\"v1\"".equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))
+                    ? new ODataInMemoryResponse(304, "").header(HttpHeaders.ETAG, "\"v1\"")
+                    : resource(200, "/employee-entry.json").header(HttpHeaders.ETAG, "\"v1\"");
+        } else if (uri.contains("$skiptoken=2")) {
+            return resource(200, "/employee-feed-page2.json");
+        }
+        return resource(200, "/employee-feed.json").header(HttpHeaders.LAST_MODIFIED, "Wed, 21 Oct 2015 07:28:00 GMT");
+    }
+
+    @Before
+    public void setup() {
+        transport = new ODataInMemoryTransport(ODataResponseCacheTest::route);
+        responseCache = new ODataResponseCache(10);
+        client = clientBuilder(transport)
+                .format(ODataFormat.JSON)
+                .language(Locale.ENGLISH)
+                .responseCache(responseCache)
+                .build();
+    }
+
+    private List<ODataTransportRequest> requests(String path) {
+        return transport.getRequests().stream()
+                .filter(r -> r.getUri().endsWith(path.replace("'", "%27")))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testGetRevalidated() throws Exception {
+        final Employee employee = client.get(Employee.class, "EmployeeCollection('id1')").getSingleResult();
+        Assert.assertEquals(employee, client.get(Employee.class, "EmployeeCollection('id1')").getSingleResult());
+        Assert.assertEquals(employee, client.getAsync(Employee.class, "EmployeeCollection('id1')")
+                .get(5, TimeUnit.SECONDS).getSingleResult());
+
+        final List<ODataTransportRequest> requests = requests("EmployeeCollection('id1')");
+        Assert.assertEquals(3, requests.size());
+        Assert.assertNull(requests.get(0).getHeader(HttpHeaders.IF_NONE_MATCH));
+        Assert.assertEquals("\"v1\"", requests.get(1).getHeader(HttpHeaders.IF_NONE_MATCH));
+        Assert.assertEquals(2, responseCache.getNotModifiedCount());
+        Assert.assertEquals(2, responseCache.getStats().getHits());
+        Assert.assertEquals(1, responseCache.getStats().getMisses());
+    }
+
+    @Test
+    public void testReadRevalidatedWithLastModified() {
+        final List<Employee> employees = client.read("EmployeeCollection", Employee.class, "EmployeeCollection").getResultList();
+        client.read("EmployeeCollection", Employee.class, "EmployeeCollection");
+
+        final List<ODataTransportRequest> requests = requests("EmployeeCollection");
+        Assert.assertEquals("Wed, 21 Oct 2015 07:28:00 GMT", requests.get(1).getHeader(HttpHeaders.IF_MODIFIED_SINCE));
+        Assert.assertEquals(3, employees.size());
+        // the page without validators is not cached
+        Assert.assertEquals(1, responseCache.getStats().getSize());
+    }
+
+    @Test
+    public void testKeyedByLocale() {
+        client.get(Employee.class, "EmployeeCollection('id1')");
+        client.setRequestLocale(Locale.GERMAN);
+        client.get(Employee.class, "EmployeeCollection('id1')");
+
+        Assert.assertNull(requests("EmployeeCollection('id1')").get(1).getHeader(HttpHeaders.IF_NONE_MATCH));
+        Assert.assertEquals(2, responseCache.getStats().getSize());
+        Assert.assertEquals(0, responseCache.getNotModifiedCount());
+    }
+
+    @Test
+    public void testByteBound() {
+        final ODataResponseCache cache = new ODataResponseCache(10, 100);
+        cache.put("a", new byte[40], "\"v1\"", null);
+        cache.put("b", new byte[40], "\"v1\"", null);
+        Assert.assertEquals(80, cache.getSize());
+
+        cache.put("c", new byte[40], "\"v1\"", null);
+        Assert.assertEquals(80, cache.getSize());
+        Assert.assertNull(cache.get("a"));
+        Assert.assertNotNull(cache.get("c"));
+
+        // a payload larger than the cache is not kept
+        cache.put("d", new byte[200], "\"v1\"", null);
+        Assert.assertNull(cache.get("d"));
+        Assert.assertTrue(cache.getSize() <= 100);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidByteBound() {
+        ODataClient.builder().responseCache(10, 0);
+    }
+}
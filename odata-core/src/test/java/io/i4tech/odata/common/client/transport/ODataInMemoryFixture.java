@@ -0,0 +1,77 @@
+package io.i4tech.odata.common.client.transport;
+
+import io.i4tech.odata.common.authorization.ODataBasicAuthorization;
+import io.i4tech.odata.common.client.ODataClient;
+import io.i4tech.odata.common.client.ODataClientBuilder;
+import io.i4tech.odata.common.mapper.ODataEntityMapper;
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Client setup and test resources shared by the tests of the test service.
+ */
+public final class ODataInMemoryFixture {
+
+    public static final String SERVICE_URL = "https://myservice.domain.com/";
+
+    public static final String CSRF_TOKEN = "TOKEN";
+
+    private static final String X_CSRF_TOKEN = "x-csrf-token";
+
+    private ODataInMemoryFixture() {
+    }
+
+    /**
+     * Client builder of the test service with basic authorization and the default mapper, without a transport.
+     */
+    public static ODataClientBuilder clientBuilder() {
+        return ODataClient.builder()
+                .serviceUrl(SERVICE_URL)
+                .authorization(ODataBasicAuthorization.builder()
+                        .username("testuser")
+                        .password("testpass")
+                        .build())
+                .mapper(new ODataEntityMapper());
+    }
+
+    public static ODataClientBuilder clientBuilder(ODataTransport transport) {
+        return clientBuilder().transport(transport);
+    }
+
+    /**
+     * Content of a test resource, e.g. {@code /employee.edmx}.
+     */
+    public static byte[] resource(String name) {
+        try (InputStream content = ODataInMemoryFixture.class.getResourceAsStream(name)) {
+            if (content == null) {
+                throw new IllegalArgumentException("Test resource " + name + " not found.");
+            }
+            return IOUtils.toByteArray(content);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String resourceString(String name) {
+        return new String(resource(name), StandardCharsets.UTF_8);
+    }
+
+    public static ODataInMemoryResponse resource(int status, String name) {
+        return new ODataInMemoryResponse(status, resource(name));
+    }
+
+    /**
+     * Handler answering the requests fetching a CSRF token with {@link #CSRF_TOKEN}.
+     */
+    public static ODataInMemoryTransport.Handler withCsrfToken(ODataInMemoryTransport.Handler handler) {
+        return request -> {
+            final ODataTransportResponse response = handler.handle(request);
+            return "Fetch".equals(request.getHeader(X_CSRF_TOKEN)) && response instanceof ODataInMemoryResponse
+                    ? ((ODataInMemoryResponse) response).header(X_CSRF_TOKEN, CSRF_TOKEN)
+                    : response;
+        };
+    }
+}
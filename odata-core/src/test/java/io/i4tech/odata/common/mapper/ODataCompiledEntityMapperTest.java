@@ -0,0 +1,83 @@
+package io.i4tech.odata.common.mapper;
+
+import io.i4tech.odata.test.model.employee.Employee;
+import io.i4tech.odata.test.model.employee.EmployeeLanguageCode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.*;
+
+public class ODataCompiledEntityMapperTest {
+
+    private final ODataEntityMapper defaultMapper = new ODataEntityMapper();
+
+    private final ODataEntityMapper compiledMapper = new ODataCompiledEntityMapper();
+
+    private static Calendar calendar(long millis) {
+        final Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        calendar.setTimeInMillis(millis);
+        return calendar;
+    }
+
+    private static Map<String, Object> employee() {
+        final Map<String, Object> skill = new HashMap<>();
+        skill.put("EmployeeID", "E1");
+        skill.put("SkillID", "S1");
+        skill.put("ValidFrom", calendar(1_500_000_000_000L));
+        skill.put("ValidTo", null);
+
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put("ObjectID", "id1");
+        properties.put("EmployeeUUID", UUID.fromString("00163e0a-1b2c-1ee9-a5b2-000000000001"));
+        properties.put("FirstName", "firstName1");
+        properties.put("lastname", "lastName1");
+        properties.put("LanguageCode", "EN");
+        properties.put("BirthDate", calendar(0L));
+        properties.put("EntityLastChangedOn", new Timestamp(1_600_000_000_123L));
+        properties.put("Unknown", BigDecimal.ONE);
+        properties.put("EmployeeSkills", Collections.singletonList(skill));
+        return properties;
+    }
+
+    @Test
+    public void testSameAsDefaultMapper() {
+        final Map<String, Object> properties = employee();
+        final Employee expected = defaultMapper.mapPropertiesToEntity(properties, Employee.class);
+        final Employee employee = compiledMapper.mapPropertiesToEntity(properties, Employee.class);
+
+        Assert.assertEquals(expected, employee);
+        Assert.assertEquals("lastName1", employee.getLastName());
+        Assert.assertEquals(EmployeeLanguageCode.ENGLISH, employee.getLanguageCode());
+        Assert.assertEquals(new Date(0L), employee.getBirthDate());
+        Assert.assertEquals(1, employee.getEmployeeSkills().size());
+        Assert.assertEquals(new Date(1_500_000_000_000L), employee.getEmployeeSkills().get(0).getValidFrom());
+        Assert.assertNull(employee.getEmployeeWorkingHours());
+    }
+
+    @Test
+    public void testConversions() {
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put("EmployeeUUID", "00163e0a-1b2c-1ee9-a5b2-000000000001");
+        properties.put("LanguageCode", "XX");
+        properties.put("EntityLastChangedOn", calendar(1_600_000_000_000L));
+
+        final Employee expected = defaultMapper.mapPropertiesToEntity(properties, Employee.class);
+        final Employee employee = compiledMapper.mapPropertiesToEntity(properties, Employee.class);
+        Assert.assertEquals(expected, employee);
+        Assert.assertEquals(UUID.fromString("00163e0a-1b2c-1ee9-a5b2-000000000001"), employee.getEmployeeUUID());
+        Assert.assertNull(employee.getLanguageCode());
+        Assert.assertEquals(new Timestamp(1_600_000_000_000L), employee.getEntityLastChangedOn());
+    }
+
+    @Test
+    public void testWriteUnchanged() {
+        final Employee employee = Employee.builder()
+                .firstName("firstName1")
+                .languageCode(EmployeeLanguageCode.GERMAN)
+                .build();
+        Assert.assertEquals(defaultMapper.mapEntityToProperties(employee, Employee.class),
+                compiledMapper.mapEntityToProperties(employee, Employee.class));
+    }
+}
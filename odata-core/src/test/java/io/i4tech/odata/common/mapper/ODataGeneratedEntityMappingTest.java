@@ -0,0 +1,163 @@
+package io.i4tech.odata.common.mapper;
+
+import io.i4tech.odata.common.model.ODataEntity;
+import io.i4tech.odata.test.model.employee.EmployeeLanguageCode;
+import io.i4tech.odata.test.model.employee.EmployeeSkills;
+import lombok.Getter;
+import lombok.Setter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.xml.bind.annotation.XmlElement;
+import java.sql.Timestamp;
+import java.util.*;
+
+public class ODataGeneratedEntityMappingTest {
+
+    // Entity as generated by xjc, with the mapping injected by the generator
+    @Getter
+    @Setter
+    public static class Person extends ODataEntity {
+
+        @XmlElement(name = "ObjectID", required = true)
+        protected String objectID;
+
+        @XmlElement(name = "PersonUUID", required = true)
+        protected UUID personUUID;
+
+        @XmlElement(name = "LanguageCode", required = true)
+        protected EmployeeLanguageCode languageCode;
+
+        @XmlElement(name = "ChangedOn", required = true)
+        protected Timestamp changedOn;
+
+        @XmlElement(name = "Age")
+        protected int age;
+
+        @XmlElement(name = "EmployeeSkills")
+        protected List<EmployeeSkills> employeeSkills;
+
+        public List<EmployeeSkills> getEmployeeSkills() {
+            if (employeeSkills == null) {
+                employeeSkills = new ArrayList<>();
+            }
+            return employeeSkills;
+        }
+
+        public static final class ODataMapping extends ODataGeneratedEntityMapping<Person> {
+
+            public ODataMapping(ODataEntityMapper mapper) {
+                super(Person.class, mapper);
+            }
+
+            @Override
+            public Person read(Map<String, Object> properties) {
+                final Person entity = new Person();
+                entity.setObjectID(value(properties, "ObjectID"));
+                entity.setPersonUUID(value(properties, "PersonUUID"));
+                entity.setLanguageCode(value(properties, "LanguageCode"));
+                entity.setChangedOn(value(properties, "ChangedOn"));
+                entity.setAge(value(properties, "Age"));
+                entities(entity.getEmployeeSkills(), properties, "EmployeeSkills", EmployeeSkills.class);
+                return entity;
+            }
+
+            @Override
+            public Map<String, Object> write(Person entity) {
+                final Map<String, Object> properties = new HashMap<>();
+                put(properties, "ObjectID", entity.getObjectID());
+                put(properties, "PersonUUID", entity.getPersonUUID());
+                put(properties, "LanguageCode", entity.getLanguageCode());
+                put(properties, "ChangedOn", entity.getChangedOn());
+                put(properties, "Age", entity.getAge());
+                return properties;
+            }
+        }
+    }
+
+    public static class BasePerson extends ODataEntity {
+
+        protected String etag;
+    }
+
+    public static class DerivedPerson extends BasePerson {
+
+        public static final class ODataMapping extends ODataGeneratedEntityMapping<DerivedPerson> {
+
+            public ODataMapping(ODataEntityMapper mapper) {
+                super(DerivedPerson.class, mapper);
+            }
+
+            @Override
+            public DerivedPerson read(Map<String, Object> properties) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Map<String, Object> write(DerivedPerson entity) {
+                throw new UnsupportedOperationException();
+            }
+        }
+    }
+
+    private final ODataEntityMapper mapper = new ODataEntityMapper();
+
+    private static Calendar calendar(long millis) {
+        final Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        calendar.setTimeInMillis(millis);
+        return calendar;
+    }
+
+    @Test
+    public void testRead() {
+        final Map<String, Object> skill = new HashMap<>();
+        skill.put("EmployeeID", "E1");
+        skill.put("SkillID", "S1");
+
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put("ObjectID", "id1");
+        properties.put("PersonUUID", "00163e0a-1b2c-1ee9-a5b2-000000000001");
+        properties.put("LanguageCode", "DE");
+        properties.put("ChangedOn", calendar(1_600_000_000_000L));
+        properties.put("Age", null);
+        properties.put("EmployeeSkills", Collections.singletonList(skill));
+
+        final Person person = mapper.mapPropertiesToEntity(properties, Person.class);
+        Assert.assertEquals("id1", person.getObjectID());
+        Assert.assertEquals(UUID.fromString("00163e0a-1b2c-1ee9-a5b2-000000000001"), person.getPersonUUID());
+        Assert.assertEquals(EmployeeLanguageCode.GERMAN, person.getLanguageCode());
+        Assert.assertEquals(new Timestamp(1_600_000_000_000L), person.getChangedOn());
+        Assert.assertEquals(0, person.getAge());
+        Assert.assertEquals("S1", person.getEmployeeSkills().get(0).getSkillID());
+
+        properties.put("LanguageCode", "XX");
+        properties.put("Age", 42L);
+        final Person compiled = new ODataCompiledEntityMapper().mapPropertiesToEntity(properties, Person.class);
+        Assert.assertNull(compiled.getLanguageCode());
+        Assert.assertEquals(42, compiled.getAge());
+    }
+
+    @Test
+    public void testWrite() {
+        final Person person = new Person();
+        person.setObjectID("");
+        person.setLanguageCode(EmployeeLanguageCode.ENGLISH);
+        person.setChangedOn(new Timestamp(1_600_000_000_000L));
+
+        final Map<String, Object> properties = mapper.mapEntityToProperties(person, Person.class);
+        Assert.assertFalse(properties.containsKey("ObjectID"));
+        Assert.assertFalse(properties.containsKey("PersonUUID"));
+        Assert.assertEquals("EN", properties.get("LanguageCode"));
+        Assert.assertEquals(new Timestamp(1_600_000_000_000L), properties.get("ChangedOn"));
+        Assert.assertEquals(0, properties.get("Age"));
+    }
+
+    @Test
+    public void testFallback() {
+        Assert.assertNotNull(mapper.getGeneratedMapping(Person.class));
+        Assert.assertNull(mapper.getGeneratedMapping(EmployeeSkills.class));
+        // base class properties are not known to the generated mapping
+        Assert.assertNull(mapper.getGeneratedMapping(DerivedPerson.class));
+        Assert.assertNotNull(mapper.mapPropertiesToEntity(Collections.singletonMap("etag", "W/1"), DerivedPerson.class));
+    }
+}
@@ -0,0 +1,261 @@
+package io.i4tech.odata.common.operation;
+
+import io.i4tech.odata.common.client.*;
+import io.i4tech.odata.common.operation.batch.ODataBatchOperation;
+import io.i4tech.odata.common.operation.batch.ODataChangeSet;
+import io.i4tech.odata.common.operation.create.ODataCreateOperation;
+import io.i4tech.odata.common.operation.delete.ODataDeleteOperation;
+import io.i4tech.odata.common.operation.query.ODataQueryOperation;
+import io.i4tech.odata.common.operation.update.ODataUpdateOperation;
+import io.i4tech.odata.test.model.employee.Employee;
+import io.i4tech.odata.test.model.employee.EmployeeSkills;
+import io.i4tech.odata.test.util.ODataBatchTestServer;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.message.BasicHeader;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static io.i4tech.odata.common.client.transport.ODataInMemoryFixture.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class ODataBatchOperationTest {
+
+    @Mock
+    private HttpClient httpClient;
+
+    private ODataClient client;
+
+    private ODataBatchTestServer server;
+
+    private boolean extraResponsePart;
+
+    private static HttpResponse response(int status, String contentType, InputStream content) throws IOException {
+        final HttpResponse response = mock(HttpResponse.class, RETURNS_DEEP_STUBS);
+        when(response.getStatusLine().getStatusCode()).thenReturn(status);
+        when(response.getHeaders("x-csrf-token")).thenReturn(new Header[]{new BasicHeader("x-csrf-token", "TOKEN")});
+        when(response.getFirstHeader("Content-Type")).thenReturn(new BasicHeader("Content-Type", contentType));
+        when(response.getEntity().getContent()).thenReturn(content);
+        return response;
+    }
+
+    private static ODataBatchTestServer.PartResponse handle(ODataBatchTestServer.Part part) {
+        if (part.uri.contains("unknown") || part.body.toString().contains("unknown")) {
+            return new ODataBatchTestServer.PartResponse(404, resourceString("/error.json"));
+        }
+        switch (part.method) {
+            case "GET":
+                return new ODataBatchTestServer.PartResponse(200, resourceString("/employee-feed-page2.json"));
+            case "POST":
+                return new ODataBatchTestServer.PartResponse(201, resourceString("/employee-entry.json"));
+            default:
+                return new ODataBatchTestServer.PartResponse(204, null);
+        }
+    }
+
+    @Before
+    public void setup() throws IOException {
+        server = new ODataBatchTestServer(ODataBatchOperationTest::handle);
+        when(httpClient.execute(any(HttpUriRequest.class))).thenAnswer(invocation -> {
+            final HttpUriRequest request = invocation.getArgument(0);
+            final String uri = request.getURI().toString();
+            if (uri.contains("$metadata")) {
+                return response(200, "application/xml", new ByteArrayInputStream(resource("/employee.edmx")));
+            } else if (uri.endsWith("$batch")) {
+                String body = server.respond(request);
+                if (extraResponsePart) {
+                    // repeat the first part of the response
+                    final String boundary = "--" + ODataBatchTestServer.RESPONSE_BOUNDARY;
+                    body = body.substring(0, body.indexOf(boundary, boundary.length())) + body;
+                }
+                return response(202, "multipart/mixed; boundary=" + ODataBatchTestServer.RESPONSE_BOUNDARY,
+                        new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+            }
+            return response(200, "application/json", new ByteArrayInputStream(new byte[0]));
+        });
+
+        client = clientBuilder()
+                .httpClient(httpClient)
+                .format(ODataFormat.JSON)
+                .build();
+    }
+
+    private ODataBatchOperation batch(int maxPartsPerBatch) {
+        return ODataBatchOperation.builder()
+                .client(client)
+                .maxPartsPerBatch(maxPartsPerBatch)
+                .operation(ODataQueryOperation.<Employee>builder()
+                        .client(client)
+                        .path(Employee.class)
+                        .build())
+                .operation(ODataCreateOperation.<Employee>builder()
+                        .client(client)
+                        .path(Employee.class)
+                        .data(Employee.builder().firstName("firstName4").build())
+                        .build())
+                .operation(ODataUpdateOperation.<Employee>builder()
+                        .client(client)
+                        .path(Employee.class, Employee._ObjectID, "unknown")
+                        .data(Employee.builder().firstName("firstName5").build())
+                        .build())
+                .operation(ODataDeleteOperation.<Employee>builder()
+                        .client(client)
+                        .path(Employee.class, Employee._ObjectID, "id3")
+                        .build())
+                .build();
+    }
+
+    @Test
+    public void testBatch() throws IOException {
+        final ODataBatchResponse response = batch(100).execute();
+
+        verify(httpClient, times(1)).execute(argThat(r -> r.getURI().toString().endsWith("$batch")));
+        final List<ODataBatchTestServer.Part> parts = server.getBatches().get(0);
+        Assert.assertEquals(4, parts.size());
+        Assert.assertNull(parts.get(0).changeSet);
+        Assert.assertEquals("EmployeeCollection", parts.get(0).uri);
+        Assert.assertEquals("POST", parts.get(1).method);
+        Assert.assertTrue(parts.get(1).body.toString().contains("\"FirstName\":\"firstName4\""));
+        Assert.assertNotNull(parts.get(1).changeSet);
+        Assert.assertNotEquals(parts.get(1).changeSet, parts.get(2).changeSet);
+
+        Assert.assertEquals(4, response.getParts().size());
+        Assert.assertTrue(response.hasErrors());
+        Assert.assertEquals("id3", ((Employee) response.getResponses().get(0).getSingleResult()).getObjectID());
+        Assert.assertEquals(201, response.getParts().get(1).getStatusCode());
+        Assert.assertEquals("id4", ((Employee) response.getResponses().get(1).getSingleResult()).getObjectID());
+        final ODataBatchResponsePart<?> failed = response.getParts().get(2);
+        Assert.assertFalse(failed.isSuccess());
+        Assert.assertEquals(404, failed.getStatusCode());
+        Assert.assertEquals("SY/530", failed.getError().getCode());
+        Assert.assertTrue(response.getParts().get(3).isSuccess());
+    }
+
+    @Test
+    public void testExtraResponsePart() {
+        extraResponsePart = true;
+        try {
+            batch(100).execute();
+            Assert.fail();
+        } catch (ODataException e) {
+            Assert.assertTrue(e.getMessage().contains("5 parts, 4 expected"));
+        }
+    }
+
+    @Test
+    public void testMaxPartsPerBatch() throws IOException {
+        final ODataBatchResponse response = batch(3).execute();
+
+        verify(httpClient, times(2)).execute(argThat(r -> r.getURI().toString().endsWith("$batch")));
+        Assert.assertEquals(3, server.getBatches().get(0).size());
+        Assert.assertEquals(1, server.getBatches().get(1).size());
+        Assert.assertEquals(4, response.getParts().size());
+        Assert.assertEquals("DELETE", response.getParts().get(3).getRequest().getMethod().name());
+    }
+
+    @Test(expected = ODataOperationBuilderException.class)
+    public void testInvalidMaxParts() {
+        ODataBatchOperation.builder().client(client).maxPartsPerBatch(0);
+    }
+
+    private ODataChangeSet employeeWithSkill(String skillID) {
+        return ODataChangeSet.builder()
+                .operation(ODataCreateOperation.<Employee>builder()
+                        .client(client)
+                        .path(Employee.class)
+                        .data(Employee.builder().firstName("firstName4").build())
+                        .build(), "employee")
+                .operation(ODataCreateOperation.<EmployeeSkills>builder()
+                        .client(client)
+                        .reference("employee", Employee._EmployeeSkills, EmployeeSkills.class)
+                        .data(EmployeeSkills.builder().skillID(skillID).build())
+                        .build())
+                .build();
+    }
+
+    @Test
+    public void testChangeSet() throws IOException {
+        final ODataBatchResponse response = ODataBatchOperation.builder()
+                .client(client)
+                .changeSet(employeeWithSkill("skill1"))
+                .operation(ODataQueryOperation.<Employee>builder()
+                        .client(client)
+                        .path(Employee.class)
+                        .build())
+                .build()
+                .execute();
+
+        final List<ODataBatchTestServer.Part> parts = server.getBatches().get(0);
+        Assert.assertEquals(3, parts.size());
+        Assert.assertNotNull(parts.get(0).changeSet);
+        Assert.assertEquals(parts.get(0).changeSet, parts.get(1).changeSet);
+        Assert.assertEquals("employee", parts.get(0).contentId);
+        Assert.assertEquals("EmployeeCollection", parts.get(0).uri);
+        Assert.assertEquals("$employee/EmployeeSkills", parts.get(1).uri);
+        Assert.assertTrue(parts.get(1).body.toString().contains("\"SkillID\":\"skill1\""));
+        Assert.assertNull(parts.get(2).changeSet);
+
+        Assert.assertFalse(response.hasErrors());
+        Assert.assertEquals(3, response.getParts().size());
+        Assert.assertEquals("employee", response.getParts().get(0).getContentId());
+        Assert.assertEquals("id4", ((Employee) response.getResponses().get(0).getSingleResult()).getObjectID());
+    }
+
+    @Test
+    public void testFailedChangeSet() {
+        final ODataBatchResponse response = ODataBatchOperation.builder()
+                .client(client)
+                .changeSet(employeeWithSkill("unknown"))
+                .changeSet(employeeWithSkill("skill2"))
+                .build()
+                .execute();
+
+        Assert.assertEquals(4, response.getParts().size());
+        Assert.assertEquals(404, response.getParts().get(0).getStatusCode());
+        Assert.assertEquals(404, response.getParts().get(1).getStatusCode());
+        Assert.assertEquals("SY/530", response.getParts().get(1).getError().getCode());
+        Assert.assertTrue(response.getParts().get(2).isSuccess());
+        Assert.assertTrue(response.getParts().get(3).isSuccess());
+    }
+
+    @Test
+    public void testChangeSetIsNotSplit() {
+        ODataBatchOperation.builder()
+                .client(client)
+                .maxPartsPerBatch(3)
+                .changeSet(employeeWithSkill("skill1"))
+                .changeSet(employeeWithSkill("skill2"))
+                .build()
+                .execute();
+
+        Assert.assertEquals(2, server.getBatches().size());
+        Assert.assertEquals(2, server.getBatches().get(0).size());
+        Assert.assertEquals(2, server.getBatches().get(1).size());
+    }
+
+    @Test(expected = ODataOperationBuilderException.class)
+    public void testDuplicateContentId() {
+        final ODataCreateOperation<Employee> create = ODataCreateOperation.<Employee>builder()
+                .client(client)
+                .path(Employee.class)
+                .data(Employee.builder().build())
+                .build();
+        ODataChangeSet.builder()
+                .operation(create, "employee")
+                .operation(create, "employee");
+    }
+}
@@ -0,0 +1,163 @@
+package io.i4tech.odata.test.util;
+
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Answers $batch requests part by part. Parts of a changeset are answered together, a failing part
+ * makes the whole changeset fail with the response of the failing part.
+ */
+public class ODataBatchTestServer {
+
+    public static final String RESPONSE_BOUNDARY = "batchresponse_test";
+
+    private static final Pattern REQUEST_LINE = Pattern.compile("^(GET|POST|PUT|PATCH|MERGE|DELETE) (\\S+) HTTP/1.1$");
+    private static final Pattern CHANGESET_START = Pattern.compile("(?i)^Content-Type: multipart/mixed; ?boundary=(\\S+)$");
+    private static final Pattern CONTENT_ID = Pattern.compile("(?i)^Content-ID: ?(\\S+)$");
+
+    public static class Part {
+        public final String method;
+        public final String uri;
+        public final String changeSet;
+        public String contentId;
+        public final StringBuilder body = new StringBuilder();
+
+        Part(String method, String uri, String changeSet) {
+            this.method = method;
+            this.uri = uri;
+            this.changeSet = changeSet;
+        }
+    }
+
+    public static class PartResponse {
+        public final int status;
+        public final String body;
+
+        public PartResponse(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private final Function<Part, PartResponse> handler;
+
+    private final List<List<Part>> batches = new ArrayList<>();
+
+    public ODataBatchTestServer(Function<Part, PartResponse> handler) {
+        this.handler = handler;
+    }
+
+    public List<List<Part>> getBatches() {
+        return batches;
+    }
+
+    public static List<Part> parse(String requestBody) {
+        final List<Part> parts = new ArrayList<>();
+        String changeSet = null;
+        String contentId = null;
+        Part current = null;
+        boolean inBody = false;
+        for (String line : requestBody.split("\r\n")) {
+            final Matcher changeSetStart = CHANGESET_START.matcher(line);
+            final Matcher requestLine = REQUEST_LINE.matcher(line);
+            final Matcher contentIdLine = CONTENT_ID.matcher(line);
+            if (changeSetStart.matches()) {
+                changeSet = changeSetStart.group(1);
+            } else if (changeSet != null && line.equals("--" + changeSet + "--")) {
+                changeSet = null;
+            } else if (line.startsWith("--")) {
+                current = null;
+                inBody = false;
+            } else if (requestLine.matches()) {
+                current = new Part(requestLine.group(1), requestLine.group(2), changeSet);
+                current.contentId = contentId;
+                contentId = null;
+                parts.add(current);
+            } else if (current == null && contentIdLine.matches()) {
+                // Content-ID is a header of the MIME part, preceding the request line
+                contentId = contentIdLine.group(1);
+            } else if (current != null && !inBody && line.isEmpty()) {
+                inBody = true;
+            } else if (current != null && inBody) {
+                current.body.append(line);
+            }
+        }
+        return parts;
+    }
+
+    private static String statusLine(int status) {
+        return "HTTP/1.1 " + status + (status < 400 ? " OK" : " Error");
+    }
+
+    private static void appendResponse(StringBuilder out, PartResponse response, String contentId) {
+        out.append("Content-Type: application/http\r\n")
+                .append("Content-Transfer-Encoding: binary\r\n");
+        if (contentId != null) {
+            out.append("Content-ID: ").append(contentId).append("\r\n");
+        }
+        out.append("\r\n")
+                .append(statusLine(response.status)).append("\r\n")
+                .append("Content-Type: application/json\r\n")
+                .append("\r\n");
+        if (response.body != null) {
+            out.append(response.body);
+        }
+        out.append("\r\n");
+    }
+
+    public String respond(HttpUriRequest request) throws IOException {
+        final String requestBody = IOUtils.toString(((HttpEntityEnclosingRequest) request).getEntity().getContent(), StandardCharsets.UTF_8);
+        final List<Part> parts = parse(requestBody);
+        batches.add(parts);
+
+        final Map<String, List<Part>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < parts.size(); i++) {
+            final Part part = parts.get(i);
+            groups.computeIfAbsent(part.changeSet != null ? part.changeSet : "query" + i, k -> new ArrayList<>()).add(part);
+        }
+
+        final StringBuilder out = new StringBuilder();
+        int changeSetCount = 0;
+        for (Map.Entry<String, List<Part>> group : groups.entrySet()) {
+            out.append("--").append(RESPONSE_BOUNDARY).append("\r\n");
+            final List<Part> groupParts = group.getValue();
+            if (groupParts.get(0).changeSet == null) {
+                appendResponse(out, handler.apply(groupParts.get(0)), null);
+                continue;
+            }
+            final List<PartResponse> responses = new ArrayList<>();
+            PartResponse failure = null;
+            for (Part part : groupParts) {
+                final PartResponse response = handler.apply(part);
+                responses.add(response);
+                if (response.status >= 400 && failure == null) {
+                    failure = response;
+                }
+            }
+            if (failure != null) {
+                appendResponse(out, failure, null);
+                continue;
+            }
+            final String changeSetBoundary = "changesetresponse_" + (changeSetCount++);
+            out.append("Content-Type: multipart/mixed; boundary=").append(changeSetBoundary).append("\r\n\r\n");
+            for (int i = 0; i < groupParts.size(); i++) {
+                out.append("--").append(changeSetBoundary).append("\r\n");
+                appendResponse(out, responses.get(i), groupParts.get(i).contentId);
+            }
+            out.append("--").append(changeSetBoundary).append("--\r\n");
+        }
+        out.append("--").append(RESPONSE_BOUNDARY).append("--\r\n");
+        return out.toString();
+    }
+}
@@ -52,6 +52,8 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
@@ -143,6 +145,14 @@ public class XsdGeneratorMojo extends AbstractMojo {
      */
     private String outputSchema;
 
+    /**
+     * Path and filename of the metadata snapshot, an EDMX reduced to the generated entities
+     * which is read by the client instead of the service metadata.
+     *
+     * @parameter
+     */
+    private String outputMetadataSnapshot;
+
     /**
      * Root directory for dowloaded collections. Each
      *
@@ -277,6 +287,14 @@ public class XsdGeneratorMojo extends AbstractMojo {
      */
     private List<String> excludedCodelists;
 
+    /**
+     * Generate a nested mapping class for each entity, used by the entity mapper instead of reflection.
+     * Requires the code injector plugin of xjc.
+     *
+     * @parameter
+     */
+    private boolean generateEntityMappings;
+
     private final Log logger = getLog();
 
     private HttpEntity executeGet(String absoluteUrl, String contentType) throws IOException {
@@ -403,46 +421,68 @@ public class XsdGeneratorMojo extends AbstractMojo {
                     handleException(e);
                 }
             });
-            final String entities = Arrays.stream(StringUtils.defaultString(headerEntities).split(","))
-                    .map(s -> entityPrefix + "." + s).collect(Collectors.joining(","));
-
             Transformer transformer = tFactory.newTransformer(xsl);
-            transformer.setParameter("rootTargetNamespace", rootTargetNamespace);
-            transformer.setParameter("packageNamespace", StringUtils.defaultString(packageNamespace));
-            transformer.setParameter("collectionsUrl", rootServiceUrl);
-            transformer.setParameter("collectionsPath", rootCollectionPath +
-                    (StringUtils.isNotBlank(packageNamespace) ?  packageNamespace + "/" : ""));
-            transformer.setParameter("headerEntities", entities);
-            transformer.setParameter("entityBaseClass", StringUtils.defaultString(entityBaseClass));
-            transformer.setParameter("fieldsMetaInterface", fieldsMetaInterface);
-            transformer.setParameter("keyMetaInterface", keyMetaInterface);
-            transformer.setParameter("navigationMetaInterface", navigationMetaInterface);
-            transformer.setParameter("functionImports", StringUtils.defaultString(functionImports));
-            transformer.setParameter("functionImportBaseClass", functionImportBaseClass);
-            transformer.setParameter("codelistWrapperMetaInterface", codelistWrapperMetaInterface);
-            transformer.setParameter("generateCodelistWrapper", StringUtils.isNotBlank(generateCodelistWrapper) ?
-                    generateCodelistWrapper : StringUtils.EMPTY);
-            transformer.setParameter("contextualCodelistWrapperMetaInterface", contextualCodelistWrapperMetaInterface);
-            transformer.setParameter("generateContextualCodelistWrapper", StringUtils.isNotBlank(generateContextualCodelistWrapper) ?
-                    generateContextualCodelistWrapper : StringUtils.EMPTY);
-            transformer.setParameter("enumMetaInterface", enumMetaInterface);
-
-            if (importedEntities != null) {
-                transformer.setParameter("importedEntities", importedEntities.stream()
-                        .map(i -> i.getName() + " " + createPrefix(i.getName()) + " " + rootTargetNamespace + i.getPackageNamespace() + " " + i.getSchema())
-                        .collect(Collectors.joining(",")));
-            }
-
-            if (excludedCodelists != null && !excludedCodelists.isEmpty()) {
-                transformer.setParameter("excludedCodelists", String.join(",", excludedCodelists));
-            }
+            setParameters(transformer);
             transformer.setURIResolver((href, base) -> resolveCollection(href));
             transformer.transform(new StreamSource(new File(inputMetadata)), new StreamResult(new File(outputSchema)));
 
+            if (StringUtils.isNotBlank(outputMetadataSnapshot)) {
+                generateMetadataSnapshot(tFactory);
+            }
         } catch (Exception e) {
             throw new MojoExecutionException("Could not generate xsd.", e);
         }
     }
 
+    void generateMetadataSnapshot(TransformerFactory tFactory) throws TransformerException, IOException {
+        final URL stylesheet = this.getClass().getResource("/xsl/edmx2snapshot.xsl");
+        try (InputStream content = stylesheet.openStream()) {
+            // system id is needed to resolve the imported schema stylesheet
+            final Transformer transformer = tFactory.newTransformer(new StreamSource(content, stylesheet.toExternalForm()));
+            setParameters(transformer);
+            final File snapshot = new File(outputMetadataSnapshot);
+            if (snapshot.getParentFile() != null) {
+                snapshot.getParentFile().mkdirs();
+            }
+            transformer.transform(new StreamSource(new File(inputMetadata)), new StreamResult(snapshot));
+        }
+    }
+
+    private void setParameters(Transformer transformer) {
+        final String entities = Arrays.stream(StringUtils.defaultString(headerEntities).split(","))
+                .map(s -> entityPrefix + "." + s).collect(Collectors.joining(","));
+
+        transformer.setParameter("rootTargetNamespace", rootTargetNamespace);
+        transformer.setParameter("packageNamespace", StringUtils.defaultString(packageNamespace));
+        transformer.setParameter("collectionsUrl", rootServiceUrl);
+        transformer.setParameter("collectionsPath", rootCollectionPath +
+                (StringUtils.isNotBlank(packageNamespace) ?  packageNamespace + "/" : ""));
+        transformer.setParameter("headerEntities", entities);
+        transformer.setParameter("entityBaseClass", StringUtils.defaultString(entityBaseClass));
+        transformer.setParameter("fieldsMetaInterface", fieldsMetaInterface);
+        transformer.setParameter("keyMetaInterface", keyMetaInterface);
+        transformer.setParameter("navigationMetaInterface", navigationMetaInterface);
+        transformer.setParameter("functionImports", StringUtils.defaultString(functionImports));
+        transformer.setParameter("functionImportBaseClass", functionImportBaseClass);
+        transformer.setParameter("codelistWrapperMetaInterface", codelistWrapperMetaInterface);
+        transformer.setParameter("generateCodelistWrapper", StringUtils.isNotBlank(generateCodelistWrapper) ?
+                generateCodelistWrapper : StringUtils.EMPTY);
+        transformer.setParameter("contextualCodelistWrapperMetaInterface", contextualCodelistWrapperMetaInterface);
+        transformer.setParameter("generateContextualCodelistWrapper", StringUtils.isNotBlank(generateContextualCodelistWrapper) ?
+                generateContextualCodelistWrapper : StringUtils.EMPTY);
+        transformer.setParameter("enumMetaInterface", enumMetaInterface);
+        transformer.setParameter("generateEntityMappings", String.valueOf(generateEntityMappings));
+
+        if (importedEntities != null) {
+            transformer.setParameter("importedEntities", importedEntities.stream()
+                    .map(i -> i.getName() + " " + createPrefix(i.getName()) + " " + rootTargetNamespace + i.getPackageNamespace() + " " + i.getSchema())
+                    .collect(Collectors.joining(",")));
+        }
+
+        if (excludedCodelists != null && !excludedCodelists.isEmpty()) {
+            transformer.setParameter("excludedCodelists", String.join(",", excludedCodelists));
+        }
+    }
+
 
 }
@@ -0,0 +1,75 @@
+<?xml version="1.0" encoding="UTF-8"?>
+<!--
+
+MIT License
+
+Copyright (c) 2019 i4tech Kft.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+
+-->
+<!--
+    Reduces the EDMX to the entity sets, entity types, associations and function imports the schema
+    is generated for. The result is packaged as a classpath resource and read by the client instead
+    of the $metadata of the service.
+-->
+<xsl:stylesheet xmlns:xsl="http://www.w3.org/1999/XSL/Transform" version="2.0"
+                xmlns:edm="http://schemas.microsoft.com/ado/2008/09/edm"
+                exclude-result-prefixes="edm"
+>
+
+    <!-- entities collected for the schema generation ($bom, $imports) -->
+    <xsl:import href="edmx2xsd.xsl"/>
+
+    <xsl:output method="xml" indent="no" omit-xml-declaration="no" encoding="UTF-8"/>
+
+    <xsl:variable name="entitySets" select="distinct-values(($bom//entity, $bom//contextual, $bom//enum,
+            //edm:EntitySet[substring-after(@EntityType, '.') = $imports/*/@type]/@Name))"/>
+
+    <xsl:variable name="entityTypes" select="distinct-values(//edm:EntitySet[@Name = $entitySets]/@EntityType)"/>
+
+    <xsl:variable name="associations" select="//edm:Association[every $end in edm:End satisfies $end/@Type = $entityTypes]
+            /concat(../@Namespace, '.', @Name)"/>
+
+    <xsl:template match="/">
+        <xsl:apply-templates mode="snapshot" select="node()"/>
+    </xsl:template>
+
+    <xsl:template mode="snapshot" match="@*|node()">
+        <xsl:copy>
+            <xsl:apply-templates mode="snapshot" select="@*|node()"/>
+        </xsl:copy>
+    </xsl:template>
+
+    <xsl:template mode="snapshot" match="edm:EntityType[not(concat(../@Namespace, '.', @Name) = $entityTypes)]"/>
+
+    <xsl:template mode="snapshot" match="edm:NavigationProperty[not(@Relationship = $associations)]"/>
+
+    <xsl:template mode="snapshot" match="edm:Association[not(concat(../@Namespace, '.', @Name) = $associations)]"/>
+
+    <xsl:template mode="snapshot" match="edm:EntitySet[not(@Name = $entitySets)]"/>
+
+    <xsl:template mode="snapshot" match="edm:AssociationSet[not(@Association = $associations)
+            or not(every $end in edm:End satisfies $end/@EntitySet = $entitySets)]"/>
+
+    <xsl:template mode="snapshot" match="edm:FunctionImport[not(@Name = $bom//function)]"/>
+
+    <xsl:template mode="snapshot" match="edm:Documentation"/>
+
+</xsl:stylesheet>
@@ -37,6 +37,8 @@ SOFTWARE.
                 xmlns:m="http://schemas.microsoft.com/ado/2007/08/dataservices/metadata"
                 xmlns:d="http://schemas.microsoft.com/ado/2007/08/dataservices"
                 xmlns:atom="http://www.w3.org/2005/Atom"
+                xmlns:i4="http://i4tech.io/odata/generator"
+                exclude-result-prefixes="i4"
 >
 
     <xsl:strip-space elements="*"/>
@@ -62,6 +64,7 @@ SOFTWARE.
     <xsl:param name="enumMetaInterface" />
     <xsl:param name="importedEntities"/>
     <xsl:param name="excludedCodelists"/>
+    <xsl:param name="generateEntityMappings"/>
 
     <xsl:variable name="imports">
         <xsl:for-each select="tokenize($importedEntities, ',')">
@@ -261,6 +264,71 @@ SOFTWARE.
         </xsl:if>
     </xsl:template>
 
+    <!-- Java name xjc derives from an Edm name: words capitalized, separators removed -->
+    <xsl:function name="i4:javaName">
+        <xsl:param name="name"/>
+        <xsl:variable name="words" select="string-join(for $w in tokenize($name, '[_\-.]+')[. != '']
+                return concat(upper-case(substring($w, 1, 1)), substring($w, 2)), '')"/>
+        <xsl:variable name="result">
+            <xsl:analyze-string select="$words" regex="([0-9])([a-z])">
+                <xsl:matching-substring>
+                    <xsl:value-of select="concat(regex-group(1), upper-case(regex-group(2)))"/>
+                </xsl:matching-substring>
+                <xsl:non-matching-substring>
+                    <xsl:value-of select="."/>
+                </xsl:non-matching-substring>
+            </xsl:analyze-string>
+        </xsl:variable>
+        <xsl:sequence select="if ($result = 'Class') then 'Clazz' else string($result)"/>
+    </xsl:function>
+
+    <xsl:function name="i4:navigationType">
+        <xsl:param name="navigation"/>
+        <xsl:variable name="associationName" select="substring-after($navigation/@Relationship, '.')"/>
+        <xsl:variable name="association" select="root($navigation)//edm:Association[@Name = $associationName]"/>
+        <xsl:sequence select="$association/edm:End[@Role = $navigation/@ToRole]"/>
+    </xsl:function>
+
+    <!-- Nested mapping class reading and writing the properties through the accessors generated by xjc -->
+    <xsl:template name="generate-entity-mapping">
+        <xsl:variable name="className" select="i4:javaName(@Name)"/>
+        <ci:code>
+            <xsl:value-of select="concat('&#10;    public static final class ODataMapping extends io.i4tech.odata.common.mapper.ODataGeneratedEntityMapping&lt;', $className, '&gt; {&#10;&#10;',
+                    '        public ODataMapping(io.i4tech.odata.common.mapper.ODataEntityMapper mapper) {&#10;',
+                    '            super(', $className, '.class, mapper);&#10;',
+                    '        }&#10;&#10;',
+                    '        @Override&#10;',
+                    '        public ', $className, ' read(java.util.Map&lt;String, Object&gt; properties) {&#10;',
+                    '            final ', $className, ' entity = new ', $className, '();&#10;')"/>
+            <xsl:for-each select="edm:Property">
+                <xsl:value-of select="concat('            entity.set', i4:javaName(@Name), '(value(properties, &quot;', @Name, '&quot;));&#10;')"/>
+            </xsl:for-each>
+            <xsl:for-each select="edm:NavigationProperty">
+                <xsl:variable name="end" select="i4:navigationType(.)"/>
+                <xsl:variable name="navigationClassName" select="i4:javaName(substring-after($end/@Type, '.'))"/>
+                <xsl:choose>
+                    <xsl:when test="$end/@Multiplicity = '*'">
+                        <xsl:value-of select="concat('            entities(entity.get', i4:javaName(@Name), '(), properties, &quot;', @Name, '&quot;, ', $navigationClassName, '.class);&#10;')"/>
+                    </xsl:when>
+                    <xsl:otherwise>
+                        <xsl:value-of select="concat('            entity.set', i4:javaName(@Name), '(entity(properties, &quot;', @Name, '&quot;, ', $navigationClassName, '.class));&#10;')"/>
+                    </xsl:otherwise>
+                </xsl:choose>
+            </xsl:for-each>
+            <xsl:value-of select="concat('            return entity;&#10;',
+                    '        }&#10;&#10;',
+                    '        @Override&#10;',
+                    '        public java.util.Map&lt;String, Object&gt; write(', $className, ' entity) {&#10;',
+                    '            final java.util.Map&lt;String, Object&gt; properties = new java.util.HashMap&lt;&gt;();&#10;')"/>
+            <xsl:for-each select="edm:Property">
+                <xsl:value-of select="concat('            put(properties, &quot;', @Name, '&quot;, entity.', if (@Type = 'Edm.Boolean') then 'is' else 'get', i4:javaName(@Name), '());&#10;')"/>
+            </xsl:for-each>
+            <xsl:value-of select="concat('            return properties;&#10;',
+                    '        }&#10;',
+                    '    }&#10;')"/>
+        </ci:code>
+    </xsl:template>
+
     <xsl:template name="camelToSnake">
         <xsl:param name="text"/>
         <xsl:variable name="Upper">ABCDEFGHIJKLMNOPQRSTUVQXYZ ,</xsl:variable>
@@ -454,6 +522,11 @@ SOFTWARE.
                         <inheritance:extends><xsl:value-of select="$entityBaseClass"></xsl:value-of> </inheritance:extends>
                     </xsl:if>
                     <annox:annotate><xsl:value-of select="concat('@io.i4tech.odata.common.model.ODataEntitySet(name = &quot;',$entitySetName,'&quot;)')"/></annox:annotate>
+                    <!-- navigations to imported entities are left to the reflective mapper -->
+                    <xsl:if test="$generateEntityMappings = 'true'
+                            and not(edm:NavigationProperty[$imports/*/@type = substring-after(i4:navigationType(.)/@Type, '.')])">
+                        <xsl:call-template name="generate-entity-mapping"/>
+                    </xsl:if>
                 </xs:appinfo>
             </xs:annotation>
             <xs:sequence>
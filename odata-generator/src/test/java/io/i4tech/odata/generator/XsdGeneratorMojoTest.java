@@ -24,16 +24,35 @@
 
 package io.i4tech.odata.generator;
 
+import net.sf.saxon.TransformerFactoryImpl;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
 
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
 import java.io.File;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
@@ -57,6 +76,8 @@ public class XsdGeneratorMojoTest {
         }
     }
 
+    private static final String JAXB_NS = "http://java.sun.com/xml/ns/jaxb";
+
     private static final Properties odataProps = new Properties();
 
     private XsdGeneratorMojo xsdGenerator = new XsdGeneratorMojo();
@@ -178,4 +199,90 @@ public class XsdGeneratorMojoTest {
         xsdGenerator.execute();
         Assert.assertTrue(new File("target/test-output.xsd").exists());
     }
+
+    @Test
+    public void testMetadataSnapshot() throws Exception {
+        xsdGenerator.setHeaderEntities("Employee");
+        xsdGenerator.setFunctionImports("CheckForDuplicates");
+        xsdGenerator.setOutputMetadataSnapshot("target/test-snapshot.edmx");
+
+        xsdGenerator.generateMetadataSnapshot(new TransformerFactoryImpl());
+        final File snapshot = new File("target/test-snapshot.edmx");
+        final String content = FileUtils.readFileToString(snapshot, StandardCharsets.UTF_8);
+        Assert.assertTrue(content.contains("<EntitySet Name=\"EmployeeCollection\""));
+        Assert.assertTrue(content.contains("<FunctionImport Name=\"CheckForDuplicates\""));
+        Assert.assertFalse(content.contains("<EntitySet Name=\"LeadCollection\""));
+        Assert.assertTrue(snapshot.length() < new File("src/test/resources/c4codataapi.edmx").length() / 4);
+    }
+
+    @Test
+    public void testEntityMappings() throws Exception {
+        xsdGenerator.setInputMetadata("src/test/resources/mapping.edmx");
+        xsdGenerator.setHeaderEntities("Sales_Order2go");
+        xsdGenerator.setGenerateEntityMappings(true);
+
+        xsdGenerator.execute();
+        final String content = FileUtils.readFileToString(new File("target/test-output.xsd"), StandardCharsets.UTF_8);
+        Assert.assertTrue(content.contains("class ODataMapping extends io.i4tech.odata.common.mapper.ODataGeneratedEntityMapping&lt;SalesOrder2Go&gt;"));
+        Assert.assertTrue(content.contains("entity.setReleased(value(properties, \"Released\"));"));
+        Assert.assertTrue(content.contains("put(properties, \"Released\", entity.isReleased());"));
+        Assert.assertTrue(content.contains("entity.setNetAmount2(value(properties, \"Net_Amount2\"));"));
+        Assert.assertTrue(content.contains("put(properties, \"Net_Amount2\", entity.getNetAmount2());"));
+        Assert.assertTrue(content.contains("entities(entity.getOrderItems(), properties, \"Order_Items\", SalesOrderItem.class);"));
+        Assert.assertTrue(content.contains("entity.setSalesOrder(entity(properties, \"Sales_Order\", SalesOrder2Go.class));"));
+        // navigations are read only
+        Assert.assertFalse(content.contains("entity.getOrderItems());"));
+
+        compileEntityMappings(new File("target/test-output.xsd"), new File("target/test-mappings"));
+    }
+
+    /**
+     * Generates the model with the xjc of the JDK and compiles it with the mappings against odata-core. The
+     * customizations of the jaxb2-basics plugins are not available there, the entities extend ODataEntity
+     * through a global binding instead.
+     */
+    private static void compileEntityMappings(File schema, File outputDirectory) throws Exception {
+        final File xjc = new File(System.getProperty("java.home"), "../bin/xjc");
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assume.assumeTrue(xjc.exists() && compiler != null);
+
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        final Document document = factory.newDocumentBuilder().parse(schema);
+        final Element root = document.getDocumentElement();
+        for (String namespace : Arrays.asList("http://jaxb2-commons.dev.java.net/basic/inheritance", "http://annox.dev.java.net")) {
+            final NodeList nodes = document.getElementsByTagNameNS(namespace, "*");
+            for (int i = nodes.getLength() - 1; i >= 0; i--) {
+                nodes.item(i).getParentNode().removeChild(nodes.item(i));
+            }
+        }
+        root.setAttributeNS(JAXB_NS, "jxb:extensionBindingPrefixes", "ci xjc");
+        final Element annotation = document.createElementNS(XMLConstants.W3C_XML_SCHEMA_NS_URI, "xs:annotation");
+        final Element appinfo = document.createElementNS(XMLConstants.W3C_XML_SCHEMA_NS_URI, "xs:appinfo");
+        final Element globalBindings = document.createElementNS(JAXB_NS, "jxb:globalBindings");
+        final Element superClass = document.createElementNS("http://java.sun.com/xml/ns/jaxb/xjc", "xjc:superClass");
+        superClass.setAttribute("name", "io.i4tech.odata.common.model.ODataEntity");
+        root.insertBefore(annotation, root.getFirstChild()).appendChild(appinfo).appendChild(globalBindings).appendChild(superClass);
+
+        FileUtils.deleteDirectory(outputDirectory);
+        outputDirectory.mkdirs();
+        final File model = new File(outputDirectory, "model.xsd");
+        TransformerFactory.newInstance().newTransformer().transform(new DOMSource(document), new StreamResult(model));
+
+        final Process process = new ProcessBuilder(xjc.getCanonicalPath(), "-extension", "-Xinject-code", "-npa", "-quiet",
+                "-d", outputDirectory.getPath(), model.getPath())
+                .redirectErrorStream(true)
+                .start();
+        final String output = IOUtils.toString(process.getInputStream(), StandardCharsets.UTF_8);
+        Assert.assertEquals(output, 0, process.waitFor());
+
+        final List<File> sources = new ArrayList<>(FileUtils.listFiles(outputDirectory, new String[]{"java"}, true));
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            final boolean compiled = compiler.getTask(null, fileManager, diagnostics,
+                    Arrays.asList("-classpath", System.getProperty("java.class.path"), "-d", outputDirectory.getPath()),
+                    null, fileManager.getJavaFileObjectsFromFiles(sources)).call();
+            Assert.assertTrue(diagnostics.getDiagnostics().toString(), compiled);
+        }
+    }
 }
@@ -0,0 +1,173 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2019 i4tech Kft.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.i4tech.odata.repository;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.i4tech.odata.common.cache.ODataCache;
+import io.i4tech.odata.common.cache.ODataCacheStats;
+import io.i4tech.odata.common.client.ODataException;
+import io.i4tech.odata.common.model.ODataEntity;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entities found by {@link ODataEntityRepository#findById(String)}, keyed by entity class, key and locale.
+ * Keys not found are cached as well, with their own time to live. Repositories invalidate the keys they write
+ * or delete. Entities are cached serialized, every hit returns a new instance the caller may modify.
+ * Register a bean of the cache to enable it for the repositories.
+ */
+public class ODataEntityCache {
+
+    private final ODataCache<Key, Optional<byte[]>> entities;
+
+    // serializes all fields, including the navigations the entity mapper ignores
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(MapperFeature.USE_ANNOTATIONS, false)
+            .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+            .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+
+    @Getter
+    private final long negativeTtlMillis;
+
+    private final Map<Class<?>, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private static final class Key {
+
+        private final Class<?> entityClass;
+
+        private final String key;
+
+        private final Locale locale;
+
+        private Key(Class<?> entityClass, String key, Locale locale) {
+            this.entityClass = entityClass;
+            this.key = key;
+            this.locale = locale;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return entityClass.equals(other.entityClass) && key.equals(other.key) && Objects.equals(locale, other.locale);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(entityClass, key, locale);
+        }
+    }
+
+    /**
+     * @param maxEntries        maximum number of cached keys
+     * @param ttlMillis         time to live of found entities, 0 if they do not expire
+     * @param negativeTtlMillis time to live of keys not found, 0 if they are not cached
+     */
+    public ODataEntityCache(int maxEntries, long ttlMillis, long negativeTtlMillis) {
+        this.entities = new ODataCache<>(maxEntries, ttlMillis);
+        this.negativeTtlMillis = negativeTtlMillis;
+    }
+
+    /**
+     * Returns the cached entity, an empty optional if the key is cached as not found, or null if the key is not cached.
+     */
+    public <E extends ODataEntity> Optional<E> get(Class<E> entityClass, String key, Locale locale) {
+        final Optional<byte[]> content = entities.get(new Key(entityClass, key, locale));
+        if (content == null) {
+            return null;
+        }
+        try {
+            return content.isPresent() ? Optional.of(objectMapper.readValue(content.get(), entityClass)) : Optional.empty();
+        } catch (IOException e) {
+            throw new ODataException(e);
+        }
+    }
+
+    /**
+     * Returns the generation of the entity class, to be passed to {@link #put(Class, String, Locale, ODataEntity, long)}
+     * when its read is sent.
+     */
+    public long getGeneration(Class<?> entityClass) {
+        return generations.computeIfAbsent(entityClass, c -> new AtomicLong()).get();
+    }
+
+    /**
+     * Caches the entity of the key, or that the key was not found if the entity is null, unless an entity of the
+     * class was invalidated since the read was sent.
+     */
+    public void put(Class<?> entityClass, String key, Locale locale, ODataEntity entity, long generation) {
+        final Key cacheKey = new Key(entityClass, key, locale);
+        if (entity != null) {
+            try {
+                entities.put(cacheKey, Optional.of(objectMapper.writeValueAsBytes(entity)));
+            } catch (IOException e) {
+                throw new ODataException(e);
+            }
+        } else if (negativeTtlMillis > 0) {
+            entities.put(cacheKey, Optional.empty(), negativeTtlMillis);
+        }
+        if (getGeneration(entityClass) != generation) {
+            entities.remove(cacheKey);
+        }
+    }
+
+    /**
+     * Removes the key in all locales, including the results of reads still in progress.
+     */
+    public void invalidate(Class<?> entityClass, String key) {
+        generations.computeIfAbsent(entityClass, c -> new AtomicLong()).incrementAndGet();
+        entities.removeIf(k -> k.entityClass.equals(entityClass) && k.key.equals(key));
+    }
+
+    public void invalidate(Class<?> entityClass) {
+        generations.computeIfAbsent(entityClass, c -> new AtomicLong()).incrementAndGet();
+        entities.removeIf(k -> k.entityClass.equals(entityClass));
+    }
+
+    public void clear() {
+        generations.values().forEach(AtomicLong::incrementAndGet);
+        entities.clear();
+    }
+
+    public ODataCacheStats getStats() {
+        return entities.getStats();
+    }
+}
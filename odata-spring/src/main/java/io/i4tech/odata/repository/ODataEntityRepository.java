@@ -30,14 +30,19 @@ import io.i4tech.odata.common.client.ODataResponse;
 import io.i4tech.odata.common.model.ODataEntity;
 import io.i4tech.odata.common.model.ODataKey;
 import io.i4tech.odata.common.model.ODataKeyFields;
+import io.i4tech.odata.common.operation.ODataFilter;
 import io.i4tech.odata.common.operation.OrderByDirection;
 import io.i4tech.odata.common.operation.create.ODataCreateOperation;
 import io.i4tech.odata.common.operation.delete.ODataDeleteOperation;
 import io.i4tech.odata.common.operation.query.ODataQueryOperation;
 import io.i4tech.odata.common.operation.query.ODataQueryOperationBuilder;
 import io.i4tech.odata.common.operation.update.ODataUpdateOperation;
+import io.i4tech.odata.common.util.EncoderUtils;
 import io.i4tech.odata.common.util.ODataEntityUtils;
+import io.i4tech.odata.common.util.ODataOperationUtils;
 import org.apache.commons.lang3.NotImplementedException;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpStatus;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -46,7 +51,14 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.repository.NoRepositoryBean;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -56,13 +68,32 @@ import static org.springframework.data.domain.Sort.Direction.DESC;
 @NoRepositoryBean
 public class ODataEntityRepository<E extends ODataEntity> implements PagingAndSortingRepository<E, String> {
 
+    public static final int DEFAULT_MAX_URL_LENGTH = 2048;
+
     @Autowired
     protected ODataClient client;
 
+    @Autowired(required = false)
+    protected ODataEntityCache entityCache;
+
+    // budget of the key filters of findAllById
+    protected int maxUrlLength = DEFAULT_MAX_URL_LENGTH;
+
     private Class<E> getEntityClass() {
         return (Class<E>) ODataEntityUtils.getEntityClass(getClass());
     }
 
+    // keys are cached in the form of the request path, as the key of the saved and deleted entities
+    private String getCacheKey(String id) {
+        return ODataKey.builder(ODataEntityUtils.getKeyField(getEntityClass()), id).build().toString();
+    }
+
+    private void invalidateCache(E entity) {
+        if (entityCache != null && entity != null && ODataEntityUtils.allKeyFieldsSet(entity)) {
+            entityCache.invalidate(getEntityClass(), ODataEntityUtils.getODataKey(entity).toString());
+        }
+    }
+
 
     private void applySort(ODataQueryOperationBuilder<E> queryBuilder, Sort sort) {
         if (sort instanceof ODataSort) {
@@ -123,19 +154,31 @@ public class ODataEntityRepository<E extends ODataEntity> implements PagingAndSo
         // Determine if create or update
         if (ODataEntityUtils.allKeyFieldsSet(entity)) {
             final ODataKey<E> key = ODataEntityUtils.getODataKey(entity);
-            return (S) ODataUpdateOperation.builder()
-                    .client(client)
-                    .path(getEntityClass(), key)
-                    .data(entity)
-                    .build()
-                    .execute().getSingleResult();
+            try {
+                return (S) ODataUpdateOperation.builder()
+                        .client(client)
+                        .path(getEntityClass(), key)
+                        .data(entity)
+                        .build()
+                        .execute().getSingleResult();
+            } finally {
+                // a failed update may have been applied by the service
+                invalidateCache(entity);
+            }
         } else {
-            return (S) ODataCreateOperation.builder()
-                    .client(client)
-                    .path(getEntityClass())
-                    .data(entity)
-                    .build()
-                    .execute().getSingleResult();
+            S created = null;
+            try {
+                created = (S) ODataCreateOperation.builder()
+                        .client(client)
+                        .path(getEntityClass())
+                        .data(entity)
+                        .build()
+                        .execute().getSingleResult();
+                return created;
+            } finally {
+                // a miss of the key may be cached
+                invalidateCache(created);
+            }
         }
     }
 
@@ -148,15 +191,30 @@ public class ODataEntityRepository<E extends ODataEntity> implements PagingAndSo
 
     @Override
     public Optional<E> findById(String id) {
+        final Optional<E> cached = entityCache != null
+                ? entityCache.get(getEntityClass(), getCacheKey(id), client.getRequestLocale())
+                : null;
+        if (cached != null) {
+            return cached;
+        }
+        final long generation = entityCache != null ? entityCache.getGeneration(getEntityClass()) : 0;
+        Optional<E> entity;
         try {
-            return getQueryBuilder()
+            entity = getQueryBuilder()
                     .path(getEntityClass(), ODataEntityUtils.getKeyField(getEntityClass()), id)
                     .build()
                     .execute()
                     .getResultList().stream().findFirst();
         } catch (ODataException e) {
-            return Optional.empty();
+            if (e.getStatusCode() != HttpStatus.SC_NOT_FOUND) {
+                return Optional.empty();
+            }
+            entity = Optional.empty();
+        }
+        if (entityCache != null) {
+            entityCache.put(getEntityClass(), getCacheKey(id), client.getRequestLocale(), entity.orElse(null), generation);
         }
+        return entity;
     }
 
     @Override
@@ -183,15 +241,110 @@ public class ODataEntityRepository<E extends ODataEntity> implements PagingAndSo
                 .getResultList();
     }
 
+    /**
+     * Reads the entities with OR-ed key filters instead of one request per key. The keys are split into chunks
+     * whose request URL fits {@link #getMaxUrlLength()}, the chunks are read concurrently.
+     * The entities are returned in the order of the keys, keys not found are skipped.
+     */
     @Override
     public Iterable<E> findAllById(Iterable<String> keys) {
-        return StreamSupport.stream(keys.spliterator(), false)
-                .map(this::findById)
+        final List<String> ids = StreamSupport.stream(keys.spliterator(), false).collect(Collectors.toList());
+        final Map<String, Optional<E>> found = new HashMap<>();
+        final List<String> missing = new ArrayList<>();
+        for (String id : new LinkedHashSet<>(ids)) {
+            final Optional<E> cached = entityCache != null
+                    ? entityCache.get(getEntityClass(), getCacheKey(id), client.getRequestLocale())
+                    : null;
+            if (cached != null) {
+                found.put(getCacheKey(id), cached);
+            } else {
+                missing.add(id);
+            }
+        }
+        final long generation = entityCache != null ? entityCache.getGeneration(getEntityClass()) : 0;
+        final List<List<String>> keyChunks = getKeyChunks(missing);
+        final List<CompletableFuture<ODataResponse<E>>> chunks = keyChunks.stream()
+                .map(chunk -> getQueryBuilder()
+                        .path(getEntityClass())
+                        .filter(ODataOperationUtils.multiStringFilter(ODataEntityUtils.getKeyField(getEntityClass()),
+                                ODataFilter.Option.EQUALS, chunk))
+                        .build()
+                        .executeAsync())
+                .collect(Collectors.toList());
+        for (int i = 0; i < chunks.size(); i++) {
+            final List<E> entities = readKeyChunk(chunks.get(i));
+            if (entities == null) {
+                continue;
+            }
+            entities.stream()
+                    .filter(ODataEntityUtils::allKeyFieldsSet)
+                    .forEach(entity -> found.put(ODataEntityUtils.getODataKey(entity).toString(), Optional.of(entity)));
+            if (entityCache != null) {
+                keyChunks.get(i).forEach(id -> entityCache.put(getEntityClass(), getCacheKey(id), client.getRequestLocale(),
+                        found.getOrDefault(getCacheKey(id), Optional.empty()).orElse(null), generation));
+            }
+        }
+        return ids.stream()
+                .map(id -> found.getOrDefault(getCacheKey(id), Optional.empty()))
                 .filter(Optional::isPresent)
                 .map(Optional::get)
                 .collect(Collectors.toList());
     }
 
+    // the keys of a chunk that cannot be read are skipped and not cached, as by findById
+    private List<E> readKeyChunk(CompletableFuture<ODataResponse<E>> chunk) {
+        try {
+            return chunk.join().getResultList();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ODataException) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Splits the keys into chunks whose key filter keeps the request URL within the maximum URL length.
+     * A key is never split, a single key exceeding the length forms a chunk of its own.
+     */
+    protected List<List<String>> getKeyChunks(List<String> ids) {
+        final ODataKeyFields<E> keyField = ODataEntityUtils.getKeyField(getEntityClass());
+        final int baseLength = StringUtils.length(client.getServiceUrl())
+                + ("/" + ODataEntityUtils.getEntitySetName(getEntityClass()) + "?$filter=").length();
+        final List<List<String>> chunks = new ArrayList<>();
+        List<String> chunk = new ArrayList<>();
+        int length = baseLength;
+        for (String id : ids) {
+            final String expression = ODataFilter.builder(keyField, ODataFilter.Option.EQUALS, id).build().getFilterExpression();
+            int keyLength = EncoderUtils.encode(" or " + expression).length();
+            if (!chunk.isEmpty() && length + keyLength > maxUrlLength) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                length = baseLength;
+            }
+            if (chunk.isEmpty()) {
+                keyLength = EncoderUtils.encode(expression).length();
+            }
+            chunk.add(id);
+            length += keyLength;
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    public int getMaxUrlLength() {
+        return maxUrlLength;
+    }
+
+    public void setMaxUrlLength(int maxUrlLength) {
+        if (maxUrlLength <= 0) {
+            throw new IllegalArgumentException("Maximum URL length must be positive.");
+        }
+        this.maxUrlLength = maxUrlLength;
+    }
+
     @Override
     public long count() {
         return Long.parseLong(getQueryBuilder()
@@ -204,20 +357,30 @@ public class ODataEntityRepository<E extends ODataEntity> implements PagingAndSo
 
     @Override
     public void deleteById(String id) {
-        ODataDeleteOperation.builder()
-                .client(client)
-                .path(getEntityClass(), ODataEntityUtils.getKeyField(getEntityClass()), id)
-                .build()
-                .execute();
+        try {
+            ODataDeleteOperation.builder()
+                    .client(client)
+                    .path(getEntityClass(), ODataEntityUtils.getKeyField(getEntityClass()), id)
+                    .build()
+                    .execute();
+        } finally {
+            if (entityCache != null) {
+                entityCache.invalidate(getEntityClass(), getCacheKey(id));
+            }
+        }
     }
 
     @Override
     public void delete(E entity) {
-        ODataDeleteOperation.builder()
-                .client(client)
-                .path(getEntityClass(), ODataEntityUtils.getODataKey(entity))
-                .build()
-                .execute();
+        try {
+            ODataDeleteOperation.builder()
+                    .client(client)
+                    .path(getEntityClass(), ODataEntityUtils.getODataKey(entity))
+                    .build()
+                    .execute();
+        } finally {
+            invalidateCache(entity);
+        }
     }
 
     @Override
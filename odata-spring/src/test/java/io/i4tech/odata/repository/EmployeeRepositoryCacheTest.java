@@ -0,0 +1,202 @@
+package io.i4tech.odata.repository;
+
+import io.i4tech.odata.common.authorization.ODataBasicAuthorization;
+import io.i4tech.odata.common.client.ODataClient;
+import io.i4tech.odata.common.client.ODataException;
+import io.i4tech.odata.common.client.ODataResponse;
+import io.i4tech.odata.common.client.transport.ODataInMemoryResponse;
+import io.i4tech.odata.common.client.transport.ODataInMemoryTransport;
+import io.i4tech.odata.common.mapper.ODataEntityMapper;
+import io.i4tech.odata.test.model.employee.Employee;
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EmployeeRepositoryCacheTest {
+
+    private static final Employee employee1 = Employee.builder()
+            .objectID("id1")
+            .firstName("firstName1")
+            .build();
+
+    @Mock
+    private ODataClient client;
+
+    @Mock
+    private ODataResponse<Employee> employeeResponse;
+
+    @Spy
+    private ODataEntityCache entityCache = new ODataEntityCache(100, 60000, 60000);
+
+    @InjectMocks
+    private EmployeeRepository employeeRepository;
+
+    private void stubFindById(String id, Employee employee) {
+        when(employeeResponse.getResultList()).thenReturn(employee != null
+                ? Collections.singletonList(employee) : Collections.emptyList());
+        when(client.read(eq("EmployeeCollection"), eq(Employee.class), eq("/EmployeeCollection('" + id + "')")))
+                .thenReturn(employeeResponse);
+    }
+
+    @Test
+    public void testFindByIdCached() {
+        stubFindById("id1", employee1);
+
+        Assert.assertEquals(employee1, employeeRepository.findById("id1").orElse(null));
+        Assert.assertEquals(employee1, employeeRepository.findById("id1").orElse(null));
+
+        verify(client, times(1)).read(eq("EmployeeCollection"), eq(Employee.class), eq("/EmployeeCollection('id1')"));
+        Assert.assertEquals(1, entityCache.getStats().getHits());
+        Assert.assertEquals(1, entityCache.getStats().getMisses());
+    }
+
+    @Test
+    public void testFindAllByIdCached() {
+        stubFindById("id1", employee1);
+        employeeRepository.findById("id1");
+        when(client.readAsync(eq("EmployeeCollection"), eq(Employee.class),
+                eq("/EmployeeCollection?$filter=ObjectID+eq+%27NO_SUCH_ID%27")))
+                .thenReturn(CompletableFuture.completedFuture(employeeResponse));
+
+        // only the key not cached is read, and its miss is cached
+        Assert.assertEquals(Collections.singletonList(employee1), employeeRepository.findAllById(Arrays.asList("NO_SUCH_ID", "id1")));
+        Assert.assertFalse(employeeRepository.findById("NO_SUCH_ID").isPresent());
+        verify(client, times(1)).readAsync(eq("EmployeeCollection"), eq(Employee.class), anyString());
+    }
+
+    @Test
+    public void testNotFoundCached() throws IOException {
+        final byte[] edmx = IOUtils.toByteArray(getClass().getResourceAsStream("/employee.edmx"));
+        final ODataInMemoryTransport transport = new ODataInMemoryTransport(request -> request.getUri().contains("$metadata")
+                ? new ODataInMemoryResponse(200, edmx)
+                : new ODataInMemoryResponse(request.getUri().contains("NO_SUCH_ID") ? 404 : 500, ""));
+        employeeRepository.client = ODataClient.builder()
+                .transport(transport)
+                .serviceUrl("https://myservice.domain.com/")
+                .authorization(ODataBasicAuthorization.builder()
+                        .username("testuser")
+                        .password("testpass")
+                        .build())
+                .mapper(new ODataEntityMapper())
+                .build();
+
+        Assert.assertFalse(employeeRepository.findById("NO_SUCH_ID").isPresent());
+        Assert.assertFalse(employeeRepository.findById("NO_SUCH_ID").isPresent());
+        // other failures are not cached
+        Assert.assertFalse(employeeRepository.findById("id1").isPresent());
+        Assert.assertFalse(employeeRepository.findById("id1").isPresent());
+
+        Assert.assertEquals(1, transport.getRequests().stream().filter(r -> r.getUri().contains("NO_SUCH_ID")).count());
+        Assert.assertEquals(2, transport.getRequests().stream().filter(r -> r.getUri().contains("id1")).count());
+    }
+
+    @Test
+    public void testReadDuringSaveNotCached() {
+        when(employeeResponse.getResultList()).thenReturn(Collections.singletonList(employee1));
+        when(client.update(eq(Employee.class), eq("/EmployeeCollection('id1')"), eq(employee1)))
+                .thenReturn(employeeResponse);
+        // the entity is saved while it is being read
+        when(client.read(eq("EmployeeCollection"), eq(Employee.class), eq("/EmployeeCollection('id1')")))
+                .thenAnswer(invocation -> {
+                    employeeRepository.save(employee1);
+                    return employeeResponse;
+                })
+                .thenReturn(employeeResponse);
+
+        employeeRepository.findById("id1");
+        employeeRepository.findById("id1");
+        employeeRepository.findById("id1");
+
+        verify(client, times(2)).read(eq("EmployeeCollection"), eq(Employee.class), eq("/EmployeeCollection('id1')"));
+    }
+
+    @Test
+    public void testKeyedByLocale() {
+        stubFindById("id1", employee1);
+        when(client.getRequestLocale()).thenReturn(Locale.ENGLISH, Locale.ENGLISH, Locale.GERMAN);
+
+        employeeRepository.findById("id1");
+        employeeRepository.findById("id1");
+
+        verify(client, times(2)).read(eq("EmployeeCollection"), eq(Employee.class), eq("/EmployeeCollection('id1')"));
+    }
+
+    @Test
+    public void testSaveInvalidates() {
+        stubFindById("id1", employee1);
+        when(client.update(eq(Employee.class), eq("/EmployeeCollection('id1')"), eq(employee1)))
+                .thenReturn(employeeResponse);
+
+        employeeRepository.findById("id1");
+        employeeRepository.save(employee1);
+        employeeRepository.findById("id1");
+
+        verify(client, times(2)).read(eq("EmployeeCollection"), eq(Employee.class), eq("/EmployeeCollection('id1')"));
+    }
+
+    @Test
+    public void testDeleteInvalidates() {
+        stubFindById("id1", employee1);
+
+        employeeRepository.findById("id1");
+        employeeRepository.deleteById("id1");
+        employeeRepository.findById("id1");
+        employeeRepository.delete(employee1);
+        employeeRepository.findById("id1");
+
+        verify(client, times(3)).read(eq("EmployeeCollection"), eq(Employee.class), eq("/EmployeeCollection('id1')"));
+        verify(entityCache, times(2)).invalidate(Employee.class, "'id1'");
+    }
+
+    @Test
+    public void testCachedCopies() {
+        stubFindById("id1", Employee.builder().objectID("id1").firstName("firstName1").build());
+
+        final Employee found = employeeRepository.findById("id1").orElse(null);
+        found.setFirstName("changed");
+        final Employee cached = employeeRepository.findById("id1").orElse(null);
+        cached.setLastName("changed");
+
+        Assert.assertNotSame(cached, found);
+        Assert.assertEquals(employee1, employeeRepository.findById("id1").orElse(null));
+        verify(client, times(1)).read(eq("EmployeeCollection"), eq(Employee.class), eq("/EmployeeCollection('id1')"));
+    }
+
+    @Test
+    public void testFailedWritesInvalidate() {
+        stubFindById("id1", employee1);
+        when(client.update(eq(Employee.class), eq("/EmployeeCollection('id1')"), eq(employee1)))
+                .thenThrow(new ODataException("update failed"));
+        when(client.delete(eq(Employee.class), eq("/EmployeeCollection('id1')")))
+                .thenThrow(new ODataException("delete failed"));
+
+        employeeRepository.findById("id1");
+        for (Runnable write : Arrays.<Runnable>asList(() -> employeeRepository.save(employee1),
+                () -> employeeRepository.deleteById("id1"), () -> employeeRepository.delete(employee1))) {
+            try {
+                write.run();
+                Assert.fail();
+            } catch (ODataException e) {
+                // the service may have applied the write
+            }
+        }
+
+        verify(entityCache, times(3)).invalidate(Employee.class, "'id1'");
+    }
+}
@@ -7,6 +7,7 @@ import org.apache.commons.lang3.NotImplementedException;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
@@ -20,9 +21,13 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -219,29 +224,53 @@ public class EmployeeRepositoryTest {
 
     @Test
     public void testFindAllById() {
-        final ODataResponse<Employee> id1Response = mock(ODataResponse.class);
-        when(id1Response.getResultList()).thenReturn(Collections.singletonList(employee1));
-        when(client.read(eq("EmployeeCollection"), eq(Employee.class), eq("/EmployeeCollection('id1')")))
-                .thenReturn(id1Response);
-
-        final ODataResponse<Employee> id2Response = mock(ODataResponse.class);
-        when(id2Response.getResultList()).thenReturn(Collections.singletonList(employee2));
-        when(client.read(eq("EmployeeCollection"), eq(Employee.class), eq("/EmployeeCollection('id2')")))
-                .thenReturn(id2Response);
-
-        final ODataResponse<Employee> noSuchIdResponse = mock(ODataResponse.class);
-        when(noSuchIdResponse.getResultList()).thenReturn(Collections.emptyList());
-        when(client.read(eq("EmployeeCollection"), eq(Employee.class), eq("/EmployeeCollection('NO_SUCH_ID')")))
-                .thenReturn(noSuchIdResponse);
+        final ODataResponse<Employee> response = mock(ODataResponse.class);
+        when(response.getResultList()).thenReturn(Arrays.asList(employee2, employee1));
+        when(client.readAsync(eq("EmployeeCollection"), eq(Employee.class),
+                eq("/EmployeeCollection?$filter=ObjectID+eq+%27id1%27+or+ObjectID+eq+%27NO_SUCH_ID%27+or+ObjectID+eq+%27id2%27")))
+                .thenReturn(CompletableFuture.completedFuture(response));
 
         final List<Employee> employees = (List<Employee>) employeeRepository.findAllById( Arrays.asList(
                 "id1",
                 "NO_SUCH_ID",
                 "id2"));
 
-        Assert.assertEquals(2, employees.size());
-        Assert.assertTrue(employees.contains(employee1));
-        Assert.assertTrue(employees.contains(employee2));
+        Assert.assertEquals(Arrays.asList(employee1, employee2), employees);
+        verify(client, never()).read(anyString(), any(), anyString());
+    }
+
+    @Test
+    public void testFindAllByIdChunks() {
+        when(client.getServiceUrl()).thenReturn("https://myservice.domain.com/");
+        when(client.readAsync(eq("EmployeeCollection"), eq(Employee.class), anyString())).thenAnswer(invocation -> {
+            final String path = invocation.getArgument(2);
+            final List<Employee> found = Stream.of(employee1, employee2)
+                    .filter(e -> path.contains("%27" + e.getObjectID() + "%27"))
+                    .collect(Collectors.toList());
+            final ODataResponse<Employee> response = mock(ODataResponse.class);
+            when(response.getResultList()).thenReturn(found);
+            return CompletableFuture.completedFuture(response);
+        });
+        employeeRepository.setMaxUrlLength(110);
+
+        final List<String> ids = Arrays.asList("id2", "id3", "id4", "id5", "id1", "id6", "id2");
+        final List<Employee> employees = (List<Employee>) employeeRepository.findAllById(ids);
+
+        Assert.assertEquals(Arrays.asList(employee2, employee1, employee2), employees);
+        final ArgumentCaptor<String> paths = ArgumentCaptor.forClass(String.class);
+        verify(client, times(3)).readAsync(eq("EmployeeCollection"), eq(Employee.class), paths.capture());
+        paths.getAllValues().forEach(path -> Assert.assertTrue("https://myservice.domain.com/".length() + path.length() <= 110));
+    }
+
+    @Test
+    public void testKeyChunks() {
+        employeeRepository.setMaxUrlLength(1);
+        Assert.assertEquals(Arrays.asList(Collections.singletonList("id1"), Collections.singletonList("id2")),
+                employeeRepository.getKeyChunks(Arrays.asList("id1", "id2")));
+
+        employeeRepository.setMaxUrlLength(ODataEntityRepository.DEFAULT_MAX_URL_LENGTH);
+        Assert.assertEquals(Collections.singletonList(Arrays.asList("id1", "id2")),
+                employeeRepository.getKeyChunks(Arrays.asList("id1", "id2")));
     }
 
     @Test